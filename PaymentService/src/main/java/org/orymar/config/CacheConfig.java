@@ -0,0 +1,29 @@
+package org.orymar.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String REGULAR_PAYMENTS_BY_ID = "regularPaymentsById";
+    public static final String REGULAR_PAYMENTS_BY_IPN = "regularPaymentsByIpn";
+    public static final String REGULAR_PAYMENTS_BY_EDRPOU = "regularPaymentsByEdrpou";
+
+    /**
+     * Evictions made inside a transaction are deferred until it commits, so a concurrent read cannot
+     * put the old row back in between.
+     */
+    @Bean
+    public CacheManager cacheManager(@Value("${regular-payments.cache.spec}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                REGULAR_PAYMENTS_BY_ID, REGULAR_PAYMENTS_BY_IPN, REGULAR_PAYMENTS_BY_EDRPOU);
+        cacheManager.setCacheSpecification(spec);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -2,12 +2,42 @@ package org.orymar.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 
 @Configuration
 public class MapperConfig {
+    /** RFC 8742 CBOR sequence: CBOR items back to back, the binary counterpart of NDJSON. */
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+    public static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE);
+
+    /**
+     * True when the {@code Accept} header ranks a CBOR type at least as high as any other concrete
+     * type. Wildcards never select CBOR, so generic clients keep getting text.
+     */
+    public static boolean prefersCbor(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        double cbor = 0;
+        double other = 0;
+        for (MediaType type : MediaType.parseMediaTypes(accept)) {
+            if (type.isWildcardType() || type.isWildcardSubtype()) {
+                continue;
+            }
+            if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(type) || APPLICATION_CBOR_SEQ.equalsTypeAndSubtype(type)) {
+                cbor = Math.max(cbor, type.getQualityValue());
+            } else {
+                other = Math.max(other, type.getQualityValue());
+            }
+        }
+        return cbor > 0 && cbor >= other;
+    }
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -15,4 +45,16 @@ public class MapperConfig {
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
         return mapper;
     }
-}
\ No newline at end of file
+
+    /**
+     * Serves {@code application/cbor} to callers that ask for it; JSON stays first in the converter
+     * list, so everyone else keeps getting JSON. UUIDs go out as 16-byte strings, {@link
+     * org.orymar.domain.Money} as a decimal fraction (scale plus an integer mantissa) and dates as
+     * arrays of ints, so neither side formats or parses text for them.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory())
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    }
+}
@@ -0,0 +1,27 @@
+package org.orymar.config;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.DecimalMin;
+import org.orymar.domain.Money;
+
+/**
+ * Lets {@link DecimalMin} guard {@link Money} fields just as it guarded {@code BigDecimal} ones.
+ * Registered through {@code META-INF/services/jakarta.validation.ConstraintValidator}.
+ */
+public class MoneyDecimalMinValidator implements ConstraintValidator<DecimalMin, Money> {
+
+    private long minMinor;
+    private boolean inclusive;
+
+    @Override
+    public void initialize(DecimalMin constraint) {
+        this.minMinor = Money.of(constraint.value()).minor();
+        this.inclusive = constraint.inclusive();
+    }
+
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        return value == null || (inclusive ? value.minor() >= minMinor : value.minor() > minMinor);
+    }
+}
@@ -0,0 +1,41 @@
+package org.orymar.config;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+import jakarta.validation.constraints.Digits;
+import org.orymar.domain.Money;
+
+/**
+ * Lets {@link Digits} guard {@link Money} fields just as it guarded {@code BigDecimal} ones: at
+ * most {@code integer} digits before the point, and no kopiykas when {@code fraction} is below
+ * {@link Money#SCALE}. Registered through
+ * {@code META-INF/services/jakarta.validation.ConstraintValidator}.
+ */
+public class MoneyDigitsValidator implements ConstraintValidator<Digits, Money> {
+
+    private long integerBound;
+    private long fractionUnit;
+
+    @Override
+    public void initialize(Digits constraint) {
+        this.integerBound = constraint.integer() >= 17 ? Long.MAX_VALUE : pow10(constraint.integer() + Money.SCALE);
+        this.fractionUnit = constraint.fraction() >= Money.SCALE ? 1 : pow10(Money.SCALE - constraint.fraction());
+    }
+
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+        long minor = Math.abs(value.minor());
+        return minor < integerBound && minor % fractionUnit == 0;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,20 @@
+package org.orymar.config;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.orymar.domain.RecurrenceRule;
+
+/** Stores a {@link RecurrenceRule} in its canonical text form. */
+@Converter
+public class RecurrenceRuleConverter implements AttributeConverter<RecurrenceRule, String> {
+
+    @Override
+    public String convertToDatabaseColumn(RecurrenceRule rule) {
+        return rule == null ? null : rule.text();
+    }
+
+    @Override
+    public RecurrenceRule convertToEntityAttribute(String text) {
+        return text == null ? null : RecurrenceRule.parse(text);
+    }
+}
@@ -0,0 +1,30 @@
+package org.orymar.controller;
+
+import org.orymar.config.MapperConfig;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong ETags built from change versions rather than from the body, so a conditional GET can be
+ * answered before anything is loaded. JSON and CBOR bodies of the same version get different tags.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static ETag of(long version, String accept) {
+        return new ETag(MapperConfig.prefersCbor(accept) ? version + "-cbor" : Long.toString(version), false);
+    }
+
+    /** Compares weakly, as If-None-Match requires; {@code *} matches any existing resource. */
+    static boolean matches(String ifNoneMatch, ETag tag) {
+        return ifNoneMatch != null && ETag.parse(ifNoneMatch).stream()
+                .anyMatch(candidate -> candidate.isWildcard() || candidate.compare(tag, false));
+    }
+
+    static <T> ResponseEntity<T> notModified(ETag tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag.formattedTag()).build();
+    }
+}
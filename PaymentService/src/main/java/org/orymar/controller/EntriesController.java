@@ -1,48 +1,138 @@
 package org.orymar.controller;
 
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.orymar.domain.EntriesCursor;
+import org.orymar.domain.EntriesHistoryFilter;
+import org.orymar.domain.EntryCreationResult;
+import org.orymar.domain.EntriesPayment;
 import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.OutputEntriesBatchItemResponseDTO;
 import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
+import org.orymar.domain.dto.OutputEntriesStatusUpdateResponseDTO;
+import org.orymar.domain.dto.OutputPaymentLedgerSummaryResponseDTO;
 import org.orymar.domain.dto.UpdateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.UpdateEntriesStatusRequestDTO;
 import org.orymar.mapper.EntriesMapper;
 import org.orymar.service.EntriesService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/entrie-payments")
 @RequiredArgsConstructor
 public class EntriesController {
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_PAGE_SIZE = 1000;
 
     private final EntriesService service;
     private final EntriesMapper mapper;
+    private final Validator validator;
 
+    /**
+     * Returns a page of the payment's entries with {@code from <= dateOfPayment < to}, ordered by
+     * payment date and id. While more may follow, the cursor to pass as {@code after} for the next
+     * page is sent in {@value RegularController#NEXT_CURSOR_HEADER}. Pages are tagged with the
+     * change version of the payment's entries, read before the page itself.
+     */
     @GetMapping
     public ResponseEntity<List<OutputEntriesPaymentResponseDTO>> getByPaymentId(
-            @RequestParam UUID paymentId) {
-        var result = service.getEntriesByPaymentId(paymentId).stream().map(mapper::toEntriesPayment).toList();
-        return ResponseEntity.ok(result);
+            @RequestParam UUID paymentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Character status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        var cursor = after == null ? null : EntriesCursor.parse(after);
+        ETag tag = EntityTags.of(service.getEntriesVersion(paymentId), accept);
+        if (EntityTags.matches(ifNoneMatch, tag)) {
+            return EntityTags.notModified(tag);
+        }
+        var filter = new EntriesHistoryFilter(paymentId, from, to, status);
+        var entries = service.getEntriesByPaymentId(filter, cursor, limit);
+        var response = ResponseEntity.ok().eTag(tag.formattedTag());
+        if (entries.size() == limit) {
+            response.header(RegularController.NEXT_CURSOR_HEADER, EntriesCursor.of(entries.get(limit - 1)).encode());
+        }
+        return response.body(entries);
     }
 
+    /**
+     * Returns {@code 201} with the new entry, or {@code 200} with the entry already booked for the
+     * same billing period, so a repeated write-off is safe.
+     */
     @PostMapping
     public ResponseEntity<OutputEntriesPaymentResponseDTO> create(
             @RequestBody @Valid CreateEntriesPaymentRequestDTO dto) {
         var entriesPayment = mapper.toEntriesPaymentCreateDto(dto);
-        var created = service.create(entriesPayment);
-        var entriesPaymentResponseDTO = mapper.toEntriesPayment(created);
-        return new ResponseEntity<>(entriesPaymentResponseDTO, HttpStatus.CREATED);
+        var result = service.create(entriesPayment);
+        var entriesPaymentResponseDTO = mapper.toEntriesPayment(result.entry());
+        return new ResponseEntity<>(entriesPaymentResponseDTO, result.created() ? HttpStatus.CREATED : HttpStatus.OK);
+    }
+
+    /**
+     * Creates up to {@value #MAX_BATCH_SIZE} entries in one transaction. Every item is validated on
+     * its own, so one bad item is reported at its index instead of failing the whole request.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<OutputEntriesBatchItemResponseDTO>> createBatch(
+            @RequestBody List<CreateEntriesPaymentRequestDTO> dtos) {
+        if (dtos.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                    "Batch size " + dtos.size() + " exceeds the limit of " + MAX_BATCH_SIZE);
+        }
+
+        List<String> errors = dtos.stream().map(this::validate).toList();
+        List<EntriesPayment> valid = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            if (errors.get(i) == null) {
+                valid.add(mapper.toEntriesPaymentCreateDto(dtos.get(i)));
+            }
+        }
+
+        Iterator<EntryCreationResult> created = service.createAll(valid).iterator();
+        List<OutputEntriesBatchItemResponseDTO> result = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            UUID regularPaymentId = dtos.get(i) == null ? null : dtos.get(i).regularPaymentId();
+            String error = errors.get(i);
+            if (error == null) {
+                EntryCreationResult itemResult = created.next();
+                error = itemResult.error();
+                if (error == null) {
+                    result.add(new OutputEntriesBatchItemResponseDTO(i, regularPaymentId,
+                            mapper.toEntriesPayment(itemResult.entry()), itemResult.created(), null));
+                    continue;
+                }
+            }
+            result.add(new OutputEntriesBatchItemResponseDTO(i, regularPaymentId, null, false, error));
+        }
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<OutputEntriesPaymentResponseDTO> getById(@PathVariable UUID id) {
         return service
                 .getById(id)
-                .map(mapper::toEntriesPayment)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -56,12 +146,49 @@ public class EntriesController {
     }
 
     @PatchMapping("/{id}")
-    public ResponseEntity<OutputEntriesPaymentResponseDTO> updateStatus(@PathVariable UUID id, @RequestParam char status) {
-        var updated = service.updateStatus(id, status);
+    public ResponseEntity<OutputEntriesPaymentResponseDTO> updateStatus(
+            @PathVariable UUID id, @RequestParam char status, @RequestParam(required = false) Long version) {
+        var updated = service.updateStatus(id, status, version);
         var responseDTO = mapper.toEntriesPayment(updated);
         return ResponseEntity.ok(responseDTO);
     }
 
+    /**
+     * Sets the status of up to {@value #MAX_BATCH_SIZE} listed entries, or of up to
+     * {@value #MAX_BATCH_SIZE} entries of one regular payment paid in {@code [from, to)}, with a
+     * single statement. Entries already in that status are not counted; a window holding more
+     * entries is worked through by repeating the request until fewer than the limit are updated.
+     */
+    @PatchMapping
+    public ResponseEntity<OutputEntriesStatusUpdateResponseDTO> updateStatuses(
+            @RequestBody @Valid UpdateEntriesStatusRequestDTO dto) {
+        int updated;
+        if (dto.ids() != null && dto.regularPaymentId() == null) {
+            if (dto.ids().size() > MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException(
+                        "Batch size " + dto.ids().size() + " exceeds the limit of " + MAX_BATCH_SIZE);
+            }
+            if (dto.ids().stream().anyMatch(Objects::isNull)) {
+                throw new IllegalArgumentException("Entry ids must not be null");
+            }
+            updated = service.updateStatuses(Set.copyOf(dto.ids()), dto.status());
+        } else if (dto.ids() == null && dto.regularPaymentId() != null) {
+            var filter = new EntriesHistoryFilter(dto.regularPaymentId(), dto.from(), dto.to(), null);
+            updated = service.updateStatuses(filter, dto.status(), MAX_BATCH_SIZE);
+        } else {
+            throw new IllegalArgumentException("Either ids or regularPaymentId must be given");
+        }
+        return ResponseEntity.ok(new OutputEntriesStatusUpdateResponseDTO(updated));
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<OutputPaymentLedgerSummaryResponseDTO> getSummary(@RequestParam UUID paymentId) {
+        return service
+                .getLedgerSummary(paymentId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/check")
     public boolean checkWriteOff(@RequestParam UUID id) {
         return service.isWriteOffNeeded(id);
@@ -72,4 +199,14 @@ public class EntriesController {
         service.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private String validate(CreateEntriesPaymentRequestDTO dto) {
+        if (dto == null) {
+            return "Entry is required";
+        }
+        Set<ConstraintViolation<CreateEntriesPaymentRequestDTO>> violations = validator.validate(dto);
+        return violations.isEmpty()
+                ? null
+                : violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
 }
\ No newline at end of file
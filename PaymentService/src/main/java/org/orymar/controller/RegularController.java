@@ -1,27 +1,46 @@
 package org.orymar.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.orymar.config.MapperConfig;
 import org.orymar.domain.dto.CreateRegularPaymentRequestDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
 import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
 import org.orymar.domain.dto.UpdateRegularPaymentRequestDTO;
 import org.orymar.mapper.RegularMapper;
 import org.orymar.service.RegularService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("regular-payments")
 @RequiredArgsConstructor
 public class RegularController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 1000;
 
     private final RegularService regularService;
     private final RegularMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborConverter;
 
     @PostMapping
     public ResponseEntity<OutputRegularPaymentResponseDTO> create(
@@ -32,15 +51,72 @@ public class RegularController {
         return new ResponseEntity<>(regularPaymentResponseDTO, HttpStatus.CREATED);
     }
 
+    /**
+     * Tagged with the payment's row version. A conditional request is answered after a version
+     * lookup alone when the tag still matches; the body may come from the cache, so it is tagged
+     * with its own version.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<OutputRegularPaymentResponseDTO> getById(@PathVariable UUID id) {
+    public ResponseEntity<OutputRegularPaymentResponseDTO> getById(
+            @PathVariable UUID id,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = regularService.getPaymentVersion(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            ETag current = EntityTags.of(version.get(), accept);
+            if (EntityTags.matches(ifNoneMatch, current)) {
+                return EntityTags.notModified(current);
+            }
+        }
         return regularService
                 .getPaymentById(id)
-                .map(mapper::toRegularPayment)
-                .map(ResponseEntity::ok)
+                .map(payment -> ResponseEntity.ok()
+                        .eTag(EntityTags.of(payment.version(), accept).formattedTag())
+                        .body(payment))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /**
+     * Writes the due payments as an array while the rows come off the database cursor, so the
+     * first bytes leave before the query is exhausted and no list of the whole result is built.
+     * The array is CBOR for callers that prefer {@code application/cbor}, JSON otherwise.
+     */
+    @GetMapping("/due")
+    public ResponseEntity<StreamingResponseBody> getDuePayments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        var moment = Objects.requireNonNullElseGet(at, LocalDateTime::now);
+        boolean cbor = MapperConfig.prefersCbor(accept);
+        return ResponseEntity.ok()
+                .contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .body(array(cbor, action -> regularService.forEachDuePayment(moment, action)));
+    }
+
+    /**
+     * Returns the payments created, updated or deleted since {@code since}, oldest first, with the
+     * high-water mark to pass as {@code since} next time. Deleted payments come as tombstones. Start
+     * from {@code 0} for a full copy; when the page was cut by {@code limit}, pass its {@code after}
+     * along with the high-water mark to continue. Tombstones are kept for
+     * {@code regular-payments.purge.tombstone-retention}; a position older than that is answered
+     * with {@code 410 Gone}, and the reader starts over from {@code 0}.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<OutputRegularPaymentChangesResponseDTO> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) UUID after,
+            @RequestParam(defaultValue = "500") int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Since must not be negative");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return ResponseEntity.ok(regularService.getChanges(since, after, limit));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<OutputRegularPaymentResponseDTO> update(
             @PathVariable UUID id, @RequestBody @Valid UpdateRegularPaymentRequestDTO payment) {
@@ -56,24 +132,114 @@ public class RegularController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Without any parameter, every payment in one array ordered by id, as this endpoint has always
+     * answered; the array is written while the rows come off the cursor. Tagged like the pages of
+     * {@link #getPayments}, which serves the same list a page at a time once {@code after} or
+     * {@code limit} is given.
+     */
+    @GetMapping(params = {"!ipn", "!edrpou", "!after", "!limit"})
+    public ResponseEntity<StreamingResponseBody> getAllPayments(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ETag tag = EntityTags.of(regularService.getPaymentsVersion(), accept);
+        if (EntityTags.matches(ifNoneMatch, tag)) {
+            return EntityTags.notModified(tag);
+        }
+        boolean cbor = MapperConfig.prefersCbor(accept);
+        return ResponseEntity.ok()
+                .eTag(tag.formattedTag())
+                .contentType(cbor ? MediaType.APPLICATION_CBOR : MediaType.APPLICATION_JSON)
+                .body(array(cbor, regularService::forEachPayment));
+    }
+
+    /**
+     * With {@code after} or {@code limit} the payments are returned a page at a time, ordered by id.
+     * While more may follow, the id to pass as {@code after} for the next page is sent in
+     * {@value #NEXT_CURSOR_HEADER}. Pages are tagged with the table's change version, read before
+     * the page itself, so a tag is never newer than the body it comes with.
+     */
     @GetMapping
     public ResponseEntity<List<OutputRegularPaymentResponseDTO>> getPayments(
             @RequestParam(required = false) String ipn,
-            @RequestParam(required = false) String edrpou) {
-        List<OutputRegularPaymentResponseDTO> payments;
+            @RequestParam(required = false) String edrpou,
+            @RequestParam(required = false) UUID after,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (Objects.nonNull(ipn)) {
-            payments = regularService.getPaymentsByIpn(ipn).stream()
-                    .map(mapper::toRegularPayment)
-                    .toList();
-        } else if (Objects.nonNull(edrpou)) {
-            payments = regularService.getPaymentsByErdpou(edrpou).stream()
-                    .map(mapper::toRegularPayment)
-                    .toList();
-        } else {
-            payments = regularService.getAllPayments().stream()
-                    .map(mapper::toRegularPayment)
-                    .toList();
+            return ResponseEntity.ok(regularService.getPaymentsByIpn(ipn));
+        }
+        if (Objects.nonNull(edrpou)) {
+            return ResponseEntity.ok(regularService.getPaymentsByErdpou(edrpou));
         }
-        return ResponseEntity.ok(payments);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ETag tag = EntityTags.of(regularService.getPaymentsVersion(), accept);
+        if (EntityTags.matches(ifNoneMatch, tag)) {
+            return EntityTags.notModified(tag);
+        }
+        List<OutputRegularPaymentResponseDTO> payments = regularService.getPaymentsPage(after, limit);
+        var response = ResponseEntity.ok().eTag(tag.formattedTag());
+        if (payments.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, payments.get(limit - 1).id().toString());
+        }
+        return response.body(payments);
+    }
+
+    /**
+     * Streams all payments ordered by id, one item per payment: newline-delimited JSON, or a CBOR
+     * sequence for callers that prefer {@value MapperConfig#APPLICATION_CBOR_SEQ_VALUE}. Tagged like
+     * {@link #getPayments}, so an unchanged table costs a single version lookup. It has a path of its
+     * own, so a plain {@code GET /regular-payments} always gets an array whatever it accepts.
+     */
+    @GetMapping(value = "/export",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MapperConfig.APPLICATION_CBOR_SEQ_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamPayments(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ETag tag = EntityTags.of(regularService.getPaymentsVersion(), accept);
+        if (EntityTags.matches(ifNoneMatch, tag)) {
+            return EntityTags.notModified(tag);
+        }
+        boolean cbor = MapperConfig.prefersCbor(accept);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = cbor
+                    ? cborConverter.getObjectMapper().createGenerator(out)
+                    : objectMapper.createGenerator(out).setRootValueSeparator(null);
+            regularService.forEachPayment(writer(generator, !cbor));
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .eTag(tag.formattedTag())
+                .contentType(cbor ? MapperConfig.APPLICATION_CBOR_SEQ : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /** An array of the payments {@code source} hands over, CBOR or JSON. */
+    private StreamingResponseBody array(boolean cbor,
+                                        Consumer<Consumer<OutputRegularPaymentResponseDTO>> source) {
+        ObjectMapper codec = cbor ? cborConverter.getObjectMapper() : objectMapper;
+        return out -> {
+            JsonGenerator generator = codec.createGenerator(out);
+            generator.writeStartArray();
+            source.accept(writer(generator, false));
+            generator.writeEndArray();
+            generator.flush();
+        };
+    }
+
+    private static Consumer<OutputRegularPaymentResponseDTO> writer(JsonGenerator generator, boolean newlines) {
+        return payment -> {
+            try {
+                generator.writeObject(payment);
+                if (newlines) {
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
     }
 }
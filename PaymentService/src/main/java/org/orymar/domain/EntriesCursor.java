@@ -0,0 +1,33 @@
+package org.orymar.domain;
+
+import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Position in an entry history ordered by {@code (dateOfPayment, id)}: the next page starts right
+ * after this entry. Clients get it as an opaque {@code <dateOfPayment>_<id>} token.
+ */
+public record EntriesCursor(LocalDateTime dateOfPayment, UUID id) {
+    private static final char SEPARATOR = '_';
+
+    public static EntriesCursor of(OutputEntriesPaymentResponseDTO entry) {
+        return new EntriesCursor(entry.dateOfPayment(), entry.id());
+    }
+
+    public static EntriesCursor parse(String token) {
+        int separator = token.lastIndexOf(SEPARATOR);
+        try {
+            return new EntriesCursor(LocalDateTime.parse(token.substring(0, Math.max(separator, 0))),
+                    UUID.fromString(token.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        return dateOfPayment.toString() + SEPARATOR + id;
+    }
+}
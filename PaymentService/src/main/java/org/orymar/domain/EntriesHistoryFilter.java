@@ -0,0 +1,14 @@
+package org.orymar.domain;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Selects the entries of one regular payment, optionally limited to the payment dates in
+ * {@code [from, to)} and to one {@code status}. Unset bounds and status match everything.
+ */
+public record EntriesHistoryFilter(UUID regularPaymentId, LocalDateTime from, LocalDateTime to, Character status) {
+    public static EntriesHistoryFilter of(UUID regularPaymentId) {
+        return new EntriesHistoryFilter(regularPaymentId, null, null, null);
+    }
+}
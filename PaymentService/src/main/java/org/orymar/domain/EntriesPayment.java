@@ -1,17 +1,17 @@
 package org.orymar.domain;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 import lombok.Data;
+import org.hibernate.annotations.UuidGenerator;
 
 @Data
 @Entity
 @Table(name = "entries_payment")
 public class EntriesPayment {
   @Id
-  @GeneratedValue(strategy = GenerationType.UUID)
+  @UuidGenerator(algorithm = UuidV7Generator.class)
   @Column(name = "id")
   private UUID id;
 
@@ -22,8 +22,18 @@ public class EntriesPayment {
   private LocalDateTime dateOfPayment;
 
   @Column(name = "amount")
-  private BigDecimal amount;
+  private Money amount;
 
   @Column(name = "status")
   private char status;
+
+  @Column(name = "due_at")
+  private LocalDateTime dueAt;
+
+  @Column(name = "billing_period")
+  private Long billingPeriod;
+
+  @Version
+  @Column(name = "version")
+  private Long version;
 }
@@ -0,0 +1,19 @@
+package org.orymar.domain;
+
+/**
+ * Outcome of creating one entry: a new entry, a {@code duplicate} of an active entry already
+ * booked for the same billing period (then {@code entry} is that entry when known), or an error.
+ */
+public record EntryCreationResult(EntriesPayment entry, boolean created, String error) {
+    public static EntryCreationResult created(EntriesPayment entry) {
+        return new EntryCreationResult(entry, true, null);
+    }
+
+    public static EntryCreationResult duplicate(EntriesPayment existing) {
+        return new EntryCreationResult(existing, false, null);
+    }
+
+    public static EntryCreationResult rejected(String error) {
+        return new EntryCreationResult(null, false, error);
+    }
+}
@@ -0,0 +1,5 @@
+package org.orymar.domain;
+
+/** An entry as it was right before an update ({@code previous}) and as the update left it. */
+public record EntryUpdate(EntriesPayment previous, EntriesPayment current) {
+}
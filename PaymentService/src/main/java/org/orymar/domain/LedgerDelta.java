@@ -0,0 +1,79 @@
+package org.orymar.domain;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Change of one {@link PaymentLedgerSummary}. {@code lastPaymentAt} only ever moves the summary
+ * forward; moving it back after an active entry goes away is a separate, absolute update.
+ */
+public record LedgerDelta(
+        UUID regularPaymentId,
+        long activeCount,
+        Money activeAmount,
+        long stornoCount,
+        Money stornoAmount,
+        LocalDateTime lastPaymentAt
+) {
+    private static final char ACTIVE_STATUS = 'A';
+
+    public static LedgerDelta added(EntriesPayment entry) {
+        return new Sum(entry.getRegularPaymentId()).add(entry).toDelta();
+    }
+
+    public static LedgerDelta removed(EntriesPayment entry) {
+        return new Sum(entry.getRegularPaymentId()).remove(entry).toDelta();
+    }
+
+    public static LedgerDelta replaced(EntriesPayment before, EntriesPayment after) {
+        return new Sum(after.getRegularPaymentId()).remove(before).add(after).toDelta();
+    }
+
+    /**
+     * Running total of the changes of one payment. Amounts are summed as {@code long} kopiykas in
+     * place, so booking a batch allocates nothing per entry; a {@link Money} result would be a new
+     * object on every addition.
+     */
+    public static final class Sum {
+        private final UUID regularPaymentId;
+        private long activeCount;
+        private long activeMinor;
+        private long stornoCount;
+        private long stornoMinor;
+        private LocalDateTime lastPaymentAt;
+
+        public Sum(UUID regularPaymentId) {
+            this.regularPaymentId = regularPaymentId;
+        }
+
+        public Sum add(EntriesPayment entry) {
+            return add(entry, 1);
+        }
+
+        public Sum remove(EntriesPayment entry) {
+            return add(entry, -1);
+        }
+
+        public LedgerDelta toDelta() {
+            return new LedgerDelta(regularPaymentId, activeCount, Money.ofMinor(activeMinor),
+                    stornoCount, Money.ofMinor(stornoMinor), lastPaymentAt);
+        }
+
+        private Sum add(EntriesPayment entry, int sign) {
+            long amount = entry.getAmount() == null ? 0 : entry.getAmount().minor();
+            long signed = sign < 0 ? Math.negateExact(amount) : amount;
+            if (entry.getStatus() != ACTIVE_STATUS) {
+                stornoCount += sign;
+                stornoMinor = Math.addExact(stornoMinor, signed);
+                return this;
+            }
+            activeCount += sign;
+            activeMinor = Math.addExact(activeMinor, signed);
+            LocalDateTime paidAt = entry.getDateOfPayment();
+            if (sign > 0 && paidAt != null && (lastPaymentAt == null || paidAt.isAfter(lastPaymentAt))) {
+                lastPaymentAt = paidAt;
+            }
+            return this;
+        }
+    }
+}
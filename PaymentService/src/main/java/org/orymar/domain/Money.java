@@ -0,0 +1,75 @@
+package org.orymar.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.orymar.config.MoneyDeserializer;
+import org.orymar.config.MoneySerializer;
+
+import java.math.BigDecimal;
+
+/**
+ * Amount in hryvnias held as a {@code long} of kopiykas, so sums and comparisons are plain integer
+ * arithmetic. It is stored as {@code NUMERIC(15,2)} and travels in JSON as a decimal number, the
+ * same as the {@link BigDecimal} it replaces. Arithmetic that leaves the {@code long} range throws
+ * {@link ArithmeticException} rather than wrapping.
+ */
+@JsonSerialize(using = MoneySerializer.class)
+@JsonDeserialize(using = MoneyDeserializer.class)
+@Schema(type = "number", format = "decimal", example = "123.45")
+public record Money(long minor) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    /** Rejects amounts with non-zero digits past the kopiyka or beyond the {@code long} range. */
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofMinor(amount.movePointRight(SCALE).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount + " is not a whole number of kopiykas", e);
+        }
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minor, other.minor));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minor, other.minor));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minor));
+    }
+
+    public int signum() {
+        return Long.signum(minor);
+    }
+
+    public boolean isZero() {
+        return minor == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,41 @@
+package org.orymar.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "payment_ledger_summary")
+public class PaymentLedgerSummary {
+
+    @Id
+    @Column(name = "regular_payment_id")
+    private UUID regularPaymentId;
+
+    @Column(name = "active_count")
+    private long activeCount;
+
+    @Column(name = "active_amount")
+    private Money activeAmount = Money.ZERO;
+
+    @Column(name = "storno_count")
+    private long stornoCount;
+
+    @Column(name = "storno_amount")
+    private Money stornoAmount = Money.ZERO;
+
+    @Column(name = "last_payment_at")
+    private LocalDateTime lastPaymentAt;
+
+    /** Grows with every change to the payment's entries; backs the ETag of its entry list. */
+    @Column(name = "entries_version")
+    private long entriesVersion;
+
+    public PaymentLedgerSummary(UUID regularPaymentId) {
+        this.regularPaymentId = regularPaymentId;
+    }
+}
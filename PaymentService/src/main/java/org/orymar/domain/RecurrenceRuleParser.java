@@ -0,0 +1,113 @@
+package org.orymar.domain;
+
+import org.orymar.domain.enums.TimeUnitSuffix;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Text form of {@link RecurrenceRule}s, with a cache of the texts seen so far. */
+final class RecurrenceRuleParser {
+
+    /** Schedules share a handful of distinct texts; past this many, new texts are parsed uncached. */
+    private static final int CACHE_LIMIT = 10_000;
+    private static final Map<String, RecurrenceRule> CACHE = new ConcurrentHashMap<>();
+
+    private RecurrenceRuleParser() {
+    }
+
+    static RecurrenceRule parse(String text) {
+        RecurrenceRule cached = CACHE.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        RecurrenceRule rule = parseUncached(text.trim());
+        if (CACHE.size() < CACHE_LIMIT) {
+            CACHE.putIfAbsent(text, rule);
+        }
+        return rule;
+    }
+
+    static String interval(int count) {
+        return count == 1 ? "" : ";INTERVAL=" + count;
+    }
+
+    private static RecurrenceRule parseUncached(String text) {
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Recurrence rule is empty");
+        }
+        return text.indexOf('=') < 0 ? parseInterval(text.toLowerCase(Locale.ROOT)) : parseRule(text);
+    }
+
+    private static RecurrenceRule parseInterval(String text) {
+        TimeUnitSuffix suffix = TimeUnitSuffix.fromSuffix(text);
+        long amount = parseNumber(text.substring(0, text.length() - 1), text);
+        return new RecurrenceRule.Interval(Duration.of(amount, suffix.unit()));
+    }
+
+    private static RecurrenceRule parseRule(String text) {
+        Map<String, String> parts = new HashMap<>();
+        for (String part : text.toUpperCase(Locale.ROOT).split(";")) {
+            int eq = part.indexOf('=');
+            if (eq < 1 || parts.put(part.substring(0, eq).trim(), part.substring(eq + 1).trim()) != null) {
+                throw new IllegalArgumentException("Malformed recurrence rule: " + text);
+            }
+        }
+        String freq = parts.remove("FREQ");
+        String interval = parts.remove("INTERVAL");
+        int count = interval == null ? 1 : toInt(parseNumber(interval, text), text);
+        String byDay = parts.remove("BYDAY");
+        String byMonthDay = parts.remove("BYMONTHDAY");
+        if (freq == null || !parts.isEmpty()
+                || byDay != null && !"WEEKLY".equals(freq)
+                || byMonthDay != null && !"MONTHLY".equals(freq)) {
+            throw new IllegalArgumentException("Unsupported recurrence rule: " + text);
+        }
+        return switch (freq) {
+            case "MINUTELY" -> new RecurrenceRule.Interval(Duration.ofMinutes(count));
+            case "HOURLY" -> new RecurrenceRule.Interval(Duration.ofHours(count));
+            case "DAILY" -> new RecurrenceRule.Interval(Duration.ofDays(count));
+            case "WEEKLY" -> byDay == null
+                    ? new RecurrenceRule.Interval(Duration.ofDays(7L * count))
+                    : new RecurrenceRule.Weekly(count, dayOfWeek(byDay, text));
+            case "MONTHLY" -> {
+                if (byMonthDay == null) {
+                    throw new IllegalArgumentException("Monthly recurrence needs BYMONTHDAY: " + text);
+                }
+                int day = toInt(parseSigned(byMonthDay, text), text);
+                yield day == -1 ? new RecurrenceRule.EndOfMonth(count) : new RecurrenceRule.MonthlyOnDay(count, day);
+            }
+            default -> throw new IllegalArgumentException("Unsupported recurrence frequency: " + text);
+        };
+    }
+
+    private static DayOfWeek dayOfWeek(String code, String text) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (code.length() == 2 && day.name().startsWith(code)) {
+                return day;
+            }
+        }
+        throw new IllegalArgumentException("Unknown day of week in recurrence rule: " + text);
+    }
+
+    private static int toInt(long value, String text) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Number out of range in recurrence rule: " + text);
+        }
+        return (int) value;
+    }
+
+    private static long parseSigned(String value, String text) {
+        return value.startsWith("-") ? -parseNumber(value.substring(1), text) : parseNumber(value, text);
+    }
+
+    private static long parseNumber(String value, String text) {
+        if (value.isEmpty() || !value.chars().allMatch(Character::isDigit)) {
+            throw new IllegalArgumentException("Malformed number in recurrence rule: " + text);
+        }
+        return Long.parseLong(value);
+    }
+}
@@ -1,19 +1,23 @@
 package org.orymar.domain;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
-import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.UUID;
 import lombok.Data;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.UuidGenerator;
+import org.orymar.config.RecurrenceRuleConverter;
 
 
+/** Deleted payments stay in the table until purged, but are invisible to every JPA read. */
 @Data
 @Entity
 @Table(name = "regular_payment")
+@SQLRestriction("deleted_at IS NULL")
 public class RegularPayment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidGenerator(algorithm = UuidV7Generator.class)
     @Column(name = "id")
     private UUID id;
 
@@ -35,9 +39,31 @@ public class RegularPayment {
     @Column(name = "beneficiary_name")
     private String beneficiaryName;
 
-    @Column(name = "debit_period")
-    private Duration debitPeriod;
+    @Column(name = "recurrence_rule")
+    @Convert(converter = RecurrenceRuleConverter.class)
+    private RecurrenceRule debitPeriod;
 
     @Column(name = "payment_amount")
-    private BigDecimal paymentAmount;
+    private Money paymentAmount;
+
+    @Column(name = "last_paid_at")
+    private LocalDateTime lastPaidAt;
+
+    @Column(name = "next_due_at")
+    private LocalDateTime nextDueAt;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    /**
+     * Index of the debit period containing {@code at}. Two write-offs of this payment fall in
+     * different periods, so they never share an index.
+     */
+    public long billingPeriodOf(LocalDateTime at) {
+        return debitPeriod.periodIndexOf(at);
+    }
 }
\ No newline at end of file
@@ -3,8 +3,8 @@ package org.orymar.domain.dto;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
+import org.orymar.domain.Money;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -19,8 +19,10 @@ public record CreateEntriesPaymentRequestDTO(
         @NotNull(message = "Amount is required")
         @DecimalMin(value = "0.01", message = "Amount must be greater than zero")
         @Digits(integer = 15, fraction = 2, message = "Amount must have max 15 digits and 2 decimal places")
-        BigDecimal amount,
+        Money amount,
 
         @NotNull(message = "Status is required")
-        char status
+        char status,
+
+        LocalDateTime dueAt
 ) {}
\ No newline at end of file
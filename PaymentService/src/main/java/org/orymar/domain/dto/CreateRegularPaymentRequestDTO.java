@@ -6,10 +6,10 @@ import jakarta.validation.constraints.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import java.math.BigDecimal;
-import java.time.Duration;
 
 import org.orymar.config.DebitPeriodDeserializer;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
 
 public record CreateRegularPaymentRequestDTO(
         @NotBlank(message = "PIB is required")
@@ -31,9 +31,11 @@ public record CreateRegularPaymentRequestDTO(
         @Size(min = 2, max = 255, message = "Beneficiary name must be between 2 and 255 characters")
         String beneficiaryName,
         @NotNull(message = "Debit period is required")
-        @Schema(example = "1m")
+        @Schema(example = "1d", description = "An interval such as 30m, 2h or 3d, or a recurrence rule such as "
+                + "FREQ=WEEKLY;INTERVAL=2;BYDAY=FR, FREQ=MONTHLY;BYMONTHDAY=5 or FREQ=MONTHLY;BYMONTHDAY=-1 "
+                + "(last day of the month)")
         @JsonDeserialize(using = DebitPeriodDeserializer.class)
-        Duration debitPeriod,
+        RecurrenceRule debitPeriod,
         @NotNull(message = "Payment amount is required")
         @DecimalMin(
             value = "0.01",
@@ -43,4 +45,4 @@ public record CreateRegularPaymentRequestDTO(
             integer = 12,
             fraction = 2,
             message = "Payment amount must have max 12 digits and 2 decimal places")
-        BigDecimal paymentAmount) {}
+        Money paymentAmount) {}
@@ -0,0 +1,11 @@
+package org.orymar.domain.dto;
+
+import java.util.UUID;
+
+public record OutputEntriesBatchItemResponseDTO(
+        int index,
+        UUID regularPaymentId,
+        OutputEntriesPaymentResponseDTO entry,
+        boolean created,
+        String error
+) {}
@@ -1,6 +1,7 @@
 package org.orymar.domain.dto;
 
-import java.math.BigDecimal;
+import org.orymar.domain.Money;
+
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -8,7 +9,8 @@ public record OutputEntriesPaymentResponseDTO(
         UUID id,
         UUID regularPaymentId,
         LocalDateTime dateOfPayment,
-        BigDecimal amount,
-        char status
+        Money amount,
+        char status,
+        long version
 ) {}
 
@@ -0,0 +1,5 @@
+package org.orymar.domain.dto;
+
+public record OutputEntriesStatusUpdateResponseDTO(
+        int updated
+) {}
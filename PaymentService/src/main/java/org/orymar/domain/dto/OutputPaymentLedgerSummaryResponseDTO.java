@@ -0,0 +1,15 @@
+package org.orymar.domain.dto;
+
+import org.orymar.domain.Money;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record OutputPaymentLedgerSummaryResponseDTO(
+        UUID regularPaymentId,
+        long activeCount,
+        Money activeAmount,
+        long stornoCount,
+        Money stornoAmount,
+        LocalDateTime lastPaymentAt
+) {}
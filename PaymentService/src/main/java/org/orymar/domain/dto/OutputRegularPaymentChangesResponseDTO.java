@@ -0,0 +1,14 @@
+package org.orymar.domain.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A page of the change feed. The next page is requested with {@code since = highWaterMark} and,
+ * when {@code after} is set because the page was cut by the limit, with that {@code after} as well.
+ */
+public record OutputRegularPaymentChangesResponseDTO(
+        List<OutputRegularPaymentChangeResponseDTO> changes,
+        long highWaterMark,
+        UUID after
+) {}
@@ -1,15 +1,18 @@
 package org.orymar.domain.dto;
 
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
-import java.math.BigDecimal;
+import org.orymar.domain.Money;
 
 public record UpdateEntriesPaymentRequestDTO(
         @NotNull(message = "Amount is required")
         @DecimalMin(value = "0.01", inclusive = true, message = "Amount must be greater than zero")
         @Digits(integer = 12, fraction = 2, message = "Amount must have max 12 digits and 2 decimal places")
-        BigDecimal amount,
+        Money amount,
         @NotNull(message = "Status is required")
-        char status
+        char status,
+        @Schema(description = "Version the change is based on; a stale one is rejected with 409")
+        Long version
 ) {}
\ No newline at end of file
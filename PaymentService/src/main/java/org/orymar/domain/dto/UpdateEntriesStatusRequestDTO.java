@@ -0,0 +1,26 @@
+package org.orymar.domain.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sets {@code status} on either the listed {@code ids} or all entries of {@code regularPaymentId}
+ * paid in {@code [from, to)}; unset bounds match everything.
+ */
+public record UpdateEntriesStatusRequestDTO(
+        @NotNull(message = "Status is required")
+        Character status,
+
+        List<UUID> ids,
+
+        @Schema(description = "Selects the entries of this regular payment instead of listed ids")
+        UUID regularPaymentId,
+
+        LocalDateTime from,
+
+        LocalDateTime to
+) {}
@@ -4,9 +4,9 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 import org.orymar.config.DebitPeriodDeserializer;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
 
-import java.math.BigDecimal;
-import java.time.Duration;
 
 public record UpdateRegularPaymentRequestDTO(
         @NotBlank(message = "PIB is required")
@@ -28,9 +28,11 @@ public record UpdateRegularPaymentRequestDTO(
         @Size(min = 2, max = 255, message = "Beneficiary name must be between 2 and 255 characters")
         String beneficiaryName,
         @NotNull(message = "Debit period is required")
-        @Schema(example = "1m")
+        @Schema(example = "1d", description = "An interval such as 30m, 2h or 3d, or a recurrence rule such as "
+                + "FREQ=WEEKLY;INTERVAL=2;BYDAY=FR, FREQ=MONTHLY;BYMONTHDAY=5 or FREQ=MONTHLY;BYMONTHDAY=-1 "
+                + "(last day of the month)")
         @JsonDeserialize(using = DebitPeriodDeserializer.class)
-        Duration debitPeriod,
+        RecurrenceRule debitPeriod,
         @NotNull(message = "Payment amount is required")
         @DecimalMin(
                 value = "0.01",
@@ -40,4 +42,6 @@ public record UpdateRegularPaymentRequestDTO(
                 integer = 12,
                 fraction = 2,
                 message = "Payment amount must have max 12 digits and 2 decimal places")
-        BigDecimal paymentAmount) {}
+        Money paymentAmount,
+        @Schema(description = "Version the change is based on; a stale one is rejected with 409")
+        Long version) {}
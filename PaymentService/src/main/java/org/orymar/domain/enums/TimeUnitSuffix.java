@@ -1,16 +1,28 @@
 package org.orymar.domain.enums;
 
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 
 public enum TimeUnitSuffix {
-    MINUTES('m'),
-    HOURS('h'),
-    DAYS('d');
+    SECONDS('s', ChronoUnit.SECONDS),
+    MINUTES('m', ChronoUnit.MINUTES),
+    HOURS('h', ChronoUnit.HOURS),
+    DAYS('d', ChronoUnit.DAYS);
 
     private final char suffix;
+    private final ChronoUnit unit;
 
-    TimeUnitSuffix(char suffix) {
+    TimeUnitSuffix(char suffix, ChronoUnit unit) {
         this.suffix = suffix;
+        this.unit = unit;
+    }
+
+    public char suffix() {
+        return suffix;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
     }
 
     public static TimeUnitSuffix fromSuffix(String value) {
@@ -20,4 +32,4 @@ public enum TimeUnitSuffix {
                 .findFirst()
                 .orElseThrow(() -> new IllegalArgumentException("Unknown time format: " + value));
     }
-}
\ No newline at end of file
+}
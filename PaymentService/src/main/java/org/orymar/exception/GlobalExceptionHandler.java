@@ -2,8 +2,10 @@ package org.orymar.exception;
 
 import jakarta.persistence.EntityNotFoundException;
 import org.hibernate.PropertyValueException;
+import org.orymar.exception.domain.ChangesExpiredException;
 import org.orymar.exception.domain.ErrorResponse;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -37,6 +39,24 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        ErrorResponse response =
+                new ErrorResponse(
+                        HttpStatus.CONFLICT.value(),
+                        "Conflict",
+                        "The record was modified by someone else; reload it and retry",
+                        LocalDateTime.now());
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ChangesExpiredException.class)
+    public ResponseEntity<ErrorResponse> handleChangesExpired(ChangesExpiredException ex) {
+        ErrorResponse response =
+                new ErrorResponse(HttpStatus.GONE.value(), "Gone", ex.getMessage(), LocalDateTime.now());
+        return new ResponseEntity<>(response, HttpStatus.GONE);
+    }
+
     @ExceptionHandler(DataIntegrityViolationException.class)
     public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(
             DataIntegrityViolationException ex) {
@@ -0,0 +1,11 @@
+package org.orymar.exception.domain;
+
+/**
+ * Thrown when a change feed position is older than the tombstones still kept, so deletes behind it
+ * may be gone; the reader has to start over from {@code 0}.
+ */
+public class ChangesExpiredException extends RuntimeException {
+    public ChangesExpiredException(String message) {
+        super(message);
+    }
+}
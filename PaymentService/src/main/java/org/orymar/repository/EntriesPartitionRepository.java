@@ -0,0 +1,21 @@
+package org.orymar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.YearMonth;
+
+/** DDL for the monthly range partitions of {@code entries_payment}. */
+@Repository
+@RequiredArgsConstructor
+public class EntriesPartitionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Creates the partition holding the entries paid in {@code month} unless it already exists. */
+    public void createMonthlyPartition(YearMonth month) {
+        jdbcTemplate.queryForList("SELECT create_entries_payment_partition(?)", Date.valueOf(month.atDay(1)));
+    }
+}
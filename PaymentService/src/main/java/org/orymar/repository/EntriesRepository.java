@@ -1,13 +1,24 @@
 package org.orymar.repository;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.orymar.domain.EntriesPayment;
+import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface EntriesRepository extends JpaRepository<EntriesPayment, UUID> {
-    List<EntriesPayment> findAllByRegularPaymentId(UUID id);
+public interface EntriesRepository extends JpaRepository<EntriesPayment, UUID>, EntriesRepositoryCustom {
+    String VIEW = "select new org.orymar.domain.dto.OutputEntriesPaymentResponseDTO("
+            + "e.id, e.regularPaymentId, e.dateOfPayment, e.amount, e.status, e.version) from EntriesPayment e ";
+
+    @Query(VIEW + "where e.id = :id")
+    Optional<OutputEntriesPaymentResponseDTO> findViewById(UUID id);
+
+    @Query("select max(e.dateOfPayment) from EntriesPayment e "
+            + "where e.regularPaymentId = :regularPaymentId and e.status = :status")
+    LocalDateTime findLastPaymentDate(UUID regularPaymentId, char status);
 }
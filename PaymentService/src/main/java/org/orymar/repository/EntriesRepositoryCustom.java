@@ -0,0 +1,58 @@
+package org.orymar.repository;
+
+import org.orymar.domain.EntriesCursor;
+import org.orymar.domain.EntriesHistoryFilter;
+import org.orymar.domain.EntriesPayment;
+import org.orymar.domain.EntryUpdate;
+import org.orymar.domain.Money;
+import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public interface EntriesRepositoryCustom {
+
+    /**
+     * Inserts the entries that do not clash with an active entry of the same regular payment and
+     * billing period and returns the ids of the inserted ones. Clashing entries are left out
+     * without an error, so a repeated write-off is a no-op.
+     */
+    Set<UUID> insertAllIfAbsent(List<EntriesPayment> entries);
+
+    /**
+     * Returns the active entries that currently hold the billing periods of {@code entries}, as
+     * recorded in the claim table. A period whose claim has been released since is missing.
+     */
+    List<EntriesPayment> findClaimed(List<EntriesPayment> entries);
+
+    /**
+     * Returns up to {@code limit} entries matching {@code filter} ordered by
+     * {@code (dateOfPayment, id)}, starting right after {@code after} when it is set. Only the
+     * predicates actually set are sent, so each page is a range scan of the
+     * {@code (regular_payment_id, date_of_payment, id)} index.
+     */
+    List<OutputEntriesPaymentResponseDTO> findHistory(EntriesHistoryFilter filter, EntriesCursor after, int limit);
+
+    /**
+     * Sets the status, and the amount unless it is {@code null}, of entry {@code id} and bumps its
+     * version in a single statement. With {@code expectedVersion} set, only that version of the entry
+     * is updated. Empty when no row was updated.
+     */
+    Optional<EntryUpdate> update(UUID id, Money amount, char status, Long expectedVersion);
+
+    /**
+     * Sets {@code status} on every listed entry that has another one, bumping their versions in a
+     * single statement. Returns the changed entries.
+     */
+    List<EntryUpdate> updateStatus(Collection<UUID> ids, char status);
+
+    /**
+     * Like {@link #updateStatus(Collection, char)}, for the first {@code limit} entries by id matching
+     * {@code filter}. Entries already in {@code status} are skipped, so repeating the call while it
+     * returns {@code limit} entries works through all of them.
+     */
+    List<EntryUpdate> updateStatus(EntriesHistoryFilter filter, char status, int limit);
+}
@@ -0,0 +1,251 @@
+package org.orymar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.orymar.domain.EntriesCursor;
+import org.orymar.domain.EntriesHistoryFilter;
+import org.orymar.domain.EntriesPayment;
+import org.orymar.domain.EntryUpdate;
+import org.orymar.domain.Money;
+import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+class EntriesRepositoryImpl implements EntriesRepositoryCustom {
+    private static final int ROWS_PER_STATEMENT = 1000;
+    private static final char ACTIVE_STATUS = 'A';
+    private static final String CLAIM = "INSERT INTO entries_payment_active_period "
+            + "(regular_payment_id, billing_period, entry_id) VALUES ";
+    private static final String CLAIM_ROW = "(?, ?, ?)";
+    private static final String ON_CONFLICT = " ON CONFLICT (regular_payment_id, billing_period) "
+            + "DO NOTHING RETURNING entry_id";
+    // the entry_id of a claim always names an active entry of the same payment, so the join prunes by payment
+    private static final String CLAIMED = "SELECT e.id, e.regular_payment_id, e.date_of_payment, e.amount, e.status, "
+            + "e.due_at, e.billing_period, e.version FROM entries_payment_active_period c "
+            + "JOIN entries_payment e ON e.id = c.entry_id AND e.regular_payment_id = c.regular_payment_id "
+            + "WHERE (c.regular_payment_id, c.billing_period) IN (";
+    private static final String INSERT = "INSERT INTO entries_payment "
+            + "(id, regular_payment_id, date_of_payment, amount, status, due_at, billing_period) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?)";
+    // the entries of a deleted payment stay until purged, but are no longer part of its history
+    private static final String HISTORY = "SELECT id, regular_payment_id, date_of_payment, amount, status, version "
+            + "FROM entries_payment WHERE regular_payment_id = ? "
+            + "AND EXISTS (SELECT 1 FROM regular_payment p WHERE p.id = ? AND p.deleted_at IS NULL)";
+    private static final RowMapper<OutputEntriesPaymentResponseDTO> HISTORY_ROW = (rs, rowNum) ->
+            new OutputEntriesPaymentResponseDTO(
+                    rs.getObject("id", UUID.class),
+                    rs.getObject("regular_payment_id", UUID.class),
+                    rs.getTimestamp("date_of_payment").toLocalDateTime(),
+                    Money.of(rs.getBigDecimal("amount")),
+                    rs.getString("status").charAt(0),
+                    rs.getLong("version"));
+
+    // the row is locked in the subquery, so "previous" is the version this statement replaces
+    private static final String UPDATE_FROM = " FROM (SELECT id, date_of_payment, amount, status FROM entries_payment "
+            + "WHERE id = ? FOR UPDATE) previous WHERE e.id = previous.id AND e.date_of_payment = previous.date_of_payment";
+    private static final String UPDATE_STATUS = "UPDATE entries_payment e SET status = ?, version = e.version + 1 "
+            + "FROM (SELECT id, date_of_payment, amount, status FROM entries_payment WHERE ";
+    // locking in id order keeps two bulk updates over the same entries from deadlocking
+    private static final String UPDATE_STATUS_ORDER = " AND status <> ? ORDER BY id";
+    private static final String UPDATE_STATUS_FROM = " FOR UPDATE) previous "
+            + "WHERE e.id = previous.id AND e.date_of_payment = previous.date_of_payment";
+    private static final String UPDATE_RETURNING = " RETURNING e.id, e.regular_payment_id, e.date_of_payment, "
+            + "e.amount, e.status, e.due_at, e.billing_period, e.version, "
+            + "previous.amount AS previous_amount, previous.status AS previous_status";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims the billing periods of the active entries first, then inserts the entries that got
+     * their claim together with those that need none. The insert trigger accepts a period already
+     * claimed for the same entry.
+     */
+    @Override
+    public Set<UUID> insertAllIfAbsent(List<EntriesPayment> entries) {
+        Set<UUID> claimed = claimActivePeriods(entries.stream().filter(EntriesRepositoryImpl::holdsPeriod).toList());
+        List<EntriesPayment> accepted = entries.stream()
+                .filter(entry -> !holdsPeriod(entry) || claimed.contains(entry.getId()))
+                .toList();
+        Set<UUID> inserted = new HashSet<>();
+        for (List<EntriesPayment> chunk : chunks(accepted)) {
+            String sql = INSERT + String.join(", ", Collections.nCopies(chunk.size(), ROW));
+            List<Object> args = new ArrayList<>(chunk.size() * 7);
+            for (EntriesPayment entry : chunk) {
+                args.add(entry.getId());
+                args.add(entry.getRegularPaymentId());
+                args.add(Timestamp.valueOf(entry.getDateOfPayment()));
+                args.add(entry.getAmount().toBigDecimal());
+                args.add(String.valueOf(entry.getStatus()));
+                args.add(entry.getDueAt() == null ? null : Timestamp.valueOf(entry.getDueAt()));
+                args.add(entry.getBillingPeriod());
+            }
+            jdbcTemplate.update(sql, args.toArray());
+            chunk.forEach(entry -> inserted.add(entry.getId()));
+        }
+        return inserted;
+    }
+
+    private Set<UUID> claimActivePeriods(List<EntriesPayment> entries) {
+        Set<UUID> claimed = new HashSet<>();
+        for (List<EntriesPayment> chunk : chunks(entries)) {
+            String sql = CLAIM + String.join(", ", Collections.nCopies(chunk.size(), CLAIM_ROW)) + ON_CONFLICT;
+            List<Object> args = new ArrayList<>(chunk.size() * 3);
+            for (EntriesPayment entry : chunk) {
+                args.add(entry.getRegularPaymentId());
+                args.add(entry.getBillingPeriod());
+                args.add(entry.getId());
+            }
+            claimed.addAll(jdbcTemplate.queryForList(sql, UUID.class, args.toArray()));
+        }
+        return claimed;
+    }
+
+    @Override
+    public List<EntriesPayment> findClaimed(List<EntriesPayment> entries) {
+        List<EntriesPayment> claimed = new ArrayList<>(entries.size());
+        for (List<EntriesPayment> chunk : chunks(entries)) {
+            String sql = CLAIMED + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")) + ")";
+            List<Object> args = new ArrayList<>(chunk.size() * 2);
+            for (EntriesPayment entry : chunk) {
+                args.add(entry.getRegularPaymentId());
+                args.add(entry.getBillingPeriod());
+            }
+            claimed.addAll(jdbcTemplate.query(sql, (rs, rowNum) -> toEntry(rs), args.toArray()));
+        }
+        return claimed;
+    }
+
+    private static boolean holdsPeriod(EntriesPayment entry) {
+        return entry.getStatus() == ACTIVE_STATUS && entry.getBillingPeriod() != null;
+    }
+
+    private static List<List<EntriesPayment>> chunks(List<EntriesPayment> entries) {
+        List<List<EntriesPayment>> chunks = new ArrayList<>();
+        for (int from = 0; from < entries.size(); from += ROWS_PER_STATEMENT) {
+            chunks.add(entries.subList(from, Math.min(from + ROWS_PER_STATEMENT, entries.size())));
+        }
+        return chunks;
+    }
+
+    @Override
+    public List<OutputEntriesPaymentResponseDTO> findHistory(EntriesHistoryFilter filter, EntriesCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(HISTORY);
+        List<Object> args = new ArrayList<>(8);
+        args.add(filter.regularPaymentId());
+        args.add(filter.regularPaymentId());
+        appendFilter(filter, sql, args);
+        if (after != null) {
+            sql.append(" AND (date_of_payment, id) > (?, ?)");
+            args.add(Timestamp.valueOf(after.dateOfPayment()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY date_of_payment, id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), HISTORY_ROW, args.toArray());
+    }
+
+    @Override
+    public List<EntryUpdate> updateStatus(Collection<UUID> ids, char status) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Object> args = new ArrayList<>(ids.size() + 2);
+        args.add(String.valueOf(status));
+        args.addAll(ids);
+        args.add(String.valueOf(status));
+        return updateStatus("id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")"
+                + UPDATE_STATUS_ORDER, args);
+    }
+
+    @Override
+    public List<EntryUpdate> updateStatus(EntriesHistoryFilter filter, char status, int limit) {
+        StringBuilder where = new StringBuilder("regular_payment_id = ?");
+        List<Object> args = new ArrayList<>(7);
+        args.add(String.valueOf(status));
+        args.add(filter.regularPaymentId());
+        appendFilter(filter, where, args);
+        where.append(UPDATE_STATUS_ORDER).append(" LIMIT ?");
+        args.add(String.valueOf(status));
+        args.add(limit);
+        return updateStatus(where.toString(), args);
+    }
+
+    private List<EntryUpdate> updateStatus(String where, List<Object> args) {
+        return jdbcTemplate.query(UPDATE_STATUS + where + UPDATE_STATUS_FROM + UPDATE_RETURNING,
+                EntriesRepositoryImpl::toEntryUpdate, args.toArray());
+    }
+
+    /** Appends the optional date range and status of {@code filter} as predicates. */
+    private static void appendFilter(EntriesHistoryFilter filter, StringBuilder sql, List<Object> args) {
+        if (filter.from() != null) {
+            sql.append(" AND date_of_payment >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND date_of_payment < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (filter.status() != null) {
+            sql.append(" AND status = ?");
+            args.add(String.valueOf(filter.status()));
+        }
+    }
+
+    @Override
+    public Optional<EntryUpdate> update(UUID id, Money amount, char status, Long expectedVersion) {
+        StringBuilder sql = new StringBuilder("UPDATE entries_payment e SET ");
+        List<Object> args = new ArrayList<>(4);
+        if (amount != null) {
+            sql.append("amount = ?, ");
+            args.add(amount.toBigDecimal());
+        }
+        sql.append("status = ?, version = e.version + 1").append(UPDATE_FROM);
+        args.add(String.valueOf(status));
+        args.add(id);
+        if (expectedVersion != null) {
+            sql.append(" AND e.version = ?");
+            args.add(expectedVersion);
+        }
+        sql.append(UPDATE_RETURNING);
+        return jdbcTemplate.query(sql.toString(), EntriesRepositoryImpl::toEntryUpdate, args.toArray())
+                .stream()
+                .findFirst();
+    }
+
+    private static EntryUpdate toEntryUpdate(ResultSet rs, int rowNum) throws SQLException {
+        EntriesPayment current = toEntry(rs);
+
+        EntriesPayment previous = new EntriesPayment();
+        previous.setRegularPaymentId(current.getRegularPaymentId());
+        previous.setDateOfPayment(current.getDateOfPayment());
+        previous.setAmount(Money.of(rs.getBigDecimal("previous_amount")));
+        previous.setStatus(rs.getString("previous_status").charAt(0));
+        return new EntryUpdate(previous, current);
+    }
+
+    private static EntriesPayment toEntry(ResultSet rs) throws SQLException {
+        EntriesPayment current = new EntriesPayment();
+        current.setId(rs.getObject("id", UUID.class));
+        current.setRegularPaymentId(rs.getObject("regular_payment_id", UUID.class));
+        current.setDateOfPayment(rs.getTimestamp("date_of_payment").toLocalDateTime());
+        current.setAmount(Money.of(rs.getBigDecimal("amount")));
+        current.setStatus(rs.getString("status").charAt(0));
+        Timestamp dueAt = rs.getTimestamp("due_at");
+        current.setDueAt(dueAt == null ? null : dueAt.toLocalDateTime());
+        current.setBillingPeriod(rs.getObject("billing_period", Long.class));
+        current.setVersion(rs.getLong("version"));
+        return current;
+    }
+}
@@ -0,0 +1,28 @@
+package org.orymar.repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.orymar.domain.PaymentLedgerSummary;
+import org.orymar.domain.dto.OutputPaymentLedgerSummaryResponseDTO;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Summaries of deleted payments stay until purged, but read as absent, like the payments themselves.
+ */
+@Repository
+public interface PaymentLedgerSummaryRepository
+        extends JpaRepository<PaymentLedgerSummary, UUID>, PaymentLedgerSummaryRepositoryCustom {
+    String LIVE = " and exists (select 1 from RegularPayment p "
+            + "where p.id = s.regularPaymentId and p.deletedAt is null)";
+
+    @Query("select new org.orymar.domain.dto.OutputPaymentLedgerSummaryResponseDTO(s.regularPaymentId, "
+            + "s.activeCount, s.activeAmount, s.stornoCount, s.stornoAmount, s.lastPaymentAt) "
+            + "from PaymentLedgerSummary s where s.regularPaymentId = :regularPaymentId" + LIVE)
+    Optional<OutputPaymentLedgerSummaryResponseDTO> findViewById(UUID regularPaymentId);
+
+    @Query("select s.entriesVersion from PaymentLedgerSummary s where s.regularPaymentId = :regularPaymentId" + LIVE)
+    Optional<Long> findEntriesVersionById(UUID regularPaymentId);
+}
@@ -0,0 +1,18 @@
+package org.orymar.repository;
+
+import org.orymar.domain.LedgerDelta;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+public interface PaymentLedgerSummaryRepositoryCustom {
+
+    /**
+     * Adds every delta to its summary in one round trip, creating summaries that do not exist yet,
+     * and bumps the entries version of each summary touched.
+     */
+    void applyAll(Collection<LedgerDelta> deltas);
+
+    void updateLastPaymentAt(UUID regularPaymentId, LocalDateTime lastPaymentAt);
+}
@@ -0,0 +1,59 @@
+package org.orymar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.orymar.domain.LedgerDelta;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+class PaymentLedgerSummaryRepositoryImpl implements PaymentLedgerSummaryRepositoryCustom {
+    private static final String UPSERT = """
+            INSERT INTO payment_ledger_summary AS s
+                (regular_payment_id, active_count, active_amount, storno_count, storno_amount, last_payment_at,
+                 entries_version)
+            VALUES (?, ?, ?, ?, ?, ?, 1)
+            ON CONFLICT (regular_payment_id) DO UPDATE SET
+                active_count = s.active_count + EXCLUDED.active_count,
+                active_amount = s.active_amount + EXCLUDED.active_amount,
+                storno_count = s.storno_count + EXCLUDED.storno_count,
+                storno_amount = s.storno_amount + EXCLUDED.storno_amount,
+                last_payment_at = GREATEST(s.last_payment_at, EXCLUDED.last_payment_at),
+                entries_version = s.entries_version + 1""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void applyAll(Collection<LedgerDelta> deltas) {
+        // a fixed lock order keeps two batches touching the same payments from deadlocking; empty
+        // deltas are still written, as they bump the entries version
+        List<Object[]> rows = deltas.stream()
+                .sorted(Comparator.comparing(LedgerDelta::regularPaymentId))
+                .map(delta -> new Object[] {
+                        delta.regularPaymentId(),
+                        delta.activeCount(),
+                        delta.activeAmount().toBigDecimal(),
+                        delta.stornoCount(),
+                        delta.stornoAmount().toBigDecimal(),
+                        toTimestamp(delta.lastPaymentAt())})
+                .toList();
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT, rows);
+        }
+    }
+
+    @Override
+    public void updateLastPaymentAt(UUID regularPaymentId, LocalDateTime lastPaymentAt) {
+        jdbcTemplate.update("UPDATE payment_ledger_summary SET last_payment_at = ? WHERE regular_payment_id = ?",
+                toTimestamp(lastPaymentAt), regularPaymentId);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+}
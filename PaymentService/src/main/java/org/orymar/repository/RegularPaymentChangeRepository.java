@@ -0,0 +1,84 @@
+package org.orymar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.dto.OutputRegularPaymentChangeResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads the change feed of regular payments: live and soft-deleted rows by their {@code change_seq},
+ * merged with the tombstones of purged ones. Positions are ids of the writing transactions, so only
+ * those below {@link #horizon()} are final; callers read them, the {@link #floor()} and the changes
+ * in one snapshot.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RegularPaymentChangeRepository {
+
+    // the nil UUID sorts before every id, so (since, NIL) >= compares change_seq alone
+    private static final UUID NIL = new UUID(0, 0);
+    private static final String CHANGES = """
+            SELECT * FROM (
+                SELECT id, change_seq, deleted_at IS NOT NULL AS deleted, pib, ipn, iban, mfo, edrpou,
+                       beneficiary_name, recurrence_rule, payment_amount, next_due_at, version
+                FROM regular_payment
+                WHERE (change_seq, id) %1$s (?, ?) AND change_seq < ?
+                UNION ALL
+                SELECT id, change_seq, true, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL
+                FROM regular_payment_tombstone
+                WHERE (change_seq, id) %1$s (?, ?) AND change_seq < ?
+            ) changes
+            ORDER BY change_seq, id
+            LIMIT ?""";
+    private static final RowMapper<OutputRegularPaymentChangeResponseDTO> CHANGE_ROW = (rs, rowNum) -> {
+        UUID id = rs.getObject("id", UUID.class);
+        boolean deleted = rs.getBoolean("deleted");
+        return new OutputRegularPaymentChangeResponseDTO(id, rs.getLong("change_seq"), deleted, deleted
+                ? null
+                : new OutputRegularPaymentResponseDTO(
+                        id,
+                        rs.getString("pib"),
+                        rs.getString("ipn"),
+                        rs.getString("iban"),
+                        rs.getString("mfo"),
+                        rs.getString("edrpou"),
+                        rs.getString("beneficiary_name"),
+                        RecurrenceRule.parse(rs.getString("recurrence_rule")),
+                        Money.of(rs.getBigDecimal("payment_amount")),
+                        rs.getTimestamp("next_due_at").toLocalDateTime(),
+                        rs.getLong("version")));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** The oldest transaction still running: every position below it has committed or rolled back. */
+    public long horizon() {
+        return jdbcTemplate.queryForObject(
+                "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+    }
+
+    /**
+     * The highest position whose tombstone has been pruned. A reader resuming at or below it may have
+     * missed a delete; {@code 0} while nothing has been pruned.
+     */
+    public long floor() {
+        return jdbcTemplate.queryForObject("SELECT change_seq FROM regular_payment_change_floor", Long.class);
+    }
+
+    /**
+     * Returns up to {@code limit} changes ordered by position and id, from {@code since} on, or
+     * strictly after {@code (since, after)} when {@code after} is given, up to {@code horizon}.
+     */
+    public List<OutputRegularPaymentChangeResponseDTO> findChanges(long since, UUID after, long horizon, int limit) {
+        UUID from = after == null ? NIL : after;
+        return jdbcTemplate.query(CHANGES.formatted(after == null ? ">=" : ">"), CHANGE_ROW,
+                since, from, horizon, since, from, horizon, limit);
+    }
+}
@@ -0,0 +1,90 @@
+package org.orymar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Removes soft-deleted regular payments together with their entries. Every call is a short
+ * transaction of its own, so a large history is deleted in many short transactions rather than one
+ * long one.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RegularPaymentPurgeRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<UUID> findDeleted(int limit) {
+        return jdbcTemplate.queryForList("""
+                SELECT id FROM regular_payment
+                WHERE deleted_at IS NOT NULL
+                ORDER BY deleted_at
+                LIMIT ?""", UUID.class, limit);
+    }
+
+    /**
+     * Deletes up to {@code limit} entries of the payment, bumps its entries version when any went,
+     * and returns how many were deleted.
+     */
+    public int deleteEntries(UUID regularPaymentId, int limit) {
+        return jdbcTemplate.queryForObject("""
+                WITH deleted AS (
+                    DELETE FROM entries_payment
+                    WHERE (id, date_of_payment) IN (
+                        SELECT id, date_of_payment FROM entries_payment
+                        WHERE regular_payment_id = ?
+                        LIMIT ?)
+                    RETURNING 1),
+                bumped AS (
+                    UPDATE payment_ledger_summary SET entries_version = entries_version + 1
+                    WHERE regular_payment_id = ? AND EXISTS (SELECT 1 FROM deleted))
+                SELECT count(*) FROM deleted""", Integer.class, regularPaymentId, limit, regularPaymentId);
+    }
+
+    /**
+     * Deletes the tombstones older than {@code retentionMillis}, raises the change feed floor to the
+     * highest position among them, and returns how many were deleted.
+     */
+    public int pruneTombstones(long retentionMillis) {
+        return jdbcTemplate.queryForObject("""
+                WITH pruned AS (
+                    DELETE FROM regular_payment_tombstone
+                    WHERE deleted_at < localtimestamp - ? * interval '1 millisecond'
+                    RETURNING change_seq),
+                raised AS (
+                    UPDATE regular_payment_change_floor
+                    SET change_seq = (SELECT max(change_seq) FROM pruned)
+                    WHERE change_seq < (SELECT max(change_seq) FROM pruned))
+                SELECT count(*) FROM pruned""", Integer.class, retentionMillis);
+    }
+
+    /**
+     * Deletes the payment and its ledger summary once its entries are gone, and returns whether it
+     * did. The row lock waits out bookings still holding the payment (see
+     * {@link RegularRepositoryCustom#lockForBooking}) and keeps new ones off it, so the check that
+     * follows sees every entry that will ever be booked against it; when entries reappeared,
+     * nothing is deleted.
+     */
+    @Transactional
+    public boolean deletePayment(UUID regularPaymentId) {
+        boolean deleted = !jdbcTemplate.queryForList("""
+                SELECT id FROM regular_payment
+                WHERE id = ? AND deleted_at IS NOT NULL
+                FOR UPDATE""", UUID.class, regularPaymentId).isEmpty();
+        if (!deleted || Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM entries_payment WHERE regular_payment_id = ?)",
+                Boolean.class, regularPaymentId))) {
+            return false;
+        }
+        jdbcTemplate.update("""
+                WITH summary AS (DELETE FROM payment_ledger_summary WHERE regular_payment_id = ?)
+                DELETE FROM regular_payment WHERE id = ?""",
+                regularPaymentId, regularPaymentId);
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package org.orymar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads the change version of the whole regular payment table, kept by a commit-time trigger. It
+ * grows with every committed write, so an unchanged value means an unchanged table.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RegularPaymentVersionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long current() {
+        return jdbcTemplate.queryForObject("SELECT sum(version) FROM regular_payment_version", Long.class);
+    }
+}
@@ -1,15 +1,56 @@
 package org.orymar.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.orymar.domain.RegularPayment;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+/**
+ * The {@code *View*} queries select straight into {@link OutputRegularPaymentResponseDTO}, so read
+ * endpoints skip entity hydration, dirty-checking snapshots and the mapper.
+ */
 @Repository
-public interface RegularRepository extends JpaRepository<RegularPayment, UUID> {
-    List<RegularPayment> findByIPN(String ipn);
+public interface RegularRepository extends JpaRepository<RegularPayment, UUID>, RegularRepositoryCustom {
+    String VIEW = "select new org.orymar.domain.dto.OutputRegularPaymentResponseDTO("
+            + "p.id, p.PIB, p.IPN, p.IBAN, p.MFO, p.EDRPOU, p.beneficiaryName, p.debitPeriod, "
+            + "p.paymentAmount, p.nextDueAt, p.version) from RegularPayment p ";
 
-    List<RegularPayment> findByEDRPOU(String edrpou);
+    @Query(VIEW + "where p.id = :id")
+    Optional<OutputRegularPaymentResponseDTO> findViewById(UUID id);
+
+    @Query("select p.version from RegularPayment p where p.id = :id")
+    Optional<Long> findVersionById(UUID id);
+
+    @Query(VIEW + "where p.IPN = :ipn")
+    List<OutputRegularPaymentResponseDTO> findViewsByIpn(String ipn);
+
+    @Query(VIEW + "where p.EDRPOU = :edrpou")
+    List<OutputRegularPaymentResponseDTO> findViewsByEdrpou(String edrpou);
+
+    /** Must be consumed inside a transaction; the rows are fetched from a cursor in chunks. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "where p.nextDueAt < :at")
+    Stream<OutputRegularPaymentResponseDTO> streamViewsDueBefore(LocalDateTime at);
+
+    @Query(VIEW + "order by p.id")
+    List<OutputRegularPaymentResponseDTO> findFirstViews(Limit limit);
+
+    @Query(VIEW + "where p.id > :after order by p.id")
+    List<OutputRegularPaymentResponseDTO> findViewsAfter(UUID after, Limit limit);
+
+    /** Must be consumed inside a transaction; the rows are fetched from a cursor in chunks. */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(VIEW + "order by p.id")
+    Stream<OutputRegularPaymentResponseDTO> streamViews();
 }
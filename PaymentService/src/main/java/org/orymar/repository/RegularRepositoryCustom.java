@@ -0,0 +1,31 @@
+package org.orymar.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Schedule updates issued while booking entries. They write the row in one guarded statement instead
+ * of through the loaded entity, so a concurrent edit of the payment neither fails the booking at
+ * flush nor is overwritten by it; the version is still bumped, so the edit sees the change.
+ */
+public interface RegularRepositoryCustom {
+
+    /**
+     * Records a payment at {@code paidAt} unless a later one is already recorded, and returns whether
+     * the schedule moved.
+     */
+    boolean markPaid(UUID id, LocalDateTime paidAt, LocalDateTime nextDueAt);
+
+    /**
+     * Moves the last payment back to {@code lastPaidAt} when it is not later than the unmarked
+     * {@code unpaidAt}, and returns whether the schedule moved.
+     */
+    boolean unmarkPaid(UUID id, LocalDateTime unpaidAt, LocalDateTime lastPaidAt, LocalDateTime nextDueAt);
+
+    /**
+     * Key-share locks the payments {@code ids} until the transaction ends, so the purger cannot
+     * delete one while entries are booked against it. Schedule updates still go through.
+     */
+    void lockForBooking(Collection<UUID> ids);
+}
@@ -0,0 +1,51 @@
+package org.orymar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+class RegularRepositoryImpl implements RegularRepositoryCustom {
+    private static final String MARK_PAID = """
+            UPDATE regular_payment
+            SET last_paid_at = ?, next_due_at = ?, version = version + 1
+            WHERE id = ? AND (last_paid_at IS NULL OR last_paid_at < ?)""";
+
+    private static final String UNMARK_PAID = """
+            UPDATE regular_payment
+            SET last_paid_at = ?, next_due_at = ?, version = version + 1
+            WHERE id = ? AND last_paid_at <= ?""";
+
+    // conflicts only with the purger's FOR UPDATE, not with the schedule updates above
+    private static final String LOCK_FOR_BOOKING = "SELECT id FROM regular_payment WHERE id IN (%s) "
+            + "ORDER BY id FOR KEY SHARE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean markPaid(UUID id, LocalDateTime paidAt, LocalDateTime nextDueAt) {
+        return jdbcTemplate.update(MARK_PAID,
+                Timestamp.valueOf(paidAt), Timestamp.valueOf(nextDueAt), id, Timestamp.valueOf(paidAt)) > 0;
+    }
+
+    @Override
+    public boolean unmarkPaid(UUID id, LocalDateTime unpaidAt, LocalDateTime lastPaidAt, LocalDateTime nextDueAt) {
+        return jdbcTemplate.update(UNMARK_PAID,
+                lastPaidAt == null ? null : Timestamp.valueOf(lastPaidAt), Timestamp.valueOf(nextDueAt),
+                id, Timestamp.valueOf(unpaidAt)) > 0;
+    }
+
+    @Override
+    public void lockForBooking(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.queryForList(LOCK_FOR_BOOKING.formatted(placeholders), UUID.class, ids.toArray());
+    }
+}
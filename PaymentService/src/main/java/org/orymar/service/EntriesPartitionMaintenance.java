@@ -0,0 +1,59 @@
+package org.orymar.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.orymar.repository.EntriesPartitionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Keeps the monthly partitions of {@code entries_payment} created ahead of time: on start-up and
+ * then every {@code entries-payment.partitions.check-interval} it makes sure the partitions for the
+ * current month and the next {@code entries-payment.partitions.months-ahead} months exist.
+ *
+ * <p>Rows for a month without a partition still land in the default partition, and are moved out
+ * of it once the partition is created, so a failed run is retried on the next one. Failures are
+ * still logged as errors and counted in {@value #FAILURES_METRIC}: while a month stays without its
+ * partition, its rows pile up in the default partition, which every partition creation scans.
+ */
+@Slf4j
+@Component
+public class EntriesPartitionMaintenance {
+    static final String FAILURES_METRIC = "entries.partitions.failures";
+
+    private final EntriesPartitionRepository partitionRepository;
+    private final int monthsAhead;
+    private final Counter failures;
+
+    public EntriesPartitionMaintenance(EntriesPartitionRepository partitionRepository, MeterRegistry meterRegistry,
+                                       @Value("${entries-payment.partitions.months-ahead}") int monthsAhead) {
+        if (monthsAhead < 0) {
+            throw new IllegalArgumentException("Months ahead must not be negative, got " + monthsAhead);
+        }
+        this.partitionRepository = partitionRepository;
+        this.monthsAhead = monthsAhead;
+        this.failures = meterRegistry.counter(FAILURES_METRIC);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${entries-payment.partitions.check-interval}")
+    public void createUpcomingPartitions() {
+        createPartitionsFrom(YearMonth.now());
+    }
+
+    void createPartitionsFrom(YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                partitionRepository.createMonthlyPartition(month);
+            } catch (DataAccessException e) {
+                failures.increment();
+                log.error("Could not create the entries_payment partition for {}.", month, e);
+            }
+        }
+    }
+}
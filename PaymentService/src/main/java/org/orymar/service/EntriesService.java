@@ -2,17 +2,39 @@ package org.orymar.service;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.orymar.domain.EntriesCursor;
+import org.orymar.domain.EntriesHistoryFilter;
+import org.orymar.domain.EntryCreationResult;
+import org.orymar.domain.EntryUpdate;
 import org.orymar.domain.EntriesPayment;
+import org.orymar.domain.LedgerDelta;
+import org.orymar.domain.Money;
 import org.orymar.domain.RegularPayment;
+import org.orymar.domain.UuidV7Generator;
+import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
+import org.orymar.domain.dto.OutputPaymentLedgerSummaryResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
 import org.orymar.repository.EntriesRepository;
+import org.orymar.repository.PaymentLedgerSummaryRepository;
 import org.orymar.repository.RegularRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -20,29 +42,121 @@ public class EntriesService {
 
     private final EntriesRepository entriesRepository;
     private final RegularRepository regularRepository;
+    private final PaymentLedgerSummaryRepository ledgerRepository;
+    private final RegularService regularService;
+    private final RegularPaymentCache regularPaymentCache;
     private final char ACTIVE_STATUS = 'A';
     private final char STORNOVANA_STATUS = 'S';
 
-    public EntriesPayment create(EntriesPayment entry) {
+    /**
+     * Books {@code entry} unless an active entry for the same billing period already exists, in
+     * which case that entry is returned as a duplicate and nothing changes. When the period was
+     * released again before the booked entry could be read, the call fails with
+     * {@link OptimisticLockingFailureException} and can be retried.
+     */
+    @Transactional
+    public EntryCreationResult create(EntriesPayment entry) {
         validateStatus(entry.getStatus());
-        return entriesRepository.save(entry);
-    }
+        regularRepository.lockForBooking(List.of(entry.getRegularPaymentId()));
+        RegularPayment regularPayment = entry.getStatus() == ACTIVE_STATUS
+                ? getRegularPayment(entry.getRegularPaymentId())
+                : regularRepository.findById(entry.getRegularPaymentId()).orElse(null);
+        prepareInsert(entry, regularPayment);
 
-    public Optional<EntriesPayment> getById(UUID id) {
-        return entriesRepository.findById(id);
+        if (entriesRepository.insertAllIfAbsent(List.of(entry)).isEmpty()) {
+            return EntryCreationResult.duplicate(entriesRepository.findClaimed(List.of(entry)).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new OptimisticLockingFailureException(claimReleased(entry))));
+        }
+        if (entry.getStatus() == ACTIVE_STATUS) {
+            markPaid(regularPayment, entry.getDateOfPayment());
+        }
+        ledgerRepository.applyAll(List.of(LedgerDelta.added(entry)));
+        return EntryCreationResult.created(entry);
     }
 
-    public EntriesPayment update(UUID id, EntriesPayment updated) {
-        EntriesPayment existingPayment = entriesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "EntriesPayment not found with id: " + id));
+    /**
+     * Like {@link #create}, item by item. A duplicate whose period was released again is reported
+     * as an error at its index.
+     */
+    @Transactional
+    public List<EntryCreationResult> createAll(List<EntriesPayment> entries) {
+        Set<UUID> regularPaymentIds = entries.stream()
+                .map(EntriesPayment::getRegularPaymentId)
+                .collect(Collectors.toSet());
+        regularRepository.lockForBooking(regularPaymentIds);
+        Map<UUID, RegularPayment> regularPayments = regularRepository.findAllById(regularPaymentIds).stream()
+                .collect(Collectors.toMap(RegularPayment::getId, Function.identity()));
 
-        validateStatus(updated.getStatus());
+        List<EntryCreationResult> results = new ArrayList<>(entries.size());
+        List<EntriesPayment> accepted = new ArrayList<>(entries.size());
+        for (EntriesPayment entry : entries) {
+            RegularPayment regularPayment = regularPayments.get(entry.getRegularPaymentId());
+            if (entry.getStatus() != ACTIVE_STATUS && entry.getStatus() != STORNOVANA_STATUS) {
+                results.add(EntryCreationResult.rejected("Invalid status: " + entry.getStatus()));
+            } else if (entry.getStatus() == ACTIVE_STATUS && regularPayment == null) {
+                results.add(EntryCreationResult.rejected(
+                        "RegularPayment not found with id: " + entry.getRegularPaymentId()));
+            } else {
+                prepareInsert(entry, regularPayment);
+                accepted.add(entry);
+                results.add(null);
+            }
+        }
 
-        existingPayment.setAmount(updated.getAmount());
-        existingPayment.setStatus(updated.getStatus());
+        Set<UUID> inserted = entriesRepository.insertAllIfAbsent(accepted);
+        Map<UUID, LedgerDelta.Sum> ledgerDeltas = new HashMap<>();
+        // ordered by payment, so two batches moving the same schedules lock them in the same order
+        Map<UUID, LocalDateTime> latestPaid = new TreeMap<>();
+        Map<Integer, EntriesPayment> duplicates = new TreeMap<>();
+        Iterator<EntriesPayment> acceptedEntries = accepted.iterator();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) != null) {
+                continue;
+            }
+            EntriesPayment entry = acceptedEntries.next();
+            if (!inserted.contains(entry.getId())) {
+                duplicates.put(i, entry);
+                continue;
+            }
+            if (entry.getStatus() == ACTIVE_STATUS) {
+                latestPaid.merge(entry.getRegularPaymentId(), entry.getDateOfPayment(),
+                        (a, b) -> a.isAfter(b) ? a : b);
+            }
+            ledgerDeltas.computeIfAbsent(entry.getRegularPaymentId(), LedgerDelta.Sum::new).add(entry);
+            results.set(i, EntryCreationResult.created(entry));
+        }
+        if (!duplicates.isEmpty()) {
+            Map<BillingPeriod, EntriesPayment> claimed = entriesRepository
+                    .findClaimed(List.copyOf(duplicates.values())).stream()
+                    .collect(Collectors.toMap(BillingPeriod::of, Function.identity()));
+            duplicates.forEach((i, entry) -> {
+                EntriesPayment existing = claimed.get(BillingPeriod.of(entry));
+                results.set(i, existing == null
+                        ? EntryCreationResult.rejected(claimReleased(entry))
+                        : EntryCreationResult.duplicate(existing));
+            });
+        }
+        latestPaid.forEach((regularPaymentId, dateOfPayment) ->
+                markPaid(regularPayments.get(regularPaymentId), dateOfPayment));
+        ledgerRepository.applyAll(ledgerDeltas.values().stream().map(LedgerDelta.Sum::toDelta).toList());
+        return results;
+    }
 
-        return entriesRepository.save(existingPayment);
+    @Transactional(readOnly = true)
+    public Optional<OutputEntriesPaymentResponseDTO> getById(UUID id) {
+        return entriesRepository.findViewById(id);
+    }
+
+    /**
+     * Sets the amount and status of entry {@code id} in a single statement. When {@code updated}
+     * carries a version, the update only applies to that version of the entry.
+     */
+    @Transactional
+    public EntriesPayment update(UUID id, EntriesPayment updated) {
+        validateStatus(updated.getStatus());
+        return applyUpdate(id, updated.getVersion(),
+                entriesRepository.update(id, updated.getAmount(), updated.getStatus(), updated.getVersion()));
     }
 
     private void validateStatus(char status) {
@@ -52,38 +166,174 @@ public class EntriesService {
         }
     }
 
+    @Transactional
     public void delete(UUID id) {
-        entriesRepository.deleteById(id);
+        entriesRepository.findById(id).ifPresent(entry -> {
+            entriesRepository.delete(entry);
+            ledgerRepository.applyAll(List.of(LedgerDelta.removed(entry)));
+            if (entry.getStatus() == ACTIVE_STATUS) {
+                unmarkPaid(entry.getRegularPaymentId(), entry.getDateOfPayment());
+            }
+        });
     }
 
-    public List<EntriesPayment> getEntriesByPaymentId(UUID paymentId) {
-        return entriesRepository.findAllByRegularPaymentId(paymentId);
+    /** Returns the change version of the entries of payment {@code regularPaymentId}, 0 while it has none. */
+    @Transactional(readOnly = true)
+    public long getEntriesVersion(UUID regularPaymentId) {
+        return ledgerRepository.findEntriesVersionById(regularPaymentId).orElse(0L);
     }
 
-    public EntriesPayment updateStatus(UUID id, char status) {
-        EntriesPayment existingPayment = entriesRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(
-                        "EntriesPayment not found with id: " + id));
+    /** Returns the next {@code limit} entries matching {@code filter}, ordered by payment date and id. */
+    @Transactional(readOnly = true)
+    public List<OutputEntriesPaymentResponseDTO> getEntriesByPaymentId(
+            EntriesHistoryFilter filter, EntriesCursor after, int limit) {
+        validateFilter(filter);
+        return entriesRepository.findHistory(filter, after, limit);
+    }
+
+    private void validateFilter(EntriesHistoryFilter filter) {
+        if (filter.status() != null) {
+            validateStatus(filter.status());
+        }
+        if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
 
+    /** A payment without any entries yet has no summary row and gets an empty one. */
+    @Transactional(readOnly = true)
+    public Optional<OutputPaymentLedgerSummaryResponseDTO> getLedgerSummary(UUID paymentId) {
+        return ledgerRepository.findViewById(paymentId)
+                .or(() -> regularRepository.existsById(paymentId)
+                        ? Optional.of(new OutputPaymentLedgerSummaryResponseDTO(
+                                paymentId, 0, Money.ZERO, 0, Money.ZERO, null))
+                        : Optional.empty());
+    }
+
+    /** Like {@link #update}, for the status alone; a {@code null} {@code expectedVersion} matches any. */
+    @Transactional
+    public EntriesPayment updateStatus(UUID id, char status, Long expectedVersion) {
         validateStatus(status);
+        return applyUpdate(id, expectedVersion, entriesRepository.update(id, null, status, expectedVersion));
+    }
 
-        existingPayment.setStatus(status);
-        return entriesRepository.save(existingPayment);
+    /** Sets {@code status} on the listed entries in one statement and returns how many changed. */
+    @Transactional
+    public int updateStatuses(Collection<UUID> ids, char status) {
+        validateStatus(status);
+        return applyStatusUpdates(status, entriesRepository.updateStatus(ids, status));
+    }
+
+    /**
+     * Like {@link #updateStatuses(Collection, char)}, for up to {@code limit} entries matching
+     * {@code filter}; see {@link EntriesRepository#updateStatus(EntriesHistoryFilter, char, int)}.
+     */
+    @Transactional
+    public int updateStatuses(EntriesHistoryFilter filter, char status, int limit) {
+        validateStatus(status);
+        validateFilter(filter);
+        return applyStatusUpdates(status, entriesRepository.updateStatus(filter, status, limit));
     }
 
     public boolean isWriteOffNeeded(UUID regularPaymentId) {
-        RegularPayment regularPayment = regularRepository.findById(regularPaymentId).orElseThrow(() -> new IllegalArgumentException("Regular payment not found"));
+        OutputRegularPaymentResponseDTO regularPayment = regularService.getPaymentById(regularPaymentId).orElseThrow(() -> new IllegalArgumentException("Regular payment not found"));
 
-        List<EntriesPayment> entries = entriesRepository.findAllByRegularPaymentId(regularPaymentId);
+        return regularPayment.nextDueAt() == null || LocalDateTime.now().isAfter(regularPayment.nextDueAt());
+    }
 
-        if (entries.isEmpty()) {
-            return true;
+    /**
+     * Books the ledger changes of all updated entries and reschedules each affected regular payment
+     * once, by the latest of its changed entries.
+     */
+    private int applyStatusUpdates(char status, List<EntryUpdate> updates) {
+        Map<UUID, LedgerDelta.Sum> ledgerDeltas = new HashMap<>();
+        Map<UUID, LocalDateTime> latestChanged = new HashMap<>();
+        for (EntryUpdate update : updates) {
+            EntriesPayment entry = update.current();
+            ledgerDeltas.computeIfAbsent(entry.getRegularPaymentId(), LedgerDelta.Sum::new)
+                    .remove(update.previous())
+                    .add(entry);
+            latestChanged.merge(entry.getRegularPaymentId(), entry.getDateOfPayment(),
+                    (a, b) -> a.isAfter(b) ? a : b);
         }
+        ledgerRepository.applyAll(ledgerDeltas.values().stream().map(LedgerDelta.Sum::toDelta).toList());
+        latestChanged.forEach((regularPaymentId, dateOfPayment) ->
+                onStatusChanged(regularPaymentId, status, dateOfPayment));
+        return updates.size();
+    }
 
-        LocalDateTime lastPaymentDate = entries.stream().map(EntriesPayment::getDateOfPayment).max(Comparator.naturalOrder()).orElseThrow();
+    private void onStatusChanged(EntriesPayment entry, char previousStatus) {
+        if (previousStatus != entry.getStatus()) {
+            onStatusChanged(entry.getRegularPaymentId(), entry.getStatus(), entry.getDateOfPayment());
+        }
+    }
 
-        LocalDateTime nextPaymentDate = lastPaymentDate.plus(regularPayment.getDebitPeriod());
+    private void onStatusChanged(UUID regularPaymentId, char status, LocalDateTime dateOfPayment) {
+        if (status == ACTIVE_STATUS) {
+            markPaid(getRegularPayment(regularPaymentId), dateOfPayment);
+        } else {
+            unmarkPaid(regularPaymentId, dateOfPayment);
+        }
+    }
 
-        return LocalDateTime.now().isAfter(nextPaymentDate);
+    private EntriesPayment applyUpdate(UUID id, Long expectedVersion, Optional<EntryUpdate> result) {
+        EntryUpdate update = result.orElseThrow(() -> expectedVersion != null && entriesRepository.existsById(id)
+                ? new OptimisticLockingFailureException(
+                        "EntriesPayment " + id + " was modified concurrently, expected version " + expectedVersion)
+                : new EntityNotFoundException("EntriesPayment not found with id: " + id));
+        ledgerRepository.applyAll(List.of(LedgerDelta.replaced(update.previous(), update.current())));
+        onStatusChanged(update.current(), update.previous().getStatus());
+        return update.current();
+    }
+
+    private static String claimReleased(EntriesPayment entry) {
+        return "Billing period " + entry.getBillingPeriod() + " of RegularPayment " + entry.getRegularPaymentId()
+                + " was released concurrently, retry the request";
+    }
+
+    private record BillingPeriod(UUID regularPaymentId, Long period) {
+        static BillingPeriod of(EntriesPayment entry) {
+            return new BillingPeriod(entry.getRegularPaymentId(), entry.getBillingPeriod());
+        }
+    }
+
+    private void prepareInsert(EntriesPayment entry, RegularPayment regularPayment) {
+        entry.setId(UuidV7Generator.next());
+        entry.setVersion(0L);
+        entry.setBillingPeriod(regularPayment == null ? null : regularPayment.billingPeriodOf(
+                Objects.requireNonNullElse(entry.getDueAt(), entry.getDateOfPayment())));
+    }
+
+    /**
+     * The schedule is written by a guarded statement rather than through the loaded entity, which
+     * is read without a lock and may be edited concurrently.
+     */
+    private void markPaid(RegularPayment regularPayment, LocalDateTime dateOfPayment) {
+        if (regularRepository.markPaid(regularPayment.getId(), dateOfPayment,
+                nextDueAt(regularPayment, dateOfPayment))) {
+            regularPaymentCache.evict(regularPayment);
+        }
+    }
+
+    private void unmarkPaid(UUID regularPaymentId, LocalDateTime dateOfPayment) {
+        RegularPayment regularPayment = getRegularPayment(regularPaymentId);
+        if (regularPayment.getLastPaidAt() != null && !dateOfPayment.isBefore(regularPayment.getLastPaidAt())) {
+            LocalDateTime lastPaidAt = entriesRepository.findLastPaymentDate(regularPaymentId, ACTIVE_STATUS);
+            if (regularRepository.unmarkPaid(regularPaymentId, dateOfPayment, lastPaidAt,
+                    nextDueAt(regularPayment, lastPaidAt))) {
+                ledgerRepository.updateLastPaymentAt(regularPaymentId, lastPaidAt);
+                regularPaymentCache.evict(regularPayment);
+            }
+        }
+    }
+
+    private static LocalDateTime nextDueAt(RegularPayment regularPayment, LocalDateTime lastPaidAt) {
+        return lastPaidAt == null ? LocalDateTime.now() : regularPayment.getDebitPeriod().next(lastPaidAt);
+    }
+
+    private RegularPayment getRegularPayment(UUID regularPaymentId) {
+        return regularRepository.findById(regularPaymentId)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "RegularPayment not found with id: " + regularPaymentId));
     }
 }
@@ -0,0 +1,31 @@
+package org.orymar.service;
+
+import lombok.RequiredArgsConstructor;
+import org.orymar.config.CacheConfig;
+import org.orymar.domain.RegularPayment;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/** Invalidates the regular payment lookups cached by {@link RegularService}. */
+@Component
+@RequiredArgsConstructor
+public class RegularPaymentCache {
+
+    private final CacheManager cacheManager;
+
+    /** Drops {@code payment} from the by-id cache and the IPN/EDRPOU lists it appears in. */
+    public void evict(RegularPayment payment) {
+        evict(CacheConfig.REGULAR_PAYMENTS_BY_ID, payment.getId());
+        evict(CacheConfig.REGULAR_PAYMENTS_BY_IPN, payment.getIPN());
+        evict(CacheConfig.REGULAR_PAYMENTS_BY_EDRPOU, payment.getEDRPOU());
+    }
+
+    private void evict(String cacheName, Object key) {
+        if (key != null) {
+            Objects.requireNonNull(cacheManager.getCache(cacheName), cacheName).evict(key);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.orymar.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.orymar.repository.RegularPaymentPurgeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Purges soft-deleted regular payments in the background. Every
+ * {@code regular-payments.purge.interval} it picks the payments deleted longest ago and removes
+ * their entries {@code regular-payments.purge.chunk-size} at a time, pausing
+ * {@code regular-payments.purge.pause} between chunks so other traffic is not starved. The payment
+ * row goes last, so a purge cut short is simply resumed on the next run. The tombstone a purged
+ * payment leaves in the change feed is pruned {@code regular-payments.purge.tombstone-retention}
+ * later; a replica that falls further behind than that starts over from a full copy.
+ *
+ * <p>The pauses hold a thread of the scheduling pool, so {@code spring.task.scheduling.pool.size}
+ * keeps one thread per scheduled job and the partition maintenance is never queued behind a purge.
+ */
+@Slf4j
+@Component
+public class RegularPaymentPurger {
+
+    private static final int PAYMENTS_PER_RUN = 100;
+
+    private final RegularPaymentPurgeRepository purgeRepository;
+    private final int chunkSize;
+    private final Duration pause;
+    private final long tombstoneRetentionMillis;
+
+    public RegularPaymentPurger(RegularPaymentPurgeRepository purgeRepository,
+                                @Value("${regular-payments.purge.chunk-size}") int chunkSize,
+                                @Value("${regular-payments.purge.pause}") long pauseMillis,
+                                @Value("${regular-payments.purge.tombstone-retention}") long tombstoneRetentionMillis) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Purge chunk size must be positive, got " + chunkSize);
+        }
+        if (tombstoneRetentionMillis < 0) {
+            throw new IllegalArgumentException(
+                    "Tombstone retention must not be negative, got " + tombstoneRetentionMillis);
+        }
+        this.purgeRepository = purgeRepository;
+        this.chunkSize = chunkSize;
+        this.pause = Duration.ofMillis(pauseMillis);
+        this.tombstoneRetentionMillis = tombstoneRetentionMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${regular-payments.purge.interval}")
+    public void purgeDeleted() {
+        int pruned = purgeRepository.pruneTombstones(tombstoneRetentionMillis);
+        if (pruned > 0) {
+            log.info("Pruned {} tombstones from the regular payment change feed.", pruned);
+        }
+        for (UUID regularPaymentId : purgeRepository.findDeleted(PAYMENTS_PER_RUN)) {
+            if (!purge(regularPaymentId)) {
+                return;
+            }
+        }
+    }
+
+    /** Returns {@code false} when interrupted before the payment was fully purged. */
+    boolean purge(UUID regularPaymentId) {
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = purgeRepository.deleteEntries(regularPaymentId, chunkSize);
+            purged += deleted;
+            if (deleted == chunkSize && !pause()) {
+                return false;
+            }
+        } while (deleted == chunkSize);
+        if (purgeRepository.deletePayment(regularPaymentId)) {
+            log.info("Purged deleted regular payment {} with {} entries.", regularPaymentId, purged);
+        } else {
+            log.info("Regular payment {} got new entries or was restored while purged, left for the next run.",
+                    regularPaymentId);
+        }
+        return true;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -2,34 +2,81 @@ package org.orymar.service;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.orymar.config.CacheConfig;
 import org.orymar.domain.RegularPayment;
+import org.orymar.domain.dto.OutputRegularPaymentChangeResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.exception.domain.ChangesExpiredException;
+import org.orymar.repository.RegularPaymentChangeRepository;
+import org.orymar.repository.RegularPaymentVersionRepository;
 import org.orymar.repository.RegularRepository;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Reads return {@link OutputRegularPaymentResponseDTO} projections in read-only transactions, and
+ * lookups by id, IPN and EDRPOU are cached. Anything that changes a payment goes through the
+ * repository and evicts it via {@link RegularPaymentCache} once its transaction commits; a read
+ * racing with that commit can still cache the old row until it expires.
+ */
 @Service
 @RequiredArgsConstructor
 public class RegularService {
 
     private final RegularRepository repository;
+    private final RegularPaymentVersionRepository versionRepository;
+    private final RegularPaymentChangeRepository changeRepository;
+    private final RegularPaymentCache cache;
 
+    @Transactional
     public RegularPayment create(RegularPayment payment) {
-        return repository.save(payment);
+        payment.setNextDueAt(LocalDateTime.now());
+        RegularPayment created = repository.save(payment);
+        cache.evict(created);
+        return created;
     }
 
-    public Optional<RegularPayment> getPaymentById(UUID id) {
-        return repository.findById(id);
+    @Cacheable(CacheConfig.REGULAR_PAYMENTS_BY_ID)
+    @Transactional(readOnly = true)
+    public Optional<OutputRegularPaymentResponseDTO> getPaymentById(UUID id) {
+        return repository.findViewById(id);
     }
 
+    /** Returns the row version of payment {@code id} without loading it, or empty if there is none. */
+    @Transactional(readOnly = true)
+    public Optional<Long> getPaymentVersion(UUID id) {
+        return repository.findVersionById(id);
+    }
+
+    /** Returns the change version of all payments; it grows with every committed write. */
+    public long getPaymentsVersion() {
+        return versionRepository.current();
+    }
+
+    @Transactional
     public RegularPayment update(UUID id, RegularPayment updated) {
         Optional<RegularPayment> entriesPayment = repository.findById(id);
         if (entriesPayment.isEmpty()) {
             throw new EntityNotFoundException("RegularPayment not found with id: " + id);
         }
         var payment = entriesPayment.get();
+        if (updated.getVersion() != null && !updated.getVersion().equals(payment.getVersion())) {
+            throw new OptimisticLockingFailureException("RegularPayment " + id
+                    + " was modified concurrently, expected version " + updated.getVersion());
+        }
+        cache.evict(payment);
         payment.setPIB(updated.getPIB());
         payment.setIPN(updated.getIPN());
         payment.setIBAN(updated.getIBAN());
@@ -38,22 +85,86 @@ public class RegularService {
         payment.setBeneficiaryName(updated.getBeneficiaryName());
         payment.setDebitPeriod(updated.getDebitPeriod());
         payment.setPaymentAmount(updated.getPaymentAmount());
-        return repository.save(payment);
+        if (payment.getLastPaidAt() != null) {
+            payment.setNextDueAt(payment.getDebitPeriod().next(payment.getLastPaidAt()));
+        }
+        RegularPayment saved = repository.save(payment);
+        cache.evict(saved);
+        return saved;
     }
 
+    /**
+     * Marks the payment deleted, which hides it from reads and the scheduler at once. Its entries
+     * are removed in the background by {@link RegularPaymentPurger}.
+     */
+    @Transactional
     public void delete(UUID id) {
-        repository.deleteById(id);
+        repository.findById(id).ifPresent(payment -> {
+            payment.setDeletedAt(LocalDateTime.now());
+            cache.evict(payment);
+        });
+    }
+
+    @Cacheable(CacheConfig.REGULAR_PAYMENTS_BY_IPN)
+    @Transactional(readOnly = true)
+    public List<OutputRegularPaymentResponseDTO> getPaymentsByIpn(String IPN) {
+        return repository.findViewsByIpn(IPN);
     }
 
-    public List<RegularPayment> getPaymentsByIpn(String IPN) {
-        return repository.findByIPN(IPN);
+    /** Returns up to {@code limit} payments ordered by id, starting right after {@code after} if given. */
+    @Transactional(readOnly = true)
+    public List<OutputRegularPaymentResponseDTO> getPaymentsPage(UUID after, int limit) {
+        return after == null
+                ? repository.findFirstViews(Limit.of(limit))
+                : repository.findViewsAfter(after, Limit.of(limit));
     }
 
-    public List<RegularPayment> getAllPayments() {
-        return repository.findAll();
+    /**
+     * Feeds every payment to {@code action} in id order. Nothing is kept in the persistence
+     * context, so memory stays flat however large the table is.
+     */
+    @Transactional(readOnly = true)
+    public void forEachPayment(Consumer<OutputRegularPaymentResponseDTO> action) {
+        try (Stream<OutputRegularPaymentResponseDTO> payments = repository.streamViews()) {
+            payments.forEach(action);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} changes from {@code since} on, continuing after payment
+     * {@code after} when a previous page was cut at that position. The floor, the horizon and the
+     * changes are read in one snapshot; a full page ends at its last change and leaves {@code after}
+     * set, a shorter one reaches the horizon, which becomes the high-water mark. A position whose
+     * tombstones have been pruned fails with {@link ChangesExpiredException}.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public OutputRegularPaymentChangesResponseDTO getChanges(long since, UUID after, int limit) {
+        // a full copy from 0 needs no tombstones, it simply does not contain the deleted payments
+        if (since > 0 && since <= changeRepository.floor()) {
+            throw new ChangesExpiredException("Changes since " + since
+                    + " are no longer kept, start over from 0");
+        }
+        long horizon = changeRepository.horizon();
+        List<OutputRegularPaymentChangeResponseDTO> changes =
+                changeRepository.findChanges(since, after, horizon, limit);
+        if (changes.size() == limit) {
+            OutputRegularPaymentChangeResponseDTO last = changes.get(limit - 1);
+            return new OutputRegularPaymentChangesResponseDTO(changes, last.changeSeq(), last.id());
+        }
+        return new OutputRegularPaymentChangesResponseDTO(changes, Math.max(since, horizon), null);
+    }
+
+    @Cacheable(CacheConfig.REGULAR_PAYMENTS_BY_EDRPOU)
+    @Transactional(readOnly = true)
+    public List<OutputRegularPaymentResponseDTO> getPaymentsByErdpou(String EDRPOU) {
+        return repository.findViewsByEdrpou(EDRPOU);
     }
 
-    public List<RegularPayment> getPaymentsByErdpou(String EDRPOU) {
-        return repository.findByEDRPOU(EDRPOU);
+    /** Feeds every payment due before {@code at} to {@code action} straight off the cursor. */
+    @Transactional(readOnly = true)
+    public void forEachDuePayment(LocalDateTime at, Consumer<OutputRegularPaymentResponseDTO> action) {
+        try (Stream<OutputRegularPaymentResponseDTO> payments = repository.streamViewsDueBefore(at)) {
+            payments.forEach(action);
+        }
     }
 }
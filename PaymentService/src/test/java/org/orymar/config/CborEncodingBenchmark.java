@@ -0,0 +1,91 @@
+package org.orymar.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.orymar.Benchmarks;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Size and codec time of the two messages Reglament exchanges most, a due list and a write-off
+ * batch of {@code benchmark.items} items each, as JSON against CBOR from {@link MapperConfig}.
+ */
+@Tag(Benchmarks.TAG)
+class CborEncodingBenchmark {
+    private final ObjectMapper json = new MapperConfig().objectMapper();
+    private final ObjectMapper cbor = new MapperConfig().cborHttpMessageConverter(json).getObjectMapper();
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Test
+    @DisplayName("CBOR - bytes, write and read time per message against JSON")
+    void encode() throws IOException {
+        int items = Benchmarks.size("items", 1_000);
+        List<OutputRegularPaymentResponseDTO> due = new ArrayList<>(items);
+        List<CreateEntriesPaymentRequestDTO> writeOffs = new ArrayList<>(items);
+        LocalDateTime now = LocalDateTime.of(2025, 1, 1, 10, 0);
+        for (int i = 0; i < items; i++) {
+            Money amount = Money.ofMinor(random.nextLong(1, 10_000_000));
+            due.add(new OutputRegularPaymentResponseDTO(UUID.randomUUID(), "Rymar Oleksandr " + i, "123456789",
+                    "UA123456789012345678901234567", "123456", "12345678", "Beneficiary " + i,
+                    RecurrenceRule.parse("30d"), amount, now.plusMinutes(i), i));
+            writeOffs.add(new CreateEntriesPaymentRequestDTO(due.get(i).id(), now, amount, 'A', now.plusMinutes(i)));
+        }
+
+        int messages = Benchmarks.size("messages", 2_000);
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            measure("due list", due, OutputRegularPaymentResponseDTO[].class, messages, report);
+            measure("write-off batch", writeOffs, CreateEntriesPaymentRequestDTO[].class, messages, report);
+        }
+    }
+
+    private <T> void measure(String name, List<T> message, Class<T[]> type, int messages, boolean report)
+            throws IOException {
+        byte[] jsonBytes = json.writeValueAsBytes(message);
+        byte[] cborBytes = cbor.writeValueAsBytes(message);
+        assertEquals(message, Arrays.asList(json.readValue(jsonBytes, type)));
+        assertEquals(message, Arrays.asList(cbor.readValue(cborBytes, type)));
+
+        double[] jsonMicros = time(json, message, type, messages);
+        double[] cborMicros = time(cbor, message, type, messages);
+        if (report) {
+            Benchmarks.report("%s of %d: JSON %,d B, write %,.0f / read %,.0f us", name, message.size(),
+                    jsonBytes.length, jsonMicros[0], jsonMicros[1]);
+            Benchmarks.report("%s of %d: CBOR %,d B (%d%%), write %,.0f / read %,.0f us", name, message.size(),
+                    cborBytes.length, cborBytes.length * 100L / jsonBytes.length, cborMicros[0], cborMicros[1]);
+        }
+    }
+
+    /** Microseconds per message to write and to read it. */
+    private static <T> double[] time(ObjectMapper mapper, List<T> message, Class<T[]> type, int messages)
+            throws IOException {
+        byte[] bytes = null;
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            bytes = mapper.writeValueAsBytes(message);
+        }
+        long writeNanos = System.nanoTime() - startedAt;
+        ObjectReader reader = mapper.readerFor(type);
+        startedAt = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            reader.readValue(bytes);
+        }
+        long readNanos = System.nanoTime() - startedAt;
+        return new double[] {writeNanos / 1e3 / messages, readNanos / 1e3 / messages};
+    }
+}
@@ -0,0 +1,129 @@
+package org.orymar.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.orymar.Benchmarks;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.repository.RegularRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@code GET /regular-payments/due} over {@code benchmark.payments} due payments, written off the
+ * cursor as it is now against the list that was built in a transaction and serialized afterwards.
+ * The body goes to a sink that only counts it, so the figures leave out the network.
+ */
+@Tag(Benchmarks.TAG)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+@SpringBootTest(properties = "server.port=0")
+class DuePaymentsStreamingBenchmark {
+    private static final String MARKER = "benchmark";
+
+    @Autowired
+    private RegularController controller;
+    @Autowired
+    private RegularRepository regularRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO regular_payment (id, pib, ipn, iban, mfo, edrpou, beneficiary_name,
+                                             recurrence_rule, payment_amount, next_due_at)
+                SELECT gen_random_uuid(), ?, '123456789', 'UA123456789012345678901234567', '123456',
+                       '12345678', 'Beneficiary ' || n, '30d', n % 100000 / 100.0, '2025-01-01'
+                FROM generate_series(1, ?) n
+                """, MARKER, Benchmarks.size("payments", 200_000));
+        jdbcTemplate.execute("ANALYZE regular_payment");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM regular_payment WHERE pib = ?", MARKER);
+    }
+
+    @Test
+    @DisplayName("Due payments - time to first byte, total time and peak heap, streamed against buffered")
+    void streamDuePayments() throws IOException {
+        LocalDateTime at = LocalDateTime.of(2025, 1, 2, 0, 0);
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            long streamed = measure("streamed", report, out ->
+                    controller.getDuePayments(at, "application/json").getBody().writeTo(out));
+            long buffered = measure("buffered", report, out -> {
+                List<OutputRegularPaymentResponseDTO> payments = transactionTemplate.execute(status -> {
+                    try (Stream<OutputRegularPaymentResponseDTO> rows = regularRepository.streamViewsDueBefore(at)) {
+                        return rows.toList();
+                    }
+                });
+                objectMapper.writeValue(out, payments);
+            });
+            assertEquals(buffered, streamed);
+        }
+    }
+
+    private static long measure(String name, boolean report, Body body) throws IOException {
+        List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        Benchmarks.retainedHeap();
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+        Sink sink = new Sink();
+        body.writeTo(sink);
+        long totalNanos = System.nanoTime() - sink.startedAt;
+        long peak = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        if (report) {
+            Benchmarks.report("due payments %s: %,d MB body, first byte after %,d ms, total %,d ms, peak heap %,d MB",
+                    name, sink.bytes >> 20, (sink.firstByteAt - sink.startedAt) / 1_000_000,
+                    totalNanos / 1_000_000, peak >> 20);
+        }
+        return sink.bytes;
+    }
+
+    private interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /** Counts the body and notes when its first byte arrived. */
+    private static final class Sink extends OutputStream {
+        private final long startedAt = System.nanoTime();
+        private long firstByteAt;
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            write(null, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (bytes == 0 && len > 0) {
+                firstByteAt = System.nanoTime();
+            }
+            bytes += len;
+        }
+    }
+}
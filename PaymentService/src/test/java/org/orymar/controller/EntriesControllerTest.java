@@ -1,6 +1,8 @@
 package org.orymar.controller;
 
 
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,19 +11,29 @@ import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.orymar.domain.EntriesCursor;
+import org.orymar.domain.EntriesHistoryFilter;
+import org.orymar.domain.EntryCreationResult;
 import org.orymar.domain.EntriesPayment;
+import org.orymar.domain.Money;
 import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.OutputEntriesBatchItemResponseDTO;
 import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
+import org.orymar.domain.dto.OutputEntriesStatusUpdateResponseDTO;
+import org.orymar.domain.dto.OutputPaymentLedgerSummaryResponseDTO;
 import org.orymar.domain.dto.UpdateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.UpdateEntriesStatusRequestDTO;
 import org.orymar.mapper.EntriesMapper;
 import org.orymar.service.EntriesService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,6 +47,9 @@ class EntriesControllerTest {
     @Mock
     private EntriesMapper mapper;
 
+    @Mock
+    private Validator validator;
+
     @InjectMocks
     private EntriesController controller;
 
@@ -53,7 +68,7 @@ class EntriesControllerTest {
         payment.setId(id);
         payment.setRegularPaymentId(paymentId);
         payment.setDateOfPayment(LocalDateTime.now());
-        payment.setAmount(BigDecimal.valueOf(1234.56));
+        payment.setAmount(Money.of("1234.56"));
         payment.setStatus('A');
 
         responseDTO = new OutputEntriesPaymentResponseDTO(
@@ -61,7 +76,8 @@ class EntriesControllerTest {
                 paymentId,
                 payment.getDateOfPayment(),
                 payment.getAmount(),
-                payment.getStatus()
+                payment.getStatus(),
+                0
         );
     }
 
@@ -72,11 +88,12 @@ class EntriesControllerTest {
                 paymentId,
                 payment.getDateOfPayment(),
                 payment.getAmount(),
-                payment.getStatus()
+                payment.getStatus(),
+                null
         );
 
         when(mapper.toEntriesPaymentCreateDto(request)).thenReturn(payment);
-        when(service.create(payment)).thenReturn(payment);
+        when(service.create(payment)).thenReturn(EntryCreationResult.created(payment));
         when(mapper.toEntriesPayment(payment)).thenReturn(responseDTO);
 
         ResponseEntity<OutputEntriesPaymentResponseDTO> result = controller.create(request);
@@ -85,11 +102,62 @@ class EntriesControllerTest {
         assertEquals(responseDTO, result.getBody());
     }
 
+    @Test
+    @DisplayName("Create payment - period already booked returns the booked entry")
+    void createDuplicate() {
+        CreateEntriesPaymentRequestDTO request = new CreateEntriesPaymentRequestDTO(
+                paymentId, payment.getDateOfPayment(), payment.getAmount(), 'A', payment.getDateOfPayment());
+        EntriesPayment booked = new EntriesPayment();
+
+        when(mapper.toEntriesPaymentCreateDto(request)).thenReturn(payment);
+        when(service.create(payment)).thenReturn(EntryCreationResult.duplicate(booked));
+        when(mapper.toEntriesPayment(booked)).thenReturn(responseDTO);
+
+        ResponseEntity<OutputEntriesPaymentResponseDTO> result = controller.create(request);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(responseDTO, result.getBody());
+    }
+
+    @Test
+    @DisplayName("Create batch - invalid items are reported without reaching the service")
+    void createBatchReportsInvalidItems() {
+        EntriesController validatingController = new EntriesController(
+                service, mapper, Validation.buildDefaultValidatorFactory().getValidator());
+        CreateEntriesPaymentRequestDTO valid = new CreateEntriesPaymentRequestDTO(
+                paymentId, payment.getDateOfPayment(), payment.getAmount(), 'A', null);
+        CreateEntriesPaymentRequestDTO invalid = new CreateEntriesPaymentRequestDTO(
+                paymentId, null, Money.ZERO, 'A', null);
+
+        when(mapper.toEntriesPaymentCreateDto(valid)).thenReturn(payment);
+        when(service.createAll(List.of(payment))).thenReturn(List.of(EntryCreationResult.created(payment)));
+        when(mapper.toEntriesPayment(payment)).thenReturn(responseDTO);
+
+        ResponseEntity<List<OutputEntriesBatchItemResponseDTO>> result =
+                validatingController.createBatch(Arrays.asList(invalid, null, valid));
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        List<OutputEntriesBatchItemResponseDTO> items = result.getBody();
+        assertNotNull(items);
+        assertEquals("Amount must be greater than zero; Payment date is required", items.get(0).error());
+        assertEquals("Entry is required", items.get(1).error());
+        assertEquals(new OutputEntriesBatchItemResponseDTO(2, paymentId, responseDTO, true, null), items.get(2));
+        verify(mapper, never()).toEntriesPaymentCreateDto(invalid);
+    }
+
+    @Test
+    @DisplayName("Create batch - rejects batches over the limit")
+    void createBatchTooLarge() {
+        List<CreateEntriesPaymentRequestDTO> request = Collections.nCopies(1001, null);
+
+        assertThrows(IllegalArgumentException.class, () -> controller.createBatch(request));
+        verifyNoInteractions(service);
+    }
+
     @Test
     @DisplayName("Get by ID - found")
     void getByIdFound() {
-        when(service.getById(id)).thenReturn(Optional.of(payment));
-        when(mapper.toEntriesPayment(payment)).thenReturn(responseDTO);
+        when(service.getById(id)).thenReturn(Optional.of(responseDTO));
 
         ResponseEntity<OutputEntriesPaymentResponseDTO> result = controller.getById(id);
 
@@ -108,11 +176,34 @@ class EntriesControllerTest {
         assertNull(result.getBody());
     }
 
+    @Test
+    @DisplayName("Get summary - found")
+    void getSummaryFound() {
+        OutputPaymentLedgerSummaryResponseDTO summaryDTO = new OutputPaymentLedgerSummaryResponseDTO(
+                paymentId, 1, payment.getAmount(), 0, Money.ZERO, payment.getDateOfPayment());
+        when(service.getLedgerSummary(paymentId)).thenReturn(Optional.of(summaryDTO));
+
+        ResponseEntity<OutputPaymentLedgerSummaryResponseDTO> result = controller.getSummary(paymentId);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(summaryDTO, result.getBody());
+    }
+
+    @Test
+    @DisplayName("Get summary - unknown payment")
+    void getSummaryNotFound() {
+        when(service.getLedgerSummary(paymentId)).thenReturn(Optional.empty());
+
+        ResponseEntity<OutputPaymentLedgerSummaryResponseDTO> result = controller.getSummary(paymentId);
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+    }
+
     @Test
     @DisplayName("Update payment - stornovana")
     void updateStornovana() {
         UpdateEntriesPaymentRequestDTO request = new UpdateEntriesPaymentRequestDTO(
-                BigDecimal.valueOf(2000.00), 'S'
+                Money.of("2000.00"), 'S', 4L
         );
 
         when(mapper.toEntriesPaymentUpdateDto(request)).thenReturn(payment);
@@ -129,10 +220,10 @@ class EntriesControllerTest {
     @ValueSource(chars = {'A', 'S'})
     @DisplayName("Update status - valid status")
     void updateStatusSuccess(char status) {
-        when(service.updateStatus(id, status)).thenReturn(payment);
+        when(service.updateStatus(id, status, 2L)).thenReturn(payment);
         when(mapper.toEntriesPayment(payment)).thenReturn(responseDTO);
 
-        ResponseEntity<OutputEntriesPaymentResponseDTO> result = controller.updateStatus(id, status);
+        ResponseEntity<OutputEntriesPaymentResponseDTO> result = controller.updateStatus(id, status, 2L);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(responseDTO, result.getBody());
@@ -141,9 +232,47 @@ class EntriesControllerTest {
     @Test
     @DisplayName("Update status - service throws exception")
     void updateStatusThrowsException() {
-        when(service.updateStatus(id, 'D')).thenThrow(new IllegalArgumentException("Invalid status: D"));
+        when(service.updateStatus(id, 'D', null)).thenThrow(new IllegalArgumentException("Invalid status: D"));
+
+        assertThrows(IllegalArgumentException.class, () -> controller.updateStatus(id, 'D', null));
+    }
+
+    @Test
+    @DisplayName("Bulk status - listed ids")
+    void updateStatusesByIds() {
+        UUID other = UUID.randomUUID();
+        when(service.updateStatuses(Set.of(id, other), 'S')).thenReturn(2);
+
+        ResponseEntity<OutputEntriesStatusUpdateResponseDTO> result = controller.updateStatuses(
+                new UpdateEntriesStatusRequestDTO('S', List.of(id, other, id), null, null, null));
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(new OutputEntriesStatusUpdateResponseDTO(2), result.getBody());
+    }
 
-        assertThrows(IllegalArgumentException.class, () -> controller.updateStatus(id, 'D'));
+    @Test
+    @DisplayName("Bulk status - payment and date window, at most one batch per request")
+    void updateStatusesByWindow() {
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        when(service.updateStatuses(new EntriesHistoryFilter(paymentId, from, null, null), 'S', 1000))
+                .thenReturn(7);
+
+        ResponseEntity<OutputEntriesStatusUpdateResponseDTO> result = controller.updateStatuses(
+                new UpdateEntriesStatusRequestDTO('S', null, paymentId, from, null));
+
+        assertEquals(new OutputEntriesStatusUpdateResponseDTO(7), result.getBody());
+    }
+
+    @Test
+    @DisplayName("Bulk status - rejects an ambiguous, empty or oversized selection")
+    void updateStatusesInvalidSelection() {
+        assertThrows(IllegalArgumentException.class, () -> controller.updateStatuses(
+                new UpdateEntriesStatusRequestDTO('S', List.of(id), paymentId, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> controller.updateStatuses(
+                new UpdateEntriesStatusRequestDTO('S', null, null, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> controller.updateStatuses(
+                new UpdateEntriesStatusRequestDTO('S', Collections.nCopies(1001, id), null, null, null)));
+        verifyNoInteractions(service);
     }
 
     @Test
@@ -187,26 +316,69 @@ class EntriesControllerTest {
     }
 
     @Test
-    @DisplayName("Get by payment ID - returns list")
+    @DisplayName("Get by payment ID - last page has no cursor")
     void getByPaymentId() {
-        when(service.getEntriesByPaymentId(paymentId)).thenReturn(List.of(payment));
-        when(mapper.toEntriesPayment(payment)).thenReturn(responseDTO);
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        EntriesHistoryFilter filter = new EntriesHistoryFilter(paymentId, from, null, 'A');
+        when(service.getEntriesByPaymentId(filter, null, 500)).thenReturn(List.of(responseDTO));
 
-        ResponseEntity<List<OutputEntriesPaymentResponseDTO>> result = controller.getByPaymentId(paymentId);
+        ResponseEntity<List<OutputEntriesPaymentResponseDTO>> result =
+                controller.getByPaymentId(paymentId, from, null, 'A', null, 500, null, null);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
-        assertEquals(1, result.getBody().size());
-        assertEquals(responseDTO, result.getBody().get(0));
+        assertEquals(List.of(responseDTO), result.getBody());
+        assertFalse(result.getHeaders().containsKey(RegularController.NEXT_CURSOR_HEADER));
     }
 
     @Test
-    @DisplayName("Get by payment ID - empty list")
-    void getByPaymentIdEmpty() {
-        when(service.getEntriesByPaymentId(paymentId)).thenReturn(List.of());
+    @DisplayName("Get by payment ID - full page links the next one")
+    void getByPaymentIdNextCursor() {
+        EntriesCursor after = new EntriesCursor(LocalDateTime.of(2025, 1, 1, 0, 0), UUID.randomUUID());
+        when(service.getEntriesByPaymentId(EntriesHistoryFilter.of(paymentId), after, 1))
+                .thenReturn(List.of(responseDTO));
+
+        ResponseEntity<List<OutputEntriesPaymentResponseDTO>> result =
+                controller.getByPaymentId(paymentId, null, null, null, after.encode(), 1, null, null);
+
+        assertEquals(EntriesCursor.of(responseDTO).encode(),
+                result.getHeaders().getFirst(RegularController.NEXT_CURSOR_HEADER));
+        assertEquals(EntriesCursor.of(responseDTO), EntriesCursor.parse(EntriesCursor.of(responseDTO).encode()));
+    }
 
-        ResponseEntity<List<OutputEntriesPaymentResponseDTO>> result = controller.getByPaymentId(paymentId);
+    @Test
+    @DisplayName("Get by payment ID - pages carry the entries version and are skipped while it matches")
+    void getByPaymentIdConditional() {
+        when(service.getEntriesVersion(paymentId)).thenReturn(4L);
+        when(service.getEntriesByPaymentId(EntriesHistoryFilter.of(paymentId), null, 500))
+                .thenReturn(List.of(responseDTO));
+
+        ResponseEntity<List<OutputEntriesPaymentResponseDTO>> changed =
+                controller.getByPaymentId(paymentId, null, null, null, null, 500, null, "\"3\"");
+        ResponseEntity<List<OutputEntriesPaymentResponseDTO>> unchanged =
+                controller.getByPaymentId(paymentId, null, null, null, null, 500, null, changed.getHeaders().getETag());
+
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertEquals("\"4\"", changed.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, unchanged.getStatusCode());
+        assertNull(unchanged.getBody());
+        verify(service, times(1)).getEntriesByPaymentId(any(), any(), anyInt());
+    }
 
-        assertEquals(HttpStatus.OK, result.getStatusCode());
-        assertTrue(result.getBody().isEmpty());
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1001})
+    @DisplayName("Get by payment ID - rejects a limit out of range")
+    void getByPaymentIdInvalidLimit(int limit) {
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.getByPaymentId(paymentId, null, null, null, null, limit, null, null));
+        verifyNoInteractions(service);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"garbage", "2025-01-01T00:00_not-a-uuid", "_00000000-0000-0000-0000-000000000001"})
+    @DisplayName("Get by payment ID - rejects a malformed cursor")
+    void getByPaymentIdInvalidCursor(String after) {
+        assertThrows(IllegalArgumentException.class,
+                () -> controller.getByPaymentId(paymentId, null, null, null, after, 500, null, null));
+        verifyNoInteractions(service);
     }
-}
\ No newline at end of file
+}
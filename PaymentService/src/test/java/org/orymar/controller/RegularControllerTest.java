@@ -1,30 +1,48 @@
 package org.orymar.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.orymar.config.MapperConfig;
 import org.orymar.domain.RegularPayment;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
 import org.orymar.domain.dto.CreateRegularPaymentRequestDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
 import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
 import org.orymar.domain.dto.UpdateRegularPaymentRequestDTO;
 import org.orymar.mapper.RegularMapper;
 import org.orymar.service.RegularService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-
-import java.math.BigDecimal;
-import java.time.Duration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 
 class RegularControllerTest {
 
@@ -54,8 +72,8 @@ class RegularControllerTest {
         payment.setMFO("123456");
         payment.setEDRPOU("12345678");
         payment.setBeneficiaryName("Rymar Oleksandr");
-        payment.setDebitPeriod(Duration.ofDays(1));
-        payment.setPaymentAmount(BigDecimal.valueOf(100));
+        payment.setDebitPeriod(RecurrenceRule.parse("1d"));
+        payment.setPaymentAmount(Money.of("100"));
 
         responseDTO = new OutputRegularPaymentResponseDTO(
                 id,
@@ -65,8 +83,10 @@ class RegularControllerTest {
                 "123456",
                 "12345678",
                 "Rymar Oleks",
-                Duration.ofDays(1),
-                BigDecimal.valueOf(100)
+                RecurrenceRule.parse("1d"),
+                Money.of("100"),
+                LocalDateTime.of(2025, 1, 2, 12, 0),
+                0
         );
     }
 
@@ -104,14 +124,14 @@ class RegularControllerTest {
         } else if ("edrpou".equals(type)) {
             when(regularService.getPaymentsByErdpou(edrpou)).thenReturn(List.of());
         } else if ("all".equals(type)) {
-            when(regularService.getAllPayments()).thenReturn(List.of(payment));
-            when(mapper.toRegularPayment(payment)).thenReturn(responseDTO);
+            when(regularService.getPaymentsPage(null, 500)).thenReturn(List.of(responseDTO));
         } else {
             when(regularService.getPaymentsByIpn(ipn)).thenReturn(List.of());
             when(regularService.getPaymentsByErdpou(edrpou)).thenReturn(List.of());
         }
 
-        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result = controller.getPayments(ipn, edrpou);
+        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result =
+                controller.getPayments(ipn, edrpou, null, 500, null, null);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
         if ("all".equals(type)) {
@@ -122,16 +142,94 @@ class RegularControllerTest {
     }
 
     @Test
-    @DisplayName("GetPayments - mapper returns null")
-    void getPaymentsMapperReturnsNull() {
-        when(regularService.getAllPayments()).thenReturn(List.of(payment));
-        when(mapper.toRegularPayment(payment)).thenReturn(null);
+    @DisplayName("GetPayments - projections are returned without mapping")
+    void getPaymentsSkipsMapper() {
+        when(regularService.getPaymentsPage(null, 500)).thenReturn(List.of(responseDTO));
 
-        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result = controller.getPayments(null, null);
+        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result =
+                controller.getPayments(null, null, null, 500, null, null);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
-        assertEquals(1, result.getBody().size());
-        assertNull(result.getBody().get(0));
+        assertEquals(List.of(responseDTO), result.getBody());
+        verifyNoInteractions(mapper);
+    }
+
+    @Test
+    @DisplayName("Get payments - full page carries the cursor of its last payment")
+    void getPaymentsFullPageHasCursor() {
+        UUID after = UUID.randomUUID();
+        when(regularService.getPaymentsPage(after, 1)).thenReturn(List.of(responseDTO));
+
+        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result =
+                controller.getPayments(null, null, after, 1, null, null);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(id.toString(), result.getHeaders().getFirst(RegularController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    @DisplayName("Get payments - last page has no cursor")
+    void getPaymentsLastPageHasNoCursor() {
+        when(regularService.getPaymentsPage(null, 2)).thenReturn(List.of(responseDTO));
+
+        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result =
+                controller.getPayments(null, null, null, 2, null, null);
+
+        assertNull(result.getHeaders().getFirst(RegularController.NEXT_CURSOR_HEADER));
+        assertEquals(List.of(responseDTO), result.getBody());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, -1, 1001})
+    @DisplayName("Get payments - rejects a limit out of range")
+    void getPaymentsRejectsLimit(int limit) {
+        assertThrows(IllegalArgumentException.class, () -> controller.getPayments(null, null, null, limit, null, null));
+        verifyNoInteractions(regularService);
+    }
+
+    @Test
+    @DisplayName("Get changes - returns the service's page as is")
+    void getChanges() {
+        var changes = new OutputRegularPaymentChangesResponseDTO(List.of(), 42, null);
+        when(regularService.getChanges(7, id, 100)).thenReturn(changes);
+
+        ResponseEntity<OutputRegularPaymentChangesResponseDTO> result = controller.getChanges(7, id, 100);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(changes, result.getBody());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "-1 | 500",  // negative position
+            "0  | 0",    // limit too small
+            "0  | 1001"  // limit too large
+    })
+    @DisplayName("Get changes - rejects an invalid position or limit")
+    void getChangesRejectsArguments(long since, int limit) {
+        assertThrows(IllegalArgumentException.class, () -> controller.getChanges(since, null, limit));
+        verifyNoInteractions(regularService);
+    }
+
+    @Test
+    @DisplayName("Stream payments - writes one JSON document per line")
+    void streamPaymentsWritesNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<OutputRegularPaymentResponseDTO> action = invocation.getArgument(0);
+            action.accept(responseDTO);
+            action.accept(responseDTO);
+            return null;
+        }).when(regularService).forEachPayment(any());
+
+        ResponseEntity<StreamingResponseBody> result = streamingController().streamPayments(null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, result.getHeaders().getContentType());
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":\"" + id + "\""), lines[0]);
+        assertEquals(lines[0], lines[1]);
     }
 
     @Test
@@ -139,7 +237,7 @@ class RegularControllerTest {
     void testCreate() {
         CreateRegularPaymentRequestDTO request = new CreateRegularPaymentRequestDTO(
                 "Rymar Oleks", "123456789", "UA123456789012345678901234567",
-                "123456", "12345678", "Rymar Oleks", Duration.ofDays(1), BigDecimal.valueOf(100)
+                "123456", "12345678", "Rymar Oleks", RecurrenceRule.parse("1d"), Money.of("100")
         );
 
         when(mapper.toRegularPaymentCreateDto(request)).thenReturn(payment);
@@ -155,10 +253,9 @@ class RegularControllerTest {
     @Test
     @DisplayName("Test getById - found")
     void testGetByIdFound() {
-        when(regularService.getPaymentById(id)).thenReturn(Optional.of(payment));
-        when(mapper.toRegularPayment(payment)).thenReturn(responseDTO);
+        when(regularService.getPaymentById(id)).thenReturn(Optional.of(responseDTO));
 
-        ResponseEntity<OutputRegularPaymentResponseDTO> result = controller.getById(id);
+        ResponseEntity<OutputRegularPaymentResponseDTO> result = controller.getById(id, null, null);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(responseDTO, result.getBody());
@@ -169,18 +266,125 @@ class RegularControllerTest {
     void testGetByIdNotFound() {
         when(regularService.getPaymentById(id)).thenReturn(Optional.empty());
 
-        ResponseEntity<OutputRegularPaymentResponseDTO> result = controller.getById(id);
+        ResponseEntity<OutputRegularPaymentResponseDTO> result = controller.getById(id, null, null);
 
         assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
         assertNull(result.getBody());
     }
 
+    @Test
+    @DisplayName("Test getById - a matching If-None-Match is answered from the version alone")
+    void testGetByIdNotModified() {
+        when(regularService.getPaymentVersion(id)).thenReturn(Optional.of(3L));
+
+        ResponseEntity<OutputRegularPaymentResponseDTO> result = controller.getById(id, null, "W/\"2\", \"3\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        assertEquals("\"3\"", result.getHeaders().getETag());
+        verify(regularService, never()).getPaymentById(any());
+    }
+
+    @Test
+    @DisplayName("Test getById - the body is tagged with its own version")
+    void testGetByIdTagsBody() {
+        when(regularService.getPaymentVersion(id)).thenReturn(Optional.of(1L));
+        when(regularService.getPaymentById(id)).thenReturn(Optional.of(responseDTO));
+
+        ResponseEntity<OutputRegularPaymentResponseDTO> result =
+                controller.getById(id, "application/cbor", "\"1\"");
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("\"0-cbor\"", result.getHeaders().getETag());
+        assertEquals(responseDTO, result.getBody());
+    }
+
+    @Test
+    @DisplayName("Test getById - conditional request for a missing payment is not found")
+    void testGetByIdConditionalNotFound() {
+        when(regularService.getPaymentVersion(id)).thenReturn(Optional.empty());
+
+        ResponseEntity<OutputRegularPaymentResponseDTO> result = controller.getById(id, null, "\"0\"");
+
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        verify(regularService, never()).getPaymentById(any());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "                 | \"7\"       | 200",
+            "\"6\"          | \"7\"       | 200",
+            "\"7\"          | \"7\"       | 304",
+            "*                | \"7\"       | 304",
+            "\"7\"          | \"7-cbor\"  | 200"
+    })
+    @DisplayName("Get payments - pages carry the table version and are skipped while it matches")
+    void getPaymentsConditional(String ifNoneMatch, String expectedTag, int expectedStatus) {
+        String accept = expectedTag.contains("cbor") ? "application/cbor" : null;
+        when(regularService.getPaymentsVersion()).thenReturn(7L);
+        when(regularService.getPaymentsPage(null, 500)).thenReturn(List.of(responseDTO));
+
+        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result =
+                controller.getPayments(null, null, null, 500, accept, ifNoneMatch);
+
+        assertEquals(expectedStatus, result.getStatusCode().value());
+        assertEquals(expectedTag, result.getHeaders().getETag());
+        verify(regularService, times(expectedStatus == 304 ? 0 : 1)).getPaymentsPage(null, 500);
+    }
+
+    @Test
+    @DisplayName("Get all payments - a plain GET writes every payment in one array, unpaged")
+    void getAllPaymentsWritesArray() throws Exception {
+        when(regularService.getPaymentsVersion()).thenReturn(7L);
+        doAnswer(invocation -> {
+            Consumer<OutputRegularPaymentResponseDTO> action = invocation.getArgument(0);
+            action.accept(responseDTO);
+            action.accept(responseDTO);
+            return null;
+        }).when(regularService).forEachPayment(any());
+
+        ResponseEntity<StreamingResponseBody> result = streamingController().getAllPayments(null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("\"7\"", result.getHeaders().getETag());
+        assertNull(result.getHeaders().getFirst(RegularController.NEXT_CURSOR_HEADER));
+        OutputRegularPaymentResponseDTO[] body = objectMapper().readValue(
+                out.toByteArray(), OutputRegularPaymentResponseDTO[].class);
+        assertArrayEquals(new OutputRegularPaymentResponseDTO[]{responseDTO, responseDTO}, body);
+        verify(regularService, never()).getPaymentsPage(any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Get all payments - an unchanged table is not written again")
+    void getAllPaymentsNotModified() {
+        when(regularService.getPaymentsVersion()).thenReturn(7L);
+
+        ResponseEntity<StreamingResponseBody> result = streamingController().getAllPayments(null, "\"7\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        assertNull(result.getBody());
+        verify(regularService, never()).forEachPayment(any());
+    }
+
+    @Test
+    @DisplayName("Stream payments - an unchanged table is not streamed again")
+    void streamPaymentsNotModified() {
+        when(regularService.getPaymentsVersion()).thenReturn(7L);
+
+        ResponseEntity<StreamingResponseBody> result = streamingController().streamPayments(null, "\"7\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, result.getStatusCode());
+        assertNull(result.getBody());
+        verify(regularService, never()).forEachPayment(any());
+    }
+
     @Test
     @DisplayName("Test update payment")
     void testUpdate() {
         UpdateRegularPaymentRequestDTO request = new UpdateRegularPaymentRequestDTO(
                 "Rymar Oleksandr", "123456789", "UA123456789012345678901234567",
-                "123456", "12345678", "Rymar Oleksandr", Duration.ofDays(1), BigDecimal.valueOf(100)
+                "123456", "12345678", "Rymar Oleksandr", RecurrenceRule.parse("1d"), Money.of("100"), 4L
         );
 
         when(mapper.toRegularPaymentUpdateDto(request)).thenReturn(payment);
@@ -213,18 +417,158 @@ class RegularControllerTest {
     @DisplayName("Test getPayments with ipn, edrpou and all")
     void testGetPayments(String ipn, String edrpou, String type) {
         if ("ipn".equals(type)) {
-            when(regularService.getPaymentsByIpn(ipn)).thenReturn(List.of(payment));
+            when(regularService.getPaymentsByIpn(ipn)).thenReturn(List.of(responseDTO));
         } else if ("edrpou".equals(type)) {
-            when(regularService.getPaymentsByErdpou(edrpou)).thenReturn(List.of(payment));
+            when(regularService.getPaymentsByErdpou(edrpou)).thenReturn(List.of(responseDTO));
         } else {
-            when(regularService.getAllPayments()).thenReturn(List.of(payment));
+            when(regularService.getPaymentsPage(null, 500)).thenReturn(List.of(responseDTO));
         }
-        when(mapper.toRegularPayment(payment)).thenReturn(responseDTO);
 
-        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result = controller.getPayments(ipn, edrpou);
+        ResponseEntity<List<OutputRegularPaymentResponseDTO>> result =
+                controller.getPayments(ipn, edrpou, null, 500, null, null);
 
         assertEquals(HttpStatus.OK, result.getStatusCode());
         assertEquals(1, result.getBody().size());
         assertEquals(responseDTO, result.getBody().get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test getDuePayments - streams a JSON array for the requested instant")
+    void testGetDuePayments() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2025, 1, 1, 12, 0);
+        doAnswer(invocation -> {
+            Consumer<OutputRegularPaymentResponseDTO> action = invocation.getArgument(1);
+            action.accept(responseDTO);
+            action.accept(responseDTO);
+            return null;
+        }).when(regularService).forEachDuePayment(eq(at), any());
+
+        ResponseEntity<StreamingResponseBody> result = streamingController().getDuePayments(at, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, result.getHeaders().getContentType());
+        OutputRegularPaymentResponseDTO[] body = objectMapper().readValue(
+                out.toByteArray(), OutputRegularPaymentResponseDTO[].class);
+        assertArrayEquals(new OutputRegularPaymentResponseDTO[]{responseDTO, responseDTO}, body);
+    }
+
+    @Test
+    @DisplayName("Test getDuePayments - defaults to now and writes an empty array when nothing is due")
+    void testGetDuePaymentsDefaultsToNow() throws Exception {
+        ResponseEntity<StreamingResponseBody> result = streamingController().getDuePayments(null, "*/*");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+        verify(regularService).forEachDuePayment(any(LocalDateTime.class), any());
+    }
+
+    @Test
+    @DisplayName("Test getDuePayments - CBOR carries the same payments in a smaller body")
+    void testGetDuePaymentsCbor() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2025, 1, 1, 12, 0);
+        doAnswer(invocation -> {
+            Consumer<OutputRegularPaymentResponseDTO> action = invocation.getArgument(1);
+            action.accept(responseDTO);
+            return null;
+        }).when(regularService).forEachDuePayment(eq(at), any());
+        RegularController controller = streamingController();
+
+        ResponseEntity<StreamingResponseBody> cbor =
+                controller.getDuePayments(at, "application/cbor, application/json;q=0.9");
+        ByteArrayOutputStream cborOut = new ByteArrayOutputStream();
+        cbor.getBody().writeTo(cborOut);
+        ByteArrayOutputStream jsonOut = new ByteArrayOutputStream();
+        controller.getDuePayments(at, "application/json").getBody().writeTo(jsonOut);
+
+        assertEquals(MediaType.APPLICATION_CBOR, cbor.getHeaders().getContentType());
+        OutputRegularPaymentResponseDTO[] body = cborMapper().readValue(
+                cborOut.toByteArray(), OutputRegularPaymentResponseDTO[].class);
+        assertArrayEquals(new OutputRegularPaymentResponseDTO[]{responseDTO}, body);
+        assertTrue(cborOut.size() < jsonOut.size(), cborOut.size() + " >= " + jsonOut.size());
+    }
+
+    @Test
+    @DisplayName("Stream payments - CBOR sequence holds one item per payment")
+    void streamPaymentsWritesCborSequence() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<OutputRegularPaymentResponseDTO> action = invocation.getArgument(0);
+            action.accept(responseDTO);
+            action.accept(responseDTO);
+            return null;
+        }).when(regularService).forEachPayment(any());
+
+        ResponseEntity<StreamingResponseBody> result =
+                streamingController().streamPayments("application/cbor-seq, application/x-ndjson;q=0.9", null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        assertEquals(MapperConfig.APPLICATION_CBOR_SEQ, result.getHeaders().getContentType());
+        List<OutputRegularPaymentResponseDTO> payments = cborMapper()
+                .readerFor(OutputRegularPaymentResponseDTO.class).<OutputRegularPaymentResponseDTO>readValues(out.toByteArray())
+                .readAll();
+        assertEquals(List.of(responseDTO, responseDTO), payments);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "application/x-ndjson                                  | application/x-ndjson",
+            "*/*                                                   | application/x-ndjson",
+            "application/*                                         | application/x-ndjson",
+            "application/cbor-seq                                  | application/cbor-seq",
+            "application/cbor-seq, application/x-ndjson;q=0.9      | application/cbor-seq",
+            "application/x-ndjson, application/cbor-seq;q=0.5      | application/x-ndjson",
+            "application/cbor-seq;q=0.8, */*                       | application/cbor-seq"
+    })
+    @DisplayName("Stream payments - CBOR only when the caller explicitly prefers it")
+    void streamPaymentsNegotiatesFormat(String accept, String expected) {
+        ResponseEntity<StreamingResponseBody> result = streamingController().streamPayments(accept, null);
+
+        assertEquals(MediaType.parseMediaType(expected), result.getHeaders().getContentType());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "/regular-payments           |                      | application/json",
+            "/regular-payments           | */*                  | application/json",
+            "/regular-payments           | application/json     | application/json",
+            "/regular-payments           | application/cbor     | application/cbor",
+            "/regular-payments?limit=500 |                      | application/json",
+            "/regular-payments/export    | application/x-ndjson | application/x-ndjson",
+            "/regular-payments/export    | */*                  | application/x-ndjson",
+            "/regular-payments/export    | application/cbor-seq | application/cbor-seq"
+    })
+    @DisplayName("Mapping - a plain GET gets an array whatever it accepts, only the export streams items")
+    void requestMapping(String path, String accept, String expected) throws Exception {
+        when(regularService.getPaymentsPage(null, 500)).thenReturn(List.of(responseDTO));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(streamingController()).build();
+        MockHttpServletRequestBuilder request = get(path);
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+
+        MvcResult result = mvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mvc.perform(asyncDispatch(result)).andReturn();
+        }
+
+        assertEquals(HttpStatus.OK.value(), result.getResponse().getStatus());
+        assertTrue(MediaType.parseMediaType(expected)
+                .equalsTypeAndSubtype(MediaType.parseMediaType(result.getResponse().getContentType())));
+    }
+
+    private RegularController streamingController() {
+        return new RegularController(regularService, mapper, objectMapper(),
+                new MapperConfig().cborHttpMessageConverter(objectMapper()));
+    }
+
+    private static ObjectMapper cborMapper() {
+        return new MapperConfig().cborHttpMessageConverter(objectMapper()).getObjectMapper();
+    }
+
+    private static ObjectMapper objectMapper() {
+        return new ObjectMapper().registerModule(new JavaTimeModule());
+    }
+}
@@ -0,0 +1,110 @@
+package org.orymar.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.orymar.Benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Summing {@code benchmark.amounts} amounts as {@link BigDecimal} against {@link Money}, and booking
+ * the ledger changes of as many entries into {@link LedgerDelta.Sum}s the way a batch write-off does.
+ * A {@code Money} carried around a loop is not scalar-replaced, so {@code Money.plus} still allocates
+ * one object per addition; the ledger sums in {@code long} for that reason.
+ */
+@Tag(Benchmarks.TAG)
+class MoneyBenchmark {
+    private static final int PAYMENTS = 1_000;
+
+    @Test
+    @DisplayName("Money - time and allocation per addition against BigDecimal")
+    void sum() {
+        int count = Benchmarks.size("amounts", 1_000_000);
+        SplittableRandom random = new SplittableRandom(42);
+        BigDecimal[] decimals = new BigDecimal[count];
+        Money[] amounts = new Money[count];
+        EntriesPayment[] entries = new EntriesPayment[count];
+        UUID[] payments = new UUID[PAYMENTS];
+        for (int i = 0; i < PAYMENTS; i++) {
+            payments[i] = UUID.randomUUID();
+        }
+        for (int i = 0; i < count; i++) {
+            amounts[i] = Money.ofMinor(random.nextLong(1, 10_000_000));
+            decimals[i] = amounts[i].toBigDecimal();
+            entries[i] = entry(payments[i % PAYMENTS], amounts[i]);
+        }
+        long expected = 0;
+        for (Money amount : amounts) {
+            expected += amount.minor();
+        }
+        assertEquals(expected, sumDecimals(decimals));
+        assertEquals(expected, sumMoney(amounts));
+        assertEquals(expected, sumDeltas(entries));
+
+        for (int round = 0; round < 10; round++) {
+            boolean report = round == 9;
+            measure("BigDecimal.add", decimals, MoneyBenchmark::sumDecimals, count, report);
+            measure("Money.plus", amounts, MoneyBenchmark::sumMoney, count, report);
+            measure("LedgerDelta.Sum", entries, MoneyBenchmark::sumDeltas, count, report);
+        }
+    }
+
+    private static <T> void measure(String name, T[] input, ToLongFunction<T[]> sum, int count, boolean report) {
+        long allocatedBefore = Benchmarks.allocatedBytes();
+        long startedAt = System.nanoTime();
+        long result = sum.applyAsLong(input);
+        long nanos = System.nanoTime() - startedAt;
+        long allocated = Benchmarks.allocatedBytes() - allocatedBefore;
+        if (report) {
+            Benchmarks.report("%s over %,d amounts: %.2f ns and %d B per amount (sum %d)",
+                    name, count, (double) nanos / count, allocated / count, result);
+        }
+    }
+
+    private static long sumDecimals(BigDecimal[] amounts) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            sum = sum.add(amount);
+        }
+        return sum.movePointRight(Money.SCALE).longValueExact();
+    }
+
+    private static long sumMoney(Money[] amounts) {
+        Money sum = Money.ZERO;
+        for (Money amount : amounts) {
+            sum = sum.plus(amount);
+        }
+        return sum.minor();
+    }
+
+    private static long sumDeltas(EntriesPayment[] entries) {
+        Map<UUID, LedgerDelta.Sum> deltas = new HashMap<>(PAYMENTS * 2);
+        for (EntriesPayment entry : entries) {
+            deltas.computeIfAbsent(entry.getRegularPaymentId(), LedgerDelta.Sum::new).add(entry);
+        }
+        long sum = 0;
+        for (LedgerDelta.Sum delta : deltas.values()) {
+            sum += delta.toDelta().activeAmount().minor();
+        }
+        return sum;
+    }
+
+    private static EntriesPayment entry(UUID regularPaymentId, Money amount) {
+        EntriesPayment entry = new EntriesPayment();
+        entry.setId(UUID.randomUUID());
+        entry.setRegularPaymentId(regularPaymentId);
+        entry.setDateOfPayment(LocalDateTime.of(2025, 1, 1, 0, 0));
+        entry.setAmount(amount);
+        entry.setStatus('A');
+        return entry;
+    }
+}
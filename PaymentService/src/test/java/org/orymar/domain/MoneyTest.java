@@ -0,0 +1,74 @@
+package org.orymar.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @ParameterizedTest
+    @CsvSource({
+            "123.45, 12345",
+            "123.4, 12340",
+            "100, 10000",
+            "0.010, 1",
+            "-7.5, -750"
+    })
+    @DisplayName("Decimal amounts become whole kopiykas")
+    void ofDecimal(String amount, long minor) {
+        assertEquals(minor, Money.of(new BigDecimal(amount)).minor());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0.001", "100000000000000000000"})
+    @DisplayName("Fractions of a kopiyka and amounts beyond the long range are rejected")
+    void rejectsUnrepresentable(String amount) {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(amount));
+    }
+
+    @Test
+    @DisplayName("Arithmetic stays exact and fails loudly on overflow")
+    void arithmetic() {
+        assertEquals(Money.of("150.25"), Money.of("100.20").plus(Money.of("50.05")));
+        assertEquals(Money.of("-0.01"), Money.ZERO.minus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+    }
+
+    @Test
+    @DisplayName("JSON keeps the decimal format in both directions")
+    void json() throws Exception {
+        assertEquals("123.40", objectMapper.writeValueAsString(Money.of("123.4")));
+        assertEquals(Money.of("123.4"), objectMapper.readValue("123.40", Money.class));
+        assertEquals(Money.of("123.4"), objectMapper.readValue("\"123.4\"", Money.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("1.001", Money.class));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0.01, true",
+            "0.00, false",
+            "999999999999.99, true",
+            "1000000000000.00, false"
+    })
+    @DisplayName("@DecimalMin and @Digits constrain Money as they did BigDecimal")
+    void validation(String amount, boolean valid) {
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        assertEquals(valid, validator.validate(new Amount(Money.of(amount))).isEmpty());
+    }
+
+    record Amount(@DecimalMin("0.01") @Digits(integer = 12, fraction = 2) Money value) {}
+}
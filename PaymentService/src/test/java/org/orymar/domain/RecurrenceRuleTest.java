@@ -0,0 +1,128 @@
+package org.orymar.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceRuleTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "1m | 1m",
+            "2H | 2h",
+            " 3d | 3d",
+            "120m | 2h",
+            "90s | 90s",
+            "FREQ=DAILY;INTERVAL=3 | 3d",
+            "FREQ=WEEKLY | 7d",
+            "freq=weekly;interval=2;byday=fr | FREQ=WEEKLY;INTERVAL=2;BYDAY=FR",
+            "FREQ=MONTHLY;BYMONTHDAY=5 | FREQ=MONTHLY;BYMONTHDAY=5",
+            "BYMONTHDAY=-1;FREQ=MONTHLY;INTERVAL=3 | FREQ=MONTHLY;INTERVAL=3;BYMONTHDAY=-1"
+    })
+    @DisplayName("Legacy intervals and RRULEs parse to their canonical text")
+    void canonicalText(String text, String canonical) {
+        RecurrenceRule rule = RecurrenceRule.parse(text);
+
+        assertEquals(canonical, rule.text());
+        assertEquals(rule, RecurrenceRule.parse(canonical));
+    }
+
+    @Test
+    @DisplayName("Each rule text maps to the matching kind of rule")
+    void kinds() {
+        assertEquals(new RecurrenceRule.Interval(Duration.ofMinutes(1)), RecurrenceRule.parse("1m"));
+        assertEquals(new RecurrenceRule.Weekly(2, DayOfWeek.FRIDAY),
+                RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=FR"));
+        assertEquals(new RecurrenceRule.MonthlyOnDay(1, 5), RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=5"));
+        assertEquals(new RecurrenceRule.EndOfMonth(1), RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=-1"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1x", "d", "0d", "-1d", "FREQ=YEARLY", "FREQ=MONTHLY", "FREQ=WEEKLY;BYDAY=XX",
+            "FREQ=MONTHLY;BYMONTHDAY=32", "FREQ=DAILY;BYDAY=MO", "FREQ=DAILY;FREQ=DAILY", "FREQ=DAILY;COUNT=3"})
+    @DisplayName("Unsupported or malformed rules are rejected")
+    void rejectsInvalid(String text) {
+        assertThrows(IllegalArgumentException.class, () -> RecurrenceRule.parse(text));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "1d | 2025-01-31T10:00 | 2025-02-01T00:00",
+            "1d | 2025-01-31T00:00 | 2025-02-01T00:00",
+            "2h | 2025-01-31T01:59 | 2025-01-31T02:00",
+            "3d | 2025-01-31T10:00 | 2025-02-02T00:00",
+            "3d | 2025-02-02T00:00 | 2025-02-05T00:00",
+            "FREQ=WEEKLY;BYDAY=FR | 2025-01-01T10:00 | 2025-01-03T00:00",
+            "FREQ=WEEKLY;BYDAY=FR | 2025-01-03T00:00 | 2025-01-10T00:00",
+            "FREQ=WEEKLY;INTERVAL=2;BYDAY=FR | 2025-01-03T09:00 | 2025-01-17T00:00",
+            "FREQ=MONTHLY;BYMONTHDAY=5 | 2025-01-04T23:59 | 2025-01-05T00:00",
+            "FREQ=MONTHLY;BYMONTHDAY=5 | 2025-01-05T00:00 | 2025-02-05T00:00",
+            "FREQ=MONTHLY;BYMONTHDAY=31 | 2025-01-31T08:00 | 2025-02-28T00:00",
+            "FREQ=MONTHLY;BYMONTHDAY=31 | 2025-02-28T08:00 | 2025-03-31T00:00",
+            "FREQ=MONTHLY;BYMONTHDAY=-1 | 2024-01-31T08:00 | 2024-02-29T00:00",
+            "FREQ=MONTHLY;INTERVAL=3;BYMONTHDAY=-1 | 2025-01-31T00:00 | 2025-04-30T00:00",
+            "FREQ=MONTHLY;BYMONTHDAY=5 | 1900-01-10T00:00 | 1900-02-05T00:00"
+    })
+    @DisplayName("next is the first occurrence strictly after the given time")
+    void next(String rule, LocalDateTime after, LocalDateTime expected) {
+        assertEquals(expected, RecurrenceRule.parse(rule).next(after));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"90s", "3d", "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO", "FREQ=MONTHLY;BYMONTHDAY=30",
+            "FREQ=MONTHLY;INTERVAL=2;BYMONTHDAY=-1"})
+    @DisplayName("Consecutive occurrences fall into consecutive periods")
+    void periodIndexAdvancesOncePerOccurrence(String text) {
+        RecurrenceRule rule = RecurrenceRule.parse(text);
+        LocalDateTime due = rule.next(LocalDateTime.of(2023, 12, 31, 12, 0));
+
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime following = rule.next(due);
+            assertEquals(rule.periodIndexOf(due) + 1, rule.periodIndexOf(following), () -> "at " + following);
+            due = following;
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "3d | 2025-01-31T10:00",
+            "3d | 2025-02-03T23:59",
+            "2h | 2025-01-31T01:59",
+            "FREQ=WEEKLY;INTERVAL=2;BYDAY=MO | 2025-01-08T10:00",
+            "FREQ=MONTHLY;INTERVAL=3;BYMONTHDAY=5 | 2025-02-20T10:00"
+    })
+    @DisplayName("next lands in the period right after the one containing the given time, however late")
+    void nextSharesTheOriginOfPeriodIndex(String text, LocalDateTime after) {
+        RecurrenceRule rule = RecurrenceRule.parse(text);
+        LocalDateTime next = rule.next(after);
+
+        assertEquals(rule.periodIndexOf(after) + 1, rule.periodIndexOf(next));
+        assertEquals(rule.startOf(rule.periodIndexOf(next)), next);
+        assertFalse(rule.startOf(rule.periodIndexOf(after)).isAfter(after));
+    }
+
+    @Test
+    @DisplayName("Repeated texts are served from the parse cache")
+    void cachesParsedRules() {
+        assertSame(RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=7"), RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=7"));
+    }
+
+    @Test
+    @DisplayName("JSON carries the canonical text")
+    void json() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;BYMONTHDAY=-1");
+
+        assertEquals("\"FREQ=MONTHLY;BYMONTHDAY=-1\"", objectMapper.writeValueAsString(rule));
+        assertEquals(rule, objectMapper.readValue("\"FREQ=MONTHLY;BYMONTHDAY=-1\"", RecurrenceRule.class));
+    }
+}
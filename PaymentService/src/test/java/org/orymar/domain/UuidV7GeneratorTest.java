@@ -0,0 +1,35 @@
+package org.orymar.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7GeneratorTest {
+
+    @Test
+    @DisplayName("Carries version 7, the RFC variant, the epoch milliseconds and the counter")
+    void layout() {
+        long millis = 1_735_689_600_123L;
+
+        UUID id = UuidV7Generator.of(millis, 0xABC);
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(millis, id.getMostSignificantBits() >>> 16);
+        assertEquals(0xABC, id.getMostSignificantBits() & 0xFFF);
+    }
+
+    @Test
+    @DisplayName("Ids issued in a row strictly increase, also within one millisecond")
+    void strictlyIncreasing() {
+        List<String> ids = Stream.generate(UuidV7Generator::next).limit(10_000).map(UUID::toString).toList();
+
+        assertEquals(ids.stream().sorted(Comparator.naturalOrder()).distinct().toList(), ids);
+    }
+}
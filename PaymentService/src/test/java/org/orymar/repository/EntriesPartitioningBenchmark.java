@@ -0,0 +1,142 @@
+package org.orymar.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.orymar.Benchmarks;
+import org.orymar.domain.EntriesHistoryFilter;
+import org.orymar.domain.EntriesPayment;
+import org.orymar.domain.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Insert and query cost of the monthly partitioned {@code entries_payment} once it holds
+ * {@code benchmark.entries} entries of {@code benchmark.payments} payments spread over the last
+ * {@value #MONTHS} months.
+ */
+@Tag(Benchmarks.TAG)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+@SpringBootTest(properties = "server.port=0")
+class EntriesPartitioningBenchmark {
+    private static final int MONTHS = 12;
+    private static final int BATCH = 500;
+    private static final String MARKER = "benchmark";
+    private static final Pattern PARTITION = Pattern.compile("entries_payment_(\\d{4}_\\d{2}|default)");
+
+    @Autowired
+    private EntriesRepository entriesRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).minusMonths(MONTHS - 1);
+    private List<UUID> payments;
+
+    @BeforeEach
+    void seed() {
+        int paymentCount = Benchmarks.size("payments", 1_000);
+        int entryCount = Benchmarks.size("entries", 1_000_000);
+        for (int month = 0; month < MONTHS; month++) {
+            jdbcTemplate.queryForList("SELECT create_entries_payment_partition(?)", firstMonth.plusMonths(month));
+        }
+        payments = jdbcTemplate.queryForList("""
+                INSERT INTO regular_payment (id, pib, ipn, iban, mfo, edrpou, beneficiary_name,
+                                             recurrence_rule, payment_amount)
+                SELECT gen_random_uuid(), ?, '123456789', 'UA123456789012345678901234567', '123456',
+                       '12345678', 'Beneficiary ' || n, '1d', 100.00
+                FROM generate_series(1, ?) n
+                RETURNING id
+                """, UUID.class, MARKER, paymentCount);
+        long startedAt = System.nanoTime();
+        jdbcTemplate.update("""
+                INSERT INTO entries_payment (id, regular_payment_id, date_of_payment, amount, status, billing_period)
+                SELECT gen_random_uuid(), p.ids[1 + n % cardinality(p.ids)],
+                       ?::timestamp + (n::double precision / ? * ?) * interval '1 day', 100.00, 'A', n
+                FROM generate_series(1, ?) n,
+                     (SELECT array_agg(id) AS ids FROM regular_payment WHERE pib = ?) p
+                """, firstMonth.atStartOfDay(), entryCount, MONTHS * 30, entryCount, MARKER);
+        jdbcTemplate.execute("ANALYZE entries_payment");
+        Benchmarks.report("entries_payment: %,d entries of %,d payments seeded in %.1f s",
+                entryCount, paymentCount, (System.nanoTime() - startedAt) / 1e9);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM entries_payment WHERE regular_payment_id IN "
+                + "(SELECT id FROM regular_payment WHERE pib = ?)", MARKER);
+        jdbcTemplate.update("DELETE FROM regular_payment WHERE pib = ?", MARKER);
+    }
+
+    @Test
+    @DisplayName("Partitioning - write-off inserts, one month of history and lookups by id")
+    void insertAndQuery() {
+        LocalDateTime month = firstMonth.plusMonths(MONTHS / 2).atStartOfDay();
+        EntriesHistoryFilter filter = new EntriesHistoryFilter(payments.get(0), month, month.plusMonths(1), null);
+        String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT id FROM entries_payment WHERE regular_payment_id = ? "
+                        + "AND date_of_payment >= ? AND date_of_payment < ?",
+                String.class, filter.regularPaymentId(), filter.from(), filter.to()));
+        assertEquals(1, PARTITION.matcher(plan).results().map(MatchResult::group).distinct().count(), plan);
+
+        int rounds = Benchmarks.size("rounds", 200);
+        List<UUID> ids = new ArrayList<>(rounds);
+        long startedAt = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            List<EntriesPayment> batch = batch(round);
+            assertEquals(BATCH, entriesRepository.insertAllIfAbsent(batch).size());
+            ids.add(batch.get(0).getId());
+        }
+        long insertNanos = System.nanoTime() - startedAt;
+
+        startedAt = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            UUID payment = payments.get(random.nextInt(payments.size()));
+            entriesRepository.findHistory(new EntriesHistoryFilter(payment, month, month.plusMonths(1), null), null, 100);
+        }
+        long historyNanos = System.nanoTime() - startedAt;
+
+        startedAt = System.nanoTime();
+        for (UUID id : ids) {
+            assertTrue(entriesRepository.findViewById(id).isPresent());
+        }
+        long lookupNanos = System.nanoTime() - startedAt;
+
+        Benchmarks.report("insert of %d entries per statement batch: %,.1f us per entry",
+                BATCH, insertNanos / 1e3 / rounds / BATCH);
+        Benchmarks.report("history of one payment over one month (1 partition scanned): %,.0f us per page",
+                historyNanos / 1e3 / rounds);
+        Benchmarks.report("lookup by id alone (probes every partition): %,.0f us", lookupNanos / 1e3 / rounds);
+    }
+
+    private List<EntriesPayment> batch(int round) {
+        List<EntriesPayment> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            EntriesPayment entry = new EntriesPayment();
+            entry.setId(UUID.randomUUID());
+            entry.setRegularPaymentId(payments.get(random.nextInt(payments.size())));
+            entry.setDateOfPayment(LocalDateTime.now());
+            entry.setAmount(Money.of("100.00"));
+            entry.setStatus('A');
+            entry.setBillingPeriod(-1L - (long) round * BATCH - i);
+            batch.add(entry);
+        }
+        return batch;
+    }
+}
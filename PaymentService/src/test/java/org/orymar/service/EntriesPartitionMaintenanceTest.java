@@ -0,0 +1,63 @@
+package org.orymar.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.orymar.repository.EntriesPartitionRepository;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.YearMonth;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class EntriesPartitionMaintenanceTest {
+
+    @Mock
+    private EntriesPartitionRepository partitionRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Creates the current month and the configured months ahead across a year boundary")
+    void createsMonthsAhead() {
+        new EntriesPartitionMaintenance(partitionRepository, meterRegistry, 2)
+                .createPartitionsFrom(YearMonth.of(2025, 12));
+
+        InOrder inOrder = inOrder(partitionRepository);
+        inOrder.verify(partitionRepository).createMonthlyPartition(YearMonth.of(2025, 12));
+        inOrder.verify(partitionRepository).createMonthlyPartition(YearMonth.of(2026, 1));
+        inOrder.verify(partitionRepository).createMonthlyPartition(YearMonth.of(2026, 2));
+        verifyNoMoreInteractions(partitionRepository);
+        assertEquals(0, meterRegistry.counter(EntriesPartitionMaintenance.FAILURES_METRIC).count());
+    }
+
+    @Test
+    @DisplayName("A failing month is counted and does not stop the following ones")
+    void continuesAfterFailure() {
+        doThrow(new DataAccessResourceFailureException("lock timeout"))
+                .when(partitionRepository).createMonthlyPartition(YearMonth.of(2025, 1));
+
+        new EntriesPartitionMaintenance(partitionRepository, meterRegistry, 1).createPartitionsFrom(YearMonth.of(2025, 1));
+
+        verify(partitionRepository).createMonthlyPartition(YearMonth.of(2025, 2));
+        assertEquals(1, meterRegistry.counter(EntriesPartitionMaintenance.FAILURES_METRIC).count());
+    }
+
+    @Test
+    @DisplayName("Negative months ahead is rejected")
+    void rejectsNegativeMonthsAhead() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new EntriesPartitionMaintenance(partitionRepository, meterRegistry, -1));
+    }
+}
@@ -7,21 +7,34 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.orymar.domain.EntriesCursor;
+import org.orymar.domain.EntriesHistoryFilter;
+import org.orymar.domain.EntryCreationResult;
+import org.orymar.domain.EntryUpdate;
 import org.orymar.domain.EntriesPayment;
+import org.orymar.domain.LedgerDelta;
 import org.orymar.domain.RegularPayment;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
+import org.orymar.domain.dto.OutputPaymentLedgerSummaryResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
 import org.orymar.repository.EntriesRepository;
+import org.orymar.repository.PaymentLedgerSummaryRepository;
 import org.orymar.repository.RegularRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
 
-import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,10 +47,20 @@ class EntriesServiceTest {
     @Mock
     private RegularRepository regularRepository;
 
+    @Mock
+    private PaymentLedgerSummaryRepository ledgerRepository;
+
+    @Mock
+    private RegularService regularService;
+
+    @Mock
+    private RegularPaymentCache regularPaymentCache;
+
     @InjectMocks
     private EntriesService entriesService;
 
     private EntriesPayment entry;
+    private RegularPayment regularPayment;
     private UUID entryId;
     private UUID regularPaymentId;
 
@@ -51,38 +74,285 @@ class EntriesServiceTest {
         entry = new EntriesPayment();
         entry.setId(entryId);
         entry.setRegularPaymentId(regularPaymentId);
-        entry.setAmount(BigDecimal.valueOf(100));
+        entry.setAmount(Money.of("100"));
         entry.setStatus('A');
         entry.setDateOfPayment(LocalDateTime.now().minusDays(1));
+
+        regularPayment = new RegularPayment();
+        regularPayment.setId(regularPaymentId);
+        regularPayment.setDebitPeriod(RecurrenceRule.parse("1d"));
+
+        when(entriesRepository.insertAllIfAbsent(anyList())).thenAnswer(invocation ->
+                invocation.<List<EntriesPayment>>getArgument(0).stream()
+                        .map(EntriesPayment::getId)
+                        .collect(Collectors.toSet()));
     }
 
     @Test
     @DisplayName("Should create entry")
     void createEntryTest() {
-        when(entriesRepository.save(entry)).thenReturn(entry);
-        EntriesPayment created = entriesService.create(entry);
-        assertEquals(entry, created);
-        verify(entriesRepository).save(entry);
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        EntryCreationResult result = entriesService.create(entry);
+        assertTrue(result.created());
+        assertEquals(entry, result.entry());
+        assertEquals(7, entry.getId().version());
+        verify(entriesRepository).insertAllIfAbsent(List.of(entry));
+        verify(ledgerRepository).applyAll(List.of(new LedgerDelta(regularPaymentId,
+                1, Money.of("100"), 0, Money.ZERO, entry.getDateOfPayment())));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "2025-03-10T00:00:00, , 20157",
+            "2025-03-10T23:59:59, , 20157",
+            "2025-03-11T00:00:00, , 20158",
+            "2025-03-11T08:00:00, 2025-03-10T23:00:00, 20157"
+    })
+    @DisplayName("Billing period is the day index of the settled due date, or of the payment date without one")
+    void createEntryAssignsBillingPeriod(LocalDateTime dateOfPayment, LocalDateTime dueAt, long billingPeriod) {
+        entry.setDateOfPayment(dateOfPayment);
+        entry.setDueAt(dueAt);
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+
+        entriesService.create(entry);
+
+        assertEquals(billingPeriod, entry.getBillingPeriod());
+    }
+
+    @Test
+    @DisplayName("Creating a second entry for a booked period returns the booked entry and keeps the schedule")
+    void createDuplicateEntryReturnsExisting() {
+        EntriesPayment existing = new EntriesPayment();
+        LocalDateTime nextDueAt = entry.getDateOfPayment().plusHours(1);
+        regularPayment.setNextDueAt(nextDueAt);
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        when(entriesRepository.insertAllIfAbsent(anyList())).thenReturn(Set.of());
+        when(entriesRepository.findClaimed(List.of(entry))).thenReturn(List.of(existing));
+
+        EntryCreationResult result = entriesService.create(entry);
+
+        assertFalse(result.created());
+        assertSame(existing, result.entry());
+        verify(ledgerRepository, never()).applyAll(any());
+        verify(regularRepository, never()).markPaid(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("A duplicate whose period was released before it could be read is a conflict")
+    void createDuplicateOfReleasedPeriodConflicts() {
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        when(entriesRepository.insertAllIfAbsent(anyList())).thenReturn(Set.of());
+        when(entriesRepository.findClaimed(anyList())).thenReturn(List.of());
+
+        assertThrows(OptimisticLockingFailureException.class, () -> entriesService.create(entry));
+        verify(ledgerRepository, never()).applyAll(any());
+    }
+
+    @Test
+    @DisplayName("Creating an active entry moves the payment schedule forward")
+    void createEntryReschedulesPayment() {
+        regularPayment.setLastPaidAt(entry.getDateOfPayment().minusDays(1));
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        when(regularRepository.markPaid(any(), any(), any())).thenReturn(true);
+
+        entriesService.create(entry);
+
+        verify(regularRepository).markPaid(regularPaymentId,
+                entry.getDateOfPayment(), nextDay(entry.getDateOfPayment()));
+        verify(regularPaymentCache).evict(regularPayment);
+    }
+
+    @Test
+    @DisplayName("The payments are locked against the purger before they are read and booked")
+    void createLocksPaymentsBeforeBooking() {
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        when(regularRepository.findAllById(anySet())).thenReturn(List.of(regularPayment));
+
+        entriesService.create(entry);
+        entriesService.createAll(List.of(entry));
+
+        InOrder inOrder = inOrder(regularRepository, entriesRepository);
+        inOrder.verify(regularRepository).lockForBooking(List.of(regularPaymentId));
+        inOrder.verify(regularRepository).findById(regularPaymentId);
+        inOrder.verify(entriesRepository).insertAllIfAbsent(anyList());
+        inOrder.verify(regularRepository).lockForBooking(Set.of(regularPaymentId));
+        inOrder.verify(regularRepository).findAllById(anySet());
+        inOrder.verify(entriesRepository).insertAllIfAbsent(anyList());
+    }
+
+    @Test
+    @DisplayName("Creating an older entry keeps the later schedule")
+    void createOlderEntryKeepsSchedule() {
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        when(regularRepository.markPaid(any(), any(), any())).thenReturn(false);
+
+        entriesService.create(entry);
+
+        verifyNoInteractions(regularPaymentCache);
+    }
+
+    @Test
+    @DisplayName("Creating an active entry for an unknown payment throws EntityNotFoundException")
+    void createEntryForUnknownPaymentThrows() {
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class, () -> entriesService.create(entry));
+    }
+
+    @Test
+    @DisplayName("Batch create saves the accepted entries and reports the rejected ones by position")
+    void createAllReportsRejectedEntries() {
+        EntriesPayment invalidStatus = new EntriesPayment();
+        invalidStatus.setRegularPaymentId(regularPaymentId);
+        invalidStatus.setStatus('X');
+        EntriesPayment unknownPayment = new EntriesPayment();
+        unknownPayment.setRegularPaymentId(UUID.randomUUID());
+        unknownPayment.setStatus('A');
+        when(regularRepository.findAllById(anySet())).thenReturn(List.of(regularPayment));
+
+        List<EntryCreationResult> results = entriesService.createAll(List.of(invalidStatus, entry, unknownPayment));
+
+        assertEquals(3, results.size());
+        assertNotNull(results.get(0).error());
+        assertSame(entry, results.get(1).entry());
+        assertNull(results.get(1).error());
+        assertTrue(results.get(2).error().contains(unknownPayment.getRegularPaymentId().toString()));
+        verify(entriesRepository).insertAllIfAbsent(List.of(entry));
+        verify(regularRepository, never()).findById(any());
+        verify(regularRepository).markPaid(regularPaymentId,
+                entry.getDateOfPayment(), nextDay(entry.getDateOfPayment()));
+    }
+
+    @Test
+    @DisplayName("Batch create moves each schedule once by a guarded update, leaving the loaded payments "
+            + "untouched so a concurrent edit of them cannot fail the batch")
+    void createAllReschedulesWithoutTouchingLoadedPayments() {
+        LocalDateTime lastPaidAt = entry.getDateOfPayment().minusDays(1);
+        regularPayment.setLastPaidAt(lastPaidAt);
+        regularPayment.setNextDueAt(lastPaidAt.plusDays(1));
+        regularPayment.setVersion(3L);
+        EntriesPayment later = new EntriesPayment();
+        later.setRegularPaymentId(regularPaymentId);
+        later.setDateOfPayment(entry.getDateOfPayment().plusDays(2));
+        later.setAmount(Money.of("50"));
+        later.setStatus('A');
+        when(regularRepository.findAllById(anySet())).thenReturn(List.of(regularPayment));
+        when(regularRepository.markPaid(any(), any(), any())).thenReturn(true);
+
+        entriesService.createAll(List.of(later, entry));
+
+        verify(regularRepository).markPaid(regularPaymentId,
+                later.getDateOfPayment(), nextDay(later.getDateOfPayment()));
+        verify(regularRepository, times(1)).markPaid(any(), any(), any());
+        verify(regularRepository, never()).save(any());
+        assertEquals(lastPaidAt, regularPayment.getLastPaidAt());
+        assertEquals(lastPaidAt.plusDays(1), regularPayment.getNextDueAt());
+        assertEquals(3L, regularPayment.getVersion());
+        verify(regularPaymentCache).evict(regularPayment);
+    }
+
+    @Test
+    @DisplayName("Batch create reports entries of booked periods as not created")
+    void createAllReportsDuplicates() {
+        EntriesPayment second = new EntriesPayment();
+        second.setRegularPaymentId(regularPaymentId);
+        second.setDateOfPayment(entry.getDateOfPayment());
+        second.setStatus('A');
+        when(regularRepository.findAllById(anySet())).thenReturn(List.of(regularPayment));
+        when(entriesRepository.insertAllIfAbsent(anyList()))
+                .thenAnswer(invocation -> Set.of(invocation.<List<EntriesPayment>>getArgument(0).get(0).getId()));
+        when(entriesRepository.findClaimed(anyList())).thenReturn(List.of(entry));
+
+        List<EntryCreationResult> results = entriesService.createAll(List.of(entry, second));
+
+        assertTrue(results.get(0).created());
+        assertFalse(results.get(1).created());
+        assertNull(results.get(1).error());
+        assertSame(entry, results.get(1).entry());
+        assertEquals(entry.getBillingPeriod(), second.getBillingPeriod());
+        verify(entriesRepository).findClaimed(List.of(second));
+    }
+
+    @Test
+    @DisplayName("Batch create reports a duplicate whose period was released as an error")
+    void createAllReportsReleasedPeriod() {
+        when(regularRepository.findAllById(anySet())).thenReturn(List.of(regularPayment));
+        when(entriesRepository.insertAllIfAbsent(anyList())).thenReturn(Set.of());
+        when(entriesRepository.findClaimed(anyList())).thenReturn(List.of());
+
+        List<EntryCreationResult> results = entriesService.createAll(List.of(entry));
+
+        assertFalse(results.get(0).created());
+        assertNull(results.get(0).entry());
+        assertNotNull(results.get(0).error());
+    }
+
+    @Test
+    @DisplayName("Batch create adds one ledger delta per regular payment")
+    void createAllMergesLedgerDeltas() {
+        EntriesPayment second = new EntriesPayment();
+        second.setRegularPaymentId(regularPaymentId);
+        second.setDateOfPayment(entry.getDateOfPayment().plusDays(2));
+        second.setAmount(Money.of("50"));
+        second.setStatus('A');
+        when(regularRepository.findAllById(anySet())).thenReturn(List.of(regularPayment));
+
+        entriesService.createAll(List.of(entry, second));
+
+        verify(ledgerRepository).applyAll(argThat(deltas -> deltas.size() == 1 && deltas.contains(new LedgerDelta(
+                regularPaymentId, 2, Money.of("150"), 0, Money.ZERO, second.getDateOfPayment()))));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"true, true", "false, true", "false, false"})
+    @DisplayName("Ledger summary of a payment without entries is empty, of an unknown payment absent")
+    void getLedgerSummary(boolean hasRow, boolean paymentExists) {
+        OutputPaymentLedgerSummaryResponseDTO stored = new OutputPaymentLedgerSummaryResponseDTO(
+                regularPaymentId, 3, Money.of("10"), 0, Money.ZERO, entry.getDateOfPayment());
+        when(ledgerRepository.findViewById(regularPaymentId)).thenReturn(hasRow ? Optional.of(stored) : Optional.empty());
+        when(regularRepository.existsById(regularPaymentId)).thenReturn(paymentExists);
+
+        Optional<OutputPaymentLedgerSummaryResponseDTO> summary = entriesService.getLedgerSummary(regularPaymentId);
+
+        assertEquals(paymentExists, summary.isPresent());
+        summary.ifPresent(value -> assertEquals(hasRow ? 3 : 0, value.activeCount()));
     }
 
     @Test
     @DisplayName("Should get entry by ID")
     void getByIdTest() {
-        when(entriesRepository.findById(entryId)).thenReturn(Optional.of(entry));
-        Optional<EntriesPayment> result = entriesService.getById(entryId);
-        assertTrue(result.isPresent());
-        assertEquals(entry, result.get());
+        OutputEntriesPaymentResponseDTO view = new OutputEntriesPaymentResponseDTO(
+                entryId, regularPaymentId, entry.getDateOfPayment(), entry.getAmount(), 'A', 0);
+        when(entriesRepository.findViewById(entryId)).thenReturn(Optional.of(view));
+        Optional<OutputEntriesPaymentResponseDTO> result = entriesService.getById(entryId);
+        assertEquals(Optional.of(view), result);
+        verify(entriesRepository, never()).findById(any());
     }
 
     @Test
     @DisplayName("Update should throw EntityNotFoundException if entry not found")
     void updateThrowsEntityNotFound() {
-        when(entriesRepository.findById(entryId)).thenReturn(Optional.empty());
+        when(entriesRepository.update(entryId, Money.of("10"), 'A', null)).thenReturn(Optional.empty());
         EntriesPayment updated = new EntriesPayment();
-        updated.setAmount(BigDecimal.TEN);
+        updated.setAmount(Money.of("10"));
         updated.setStatus('A');
 
         assertThrows(EntityNotFoundException.class, () -> entriesService.update(entryId, updated));
+        verify(entriesRepository, never()).existsById(any());
+    }
+
+    @Test
+    @DisplayName("Update based on a stale version is a conflict and changes nothing")
+    void updateStaleVersionConflicts() {
+        when(entriesRepository.update(entryId, Money.of("10"), 'A', 3L)).thenReturn(Optional.empty());
+        when(entriesRepository.existsById(entryId)).thenReturn(true);
+        EntriesPayment updated = new EntriesPayment();
+        updated.setAmount(Money.of("10"));
+        updated.setStatus('A');
+        updated.setVersion(3L);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> entriesService.update(entryId, updated));
+        verifyNoInteractions(ledgerRepository, regularRepository);
     }
 
     @ParameterizedTest
@@ -90,67 +360,176 @@ class EntriesServiceTest {
     @DisplayName("Update status with valid values should pass")
     void updateStatusValid(char status) {
         entry.setStatus('A');
-        when(entriesRepository.findById(entryId)).thenReturn(Optional.of(entry));
-        when(entriesRepository.save(entry)).thenReturn(entry);
+        givenUpdate(null, status, 1L);
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
 
-        EntriesPayment updated = entriesService.updateStatus(entryId, status);
+        EntriesPayment updated = entriesService.updateStatus(entryId, status, 1L);
 
         assertEquals(status, updated.getStatus());
+        assertEquals(2L, updated.getVersion());
+        verify(entriesRepository, never()).findById(any());
     }
 
     @ParameterizedTest
     @ValueSource(chars = {'X', 'B', ' '})
     @DisplayName("Update status with invalid values should throw IllegalArgumentException")
     void updateStatusInvalid(char status) {
-        when(entriesRepository.findById(entryId)).thenReturn(Optional.of(entry));
-        assertThrows(IllegalArgumentException.class, () -> entriesService.updateStatus(entryId, status));
+        assertThrows(IllegalArgumentException.class, () -> entriesService.updateStatus(entryId, status, null));
+        verifyNoInteractions(entriesRepository);
+    }
+
+    @Test
+    @DisplayName("Storno of the latest entry reschedules from the previous active entry")
+    void stornoLatestEntryReschedules() {
+        LocalDateTime previous = entry.getDateOfPayment().minusDays(3);
+        regularPayment.setLastPaidAt(entry.getDateOfPayment());
+        givenUpdate(null, 'S', null);
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        when(entriesRepository.findLastPaymentDate(regularPaymentId, 'A')).thenReturn(previous);
+        when(regularRepository.unmarkPaid(any(), any(), any(), any())).thenReturn(true);
+
+        entriesService.updateStatus(entryId, 'S', null);
+
+        verify(regularRepository).unmarkPaid(regularPaymentId, entry.getDateOfPayment(),
+                previous, nextDay(previous));
+        verify(ledgerRepository).updateLastPaymentAt(regularPaymentId, previous);
+    }
+
+    @Test
+    @DisplayName("Storno moves the entry from the active to the storno totals of the ledger")
+    void stornoUpdatesLedger() {
+        regularPayment.setLastPaidAt(entry.getDateOfPayment().plusDays(1));
+        givenUpdate(null, 'S', null);
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+
+        entriesService.updateStatus(entryId, 'S', null);
+
+        verify(ledgerRepository).applyAll(List.of(new LedgerDelta(regularPaymentId,
+                -1, Money.of("-100"), 1, Money.of("100"), null)));
+        verify(ledgerRepository, never()).updateLastPaymentAt(any(), any());
+    }
+
+    @Test
+    @DisplayName("Storno of an older entry does not query the history")
+    void stornoOlderEntryKeepsSchedule() {
+        LocalDateTime lastPaidAt = entry.getDateOfPayment().plusDays(1);
+        regularPayment.setLastPaidAt(lastPaidAt);
+        regularPayment.setNextDueAt(lastPaidAt.plusDays(1));
+        givenUpdate(null, 'S', null);
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+
+        entriesService.updateStatus(entryId, 'S', null);
+
+        verify(entriesRepository, never()).findLastPaymentDate(any(), anyChar());
+        verify(regularRepository, never()).unmarkPaid(any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Bulk storno books the ledger per payment and reschedules it once")
+    void bulkStornoReschedulesOnce() {
+        LocalDateTime latest = entry.getDateOfPayment();
+        LocalDateTime previous = latest.minusDays(5);
+        regularPayment.setLastPaidAt(latest);
+        EntriesPayment older = new EntriesPayment();
+        older.setRegularPaymentId(regularPaymentId);
+        older.setDateOfPayment(latest.minusDays(1));
+        older.setAmount(Money.of("50"));
+        older.setStatus('A');
+        EntriesHistoryFilter filter = new EntriesHistoryFilter(regularPaymentId, previous.plusDays(1), null, null);
+        when(entriesRepository.updateStatus(filter, 'S', 1000))
+                .thenReturn(List.of(stornoOf(entry), stornoOf(older)));
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        when(entriesRepository.findLastPaymentDate(regularPaymentId, 'A')).thenReturn(previous);
+        when(regularRepository.unmarkPaid(any(), any(), any(), any())).thenReturn(true);
+
+        assertEquals(2, entriesService.updateStatuses(filter, 'S', 1000));
+
+        verify(ledgerRepository).applyAll(argThat(deltas -> deltas.size() == 1 && deltas.contains(new LedgerDelta(
+                regularPaymentId, -2, Money.of("-150"), 2, Money.of("150"), null))));
+        verify(entriesRepository, times(1)).findLastPaymentDate(regularPaymentId, 'A');
+        verify(regularRepository).unmarkPaid(regularPaymentId, latest, previous, nextDay(previous));
+        verify(ledgerRepository).updateLastPaymentAt(regularPaymentId, previous);
+    }
+
+    @Test
+    @DisplayName("Bulk status with an invalid status changes nothing")
+    void bulkStatusInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> entriesService.updateStatuses(List.of(entryId), 'X'));
+        verifyNoInteractions(entriesRepository, ledgerRepository);
     }
 
     @Test
     @DisplayName("Delete entry")
     void deleteEntryTest() {
-        doNothing().when(entriesRepository).deleteById(entryId);
+        when(entriesRepository.findById(entryId)).thenReturn(Optional.of(entry));
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
         entriesService.delete(entryId);
-        verify(entriesRepository).deleteById(entryId);
+        verify(entriesRepository).delete(entry);
+    }
+
+    @Test
+    @DisplayName("Delete of the only active entry makes the payment due again")
+    void deleteOnlyEntryMakesPaymentDue() {
+        regularPayment.setLastPaidAt(entry.getDateOfPayment());
+        regularPayment.setNextDueAt(entry.getDateOfPayment().plusDays(1));
+        when(entriesRepository.findById(entryId)).thenReturn(Optional.of(entry));
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
+        when(entriesRepository.findLastPaymentDate(regularPaymentId, 'A')).thenReturn(null);
+        when(regularRepository.unmarkPaid(any(), any(), any(), any())).thenReturn(true);
+
+        entriesService.delete(entryId);
+
+        verify(regularRepository).unmarkPaid(eq(regularPaymentId), eq(entry.getDateOfPayment()), isNull(),
+                argThat(nextDueAt -> !nextDueAt.isAfter(LocalDateTime.now())));
+        verify(ledgerRepository).updateLastPaymentAt(regularPaymentId, null);
     }
 
     @Test
     @DisplayName("Get entries by payment ID")
     void getEntriesByPaymentIdTest() {
-        List<EntriesPayment> list = List.of(entry);
-        when(entriesRepository.findAllByRegularPaymentId(regularPaymentId)).thenReturn(list);
-        List<EntriesPayment> result = entriesService.getEntriesByPaymentId(regularPaymentId);
+        List<OutputEntriesPaymentResponseDTO> list = List.of(new OutputEntriesPaymentResponseDTO(
+                entryId, regularPaymentId, entry.getDateOfPayment(), entry.getAmount(), 'A', 0));
+        EntriesHistoryFilter filter = new EntriesHistoryFilter(regularPaymentId,
+                entry.getDateOfPayment().minusDays(1), entry.getDateOfPayment().plusDays(1), 'A');
+        EntriesCursor after = new EntriesCursor(entry.getDateOfPayment().minusHours(1), UUID.randomUUID());
+        when(entriesRepository.findHistory(filter, after, 100)).thenReturn(list);
+        List<OutputEntriesPaymentResponseDTO> result = entriesService.getEntriesByPaymentId(filter, after, 100);
         assertEquals(list, result);
     }
 
     @Test
-    @DisplayName("isWriteOffNeeded returns true if no entries")
+    @DisplayName("Get entries by payment ID - rejects an invalid filter")
+    void getEntriesByPaymentIdInvalidFilter() {
+        LocalDateTime at = entry.getDateOfPayment();
+        assertThrows(IllegalArgumentException.class, () -> entriesService.getEntriesByPaymentId(
+                new EntriesHistoryFilter(regularPaymentId, null, null, 'X'), null, 100));
+        assertThrows(IllegalArgumentException.class, () -> entriesService.getEntriesByPaymentId(
+                new EntriesHistoryFilter(regularPaymentId, at, at, null), null, 100));
+        verifyNoInteractions(entriesRepository);
+    }
+
+    @Test
+    @DisplayName("isWriteOffNeeded returns true if no schedule yet")
     void isWriteOffNeededNoEntries() {
-        RegularPayment regularPayment = new RegularPayment();
-        regularPayment.setDebitPeriod(Duration.ofDays(1));
-        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
-        when(entriesRepository.findAllByRegularPaymentId(regularPaymentId)).thenReturn(Collections.emptyList());
+        when(regularService.getPaymentById(regularPaymentId)).thenReturn(Optional.of(view(regularPayment)));
 
         assertTrue(entriesService.isWriteOffNeeded(regularPaymentId));
+        verifyNoInteractions(entriesRepository, regularRepository);
     }
 
     @Test
     @DisplayName("isWriteOffNeeded throws IllegalArgumentException if regular payment not found")
     void isWriteOffNeededThrowsIfNotFound() {
-        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.empty());
+        when(regularService.getPaymentById(regularPaymentId)).thenReturn(Optional.empty());
         assertThrows(IllegalArgumentException.class, () -> entriesService.isWriteOffNeeded(regularPaymentId));
     }
 
     @Test
     @DisplayName("isWriteOffNeeded returns true if next payment date is passed")
     void isWriteOffNeededNextDatePassed() {
-        RegularPayment regularPayment = new RegularPayment();
-        regularPayment.setDebitPeriod(Duration.ofDays(1));
-        LocalDateTime lastDate = LocalDateTime.now().minusDays(2);
-        entry.setDateOfPayment(lastDate);
+        regularPayment.setNextDueAt(LocalDateTime.now().minusDays(1));
 
-        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
-        when(entriesRepository.findAllByRegularPaymentId(regularPaymentId)).thenReturn(List.of(entry));
+        when(regularService.getPaymentById(regularPaymentId)).thenReturn(Optional.of(view(regularPayment)));
 
         assertTrue(entriesService.isWriteOffNeeded(regularPaymentId));
     }
@@ -158,39 +537,68 @@ class EntriesServiceTest {
     @DisplayName("Update should correctly change amount and status")
     void updateChangesAmountAndStatus() {
         EntriesPayment updated = new EntriesPayment();
-        updated.setAmount(BigDecimal.valueOf(500));
+        updated.setAmount(Money.of("500"));
         updated.setStatus('S');
 
-        when(entriesRepository.findById(entryId)).thenReturn(Optional.of(entry));
-        when(entriesRepository.save(entry)).thenReturn(entry);
+        givenUpdate(Money.of("500"), 'S', null);
+        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
 
         EntriesPayment result = entriesService.update(entryId, updated);
 
-        assertEquals(BigDecimal.valueOf(500), result.getAmount());
+        assertEquals(Money.of("500"), result.getAmount());
         assertEquals('S', result.getStatus());
-        verify(entriesRepository).save(entry);
+        verify(ledgerRepository).applyAll(List.of(new LedgerDelta(regularPaymentId,
+                -1, Money.of("-100"), 1, Money.of("500"), null)));
+        verify(entriesRepository, never()).save(any());
     }
 
     @Test
     @DisplayName("validateStatus should throw exception for invalid status")
     void validateStatusThrowsForInvalid() {
         char invalidStatus = 'X';
-        when(entriesRepository.findById(entryId)).thenReturn(Optional.of(entry));
 
-        assertThrows(IllegalArgumentException.class, () -> entriesService.updateStatus(entryId, invalidStatus));
+        assertThrows(IllegalArgumentException.class, () -> entriesService.updateStatus(entryId, invalidStatus, null));
     }
     @Test
     @DisplayName("isWriteOffNeeded returns false if next payment date not passed")
     void isWriteOffNeededNextDateNotPassed() {
-        RegularPayment regularPayment = new RegularPayment();
-        regularPayment.setDebitPeriod(Duration.ofDays(2));
+        regularPayment.setNextDueAt(LocalDateTime.now().plusDays(1));
 
-        LocalDateTime lastDate = LocalDateTime.now().minusDays(1);
-        entry.setDateOfPayment(lastDate);
-
-        when(regularRepository.findById(regularPaymentId)).thenReturn(Optional.of(regularPayment));
-        when(entriesRepository.findAllByRegularPaymentId(regularPaymentId)).thenReturn(List.of(entry));
+        when(regularService.getPaymentById(regularPaymentId)).thenReturn(Optional.of(view(regularPayment)));
 
         assertFalse(entriesService.isWriteOffNeeded(regularPaymentId));
     }
-}
\ No newline at end of file
+
+    /** Next due date of the daily test payment: the start of the following day. */
+    private static LocalDateTime nextDay(LocalDateTime paidAt) {
+        return paidAt.toLocalDate().plusDays(1).atStartOfDay();
+    }
+
+    private static EntryUpdate stornoOf(EntriesPayment entry) {
+        EntriesPayment current = new EntriesPayment();
+        current.setRegularPaymentId(entry.getRegularPaymentId());
+        current.setDateOfPayment(entry.getDateOfPayment());
+        current.setAmount(entry.getAmount());
+        current.setStatus('S');
+        return new EntryUpdate(entry, current);
+    }
+
+    /** Lets the repository update {@link #entry} to {@code amount} (when set) and {@code status}. */
+    private void givenUpdate(Money amount, char status, Long expectedVersion) {
+        EntriesPayment current = new EntriesPayment();
+        current.setId(entryId);
+        current.setRegularPaymentId(regularPaymentId);
+        current.setDateOfPayment(entry.getDateOfPayment());
+        current.setAmount(amount == null ? entry.getAmount() : amount);
+        current.setStatus(status);
+        current.setVersion(Objects.requireNonNullElse(expectedVersion, 0L) + 1);
+        when(entriesRepository.update(entryId, amount, status, expectedVersion))
+                .thenReturn(Optional.of(new EntryUpdate(entry, current)));
+    }
+
+    private static OutputRegularPaymentResponseDTO view(RegularPayment payment) {
+        return new OutputRegularPaymentResponseDTO(payment.getId(), payment.getPIB(), payment.getIPN(),
+                payment.getIBAN(), payment.getMFO(), payment.getEDRPOU(), payment.getBeneficiaryName(),
+                payment.getDebitPeriod(), payment.getPaymentAmount(), payment.getNextDueAt(), 0);
+    }
+}
@@ -0,0 +1,56 @@
+package org.orymar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.orymar.config.CacheConfig;
+import org.orymar.domain.RegularPayment;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegularPaymentCacheTest {
+
+    private CacheManager cacheManager;
+    private RegularPaymentCache cache;
+    private RegularPayment payment;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CacheConfig().cacheManager("maximumSize=100,recordStats");
+        cache = new RegularPaymentCache(cacheManager);
+
+        payment = new RegularPayment();
+        payment.setId(UUID.randomUUID());
+        payment.setIPN("1234567890");
+        payment.setEDRPOU("12345678");
+    }
+
+    @Test
+    @DisplayName("Evict drops the payment from every lookup it is cached under")
+    void evictDropsAllKeys() {
+        cacheManager.getCache(CacheConfig.REGULAR_PAYMENTS_BY_ID).put(payment.getId(), Optional.of(payment));
+        cacheManager.getCache(CacheConfig.REGULAR_PAYMENTS_BY_IPN).put("1234567890", List.of(payment));
+        cacheManager.getCache(CacheConfig.REGULAR_PAYMENTS_BY_EDRPOU).put("12345678", List.of(payment));
+        cacheManager.getCache(CacheConfig.REGULAR_PAYMENTS_BY_IPN).put("0000000000", List.of());
+
+        cache.evict(payment);
+
+        assertNull(cacheManager.getCache(CacheConfig.REGULAR_PAYMENTS_BY_ID).get(payment.getId()));
+        assertNull(cacheManager.getCache(CacheConfig.REGULAR_PAYMENTS_BY_IPN).get("1234567890"));
+        assertNull(cacheManager.getCache(CacheConfig.REGULAR_PAYMENTS_BY_EDRPOU).get("12345678"));
+        assertNotNull(cacheManager.getCache(CacheConfig.REGULAR_PAYMENTS_BY_IPN).get("0000000000"));
+    }
+
+    @Test
+    @DisplayName("Evict skips lookups the payment has no key for")
+    void evictSkipsMissingKeys() {
+        payment.setEDRPOU(null);
+
+        assertDoesNotThrow(() -> cache.evict(payment));
+    }
+}
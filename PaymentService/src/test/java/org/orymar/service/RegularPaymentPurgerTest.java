@@ -0,0 +1,89 @@
+package org.orymar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.orymar.repository.RegularPaymentPurgeRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RegularPaymentPurgerTest {
+
+    private final UUID paymentId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Mock
+    private RegularPaymentPurgeRepository purgeRepository;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @DisplayName("Entries are deleted in chunks until a short one, then the payment goes")
+    void purgesInChunks() {
+        when(purgeRepository.findDeleted(anyInt())).thenReturn(List.of(paymentId));
+        when(purgeRepository.deleteEntries(paymentId, 2)).thenReturn(2, 2, 1);
+        when(purgeRepository.deletePayment(paymentId)).thenReturn(true);
+
+        new RegularPaymentPurger(purgeRepository, 2, 0, 1000).purgeDeleted();
+
+        InOrder inOrder = inOrder(purgeRepository);
+        inOrder.verify(purgeRepository, times(3)).deleteEntries(paymentId, 2);
+        inOrder.verify(purgeRepository).deletePayment(paymentId);
+    }
+
+    @Test
+    @DisplayName("A payment that got entries back is kept and the run moves on")
+    void keepsPaymentWithNewEntries() {
+        UUID next = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        when(purgeRepository.findDeleted(anyInt())).thenReturn(List.of(paymentId, next));
+        when(purgeRepository.deletePayment(paymentId)).thenReturn(false);
+        when(purgeRepository.deletePayment(next)).thenReturn(true);
+
+        new RegularPaymentPurger(purgeRepository, 2, 0, 1000).purgeDeleted();
+
+        verify(purgeRepository).deletePayment(paymentId);
+        verify(purgeRepository).deletePayment(next);
+    }
+
+    @Test
+    @DisplayName("An interrupted purge leaves the payment for the next run")
+    void stopsWhenInterrupted() {
+        when(purgeRepository.deleteEntries(paymentId, 2)).thenReturn(2);
+
+        Thread.currentThread().interrupt();
+        boolean purged = new RegularPaymentPurger(purgeRepository, 2, 10, 1000).purge(paymentId);
+
+        assertTrue(Thread.interrupted());
+        assertFalse(purged);
+        verify(purgeRepository, never()).deletePayment(any());
+    }
+
+    @Test
+    @DisplayName("Every run prunes the tombstones past their retention")
+    void prunesTombstones() {
+        new RegularPaymentPurger(purgeRepository, 2, 0, 1000).purgeDeleted();
+
+        verify(purgeRepository).pruneTombstones(1000);
+    }
+
+    @Test
+    @DisplayName("Negative tombstone retention is rejected")
+    void rejectsNegativeRetention() {
+        assertThrows(IllegalArgumentException.class, () -> new RegularPaymentPurger(purgeRepository, 2, 0, -1));
+    }
+
+    @Test
+    @DisplayName("Non-positive chunk size is rejected")
+    void rejectsInvalidChunkSize() {
+        assertThrows(IllegalArgumentException.class, () -> new RegularPaymentPurger(purgeRepository, 0, 0, 1000));
+    }
+}
@@ -0,0 +1,95 @@
+package org.orymar.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.orymar.Benchmarks;
+import org.orymar.domain.RegularPayment;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.mapper.RegularMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * One page of {@value #PAGE} payments read through the JPQL projection that serves it now, against
+ * the managed entities plus mapper that served it before.
+ */
+@Tag(Benchmarks.TAG)
+@EnabledIfEnvironmentVariable(named = "SPRING_DATASOURCE_URL", matches = ".+")
+@SpringBootTest(properties = "server.port=0")
+class RegularReadBenchmark {
+    private static final int PAGE = 500;
+    private static final String MARKER = "benchmark";
+
+    @Autowired
+    private RegularService regularService;
+    @Autowired
+    private RegularMapper mapper;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO regular_payment (id, pib, ipn, iban, mfo, edrpou, beneficiary_name,
+                                             recurrence_rule, payment_amount)
+                SELECT gen_random_uuid(), ?, '123456789', 'UA123456789012345678901234567', '123456',
+                       '12345678', 'Beneficiary ' || n, '30d', n % 100000 / 100.0
+                FROM generate_series(1, ?) n
+                """, MARKER, PAGE);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM regular_payment WHERE pib = ?", MARKER);
+    }
+
+    @Test
+    @DisplayName("Read path - projection against entities and mapper, per page")
+    void readPage() {
+        Supplier<List<OutputRegularPaymentResponseDTO>> projection = () -> regularService.getPaymentsPage(null, PAGE);
+        Supplier<List<OutputRegularPaymentResponseDTO>> entities = () -> transactionTemplate.execute(status ->
+                entityManager.createQuery("select p from RegularPayment p order by p.id", RegularPayment.class)
+                        .setMaxResults(PAGE)
+                        .getResultList().stream()
+                        .map(mapper::toRegularPayment)
+                        .toList());
+        assertEquals(entities.get(), projection.get());
+
+        int requests = Benchmarks.size("requests", 2_000);
+        for (int round = 0; round < 3; round++) {
+            measure("entities", entities, requests, round == 2);
+            measure("projection", projection, requests, round == 2);
+        }
+    }
+
+    private static void measure(String name, Supplier<List<OutputRegularPaymentResponseDTO>> read,
+                                int requests, boolean report) {
+        long allocatedBefore = Benchmarks.allocatedBytes();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            assertEquals(PAGE, read.get().size());
+        }
+        long nanos = System.nanoTime() - startedAt;
+        long allocated = Benchmarks.allocatedBytes() - allocatedBefore;
+        if (report) {
+            Benchmarks.report("read %d payments via %s: %,.0f us and %,d KB allocated per page",
+                    PAGE, name, nanos / 1e3 / requests, allocated / requests >> 10);
+        }
+    }
+}
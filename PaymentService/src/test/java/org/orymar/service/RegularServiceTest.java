@@ -3,16 +3,29 @@ package org.orymar.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.orymar.domain.RegularPayment;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.dto.OutputRegularPaymentChangeResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.exception.domain.ChangesExpiredException;
+import org.orymar.repository.RegularPaymentChangeRepository;
+import org.orymar.repository.RegularPaymentVersionRepository;
 import org.orymar.repository.RegularRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 
 import jakarta.persistence.EntityNotFoundException;
-import java.math.BigDecimal;
-import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,10 +35,20 @@ class RegularServiceTest {
     @Mock
     private RegularRepository repository;
 
+    @Mock
+    private RegularPaymentVersionRepository versionRepository;
+
+    @Mock
+    private RegularPaymentChangeRepository changeRepository;
+
+    @Mock
+    private RegularPaymentCache cache;
+
     @InjectMocks
     private RegularService regularService;
 
     private RegularPayment payment;
+    private OutputRegularPaymentResponseDTO view;
     private UUID paymentId;
 
     @BeforeEach
@@ -42,8 +65,12 @@ class RegularServiceTest {
         payment.setMFO("123456");
         payment.setEDRPOU("12345678");
         payment.setBeneficiaryName("Oleks Fop");
-        payment.setDebitPeriod(Duration.ofDays(1));
-        payment.setPaymentAmount(BigDecimal.valueOf(1000));
+        payment.setDebitPeriod(RecurrenceRule.parse("1d"));
+        payment.setPaymentAmount(Money.of("1000"));
+
+        view = new OutputRegularPaymentResponseDTO(paymentId, "Rymar Olksandr Andreevich", "1234567890",
+                "UA1234567891011121314151617181", "123456", "12345678", "Oleks Fop",
+                RecurrenceRule.parse("1d"), Money.of("1000"), null, 0);
     }
 
     @Test
@@ -59,8 +86,8 @@ class RegularServiceTest {
         updated.setMFO("123456");
         updated.setEDRPOU("12345678");
         updated.setBeneficiaryName("Oleks Fop");
-        updated.setDebitPeriod(Duration.ofDays(2));
-        updated.setPaymentAmount(BigDecimal.valueOf(2000));
+        updated.setDebitPeriod(RecurrenceRule.parse("2d"));
+        updated.setPaymentAmount(Money.of("2000"));
 
         RegularPayment result = regularService.update(paymentId, updated);
 
@@ -70,8 +97,25 @@ class RegularServiceTest {
         assertEquals("123456", result.getMFO());
         assertEquals("12345678", result.getEDRPOU());
         assertEquals("Oleks Fop", result.getBeneficiaryName());
-        assertEquals(Duration.ofDays(2), result.getDebitPeriod());
-        assertEquals(BigDecimal.valueOf(2000), result.getPaymentAmount());
+        assertEquals(RecurrenceRule.parse("2d"), result.getDebitPeriod());
+        assertEquals(Money.of("2000"), result.getPaymentAmount());
+    }
+
+    @Test
+    @DisplayName("Update should evict the cached lookups for the old and the new IPN")
+    void updateEvictsOldAndNewKeys() {
+        when(repository.findById(paymentId)).thenReturn(Optional.of(payment));
+        when(repository.save(payment)).thenReturn(payment);
+        List<String> evictedIpns = new ArrayList<>();
+        doAnswer(invocation -> evictedIpns.add(invocation.<RegularPayment>getArgument(0).getIPN()))
+                .when(cache).evict(any());
+
+        RegularPayment updated = new RegularPayment();
+        updated.setIPN("0123456789");
+        updated.setDebitPeriod(RecurrenceRule.parse("1d"));
+        regularService.update(paymentId, updated);
+
+        assertEquals(List.of("1234567890", "0123456789"), evictedIpns);
     }
 
     @Test
@@ -81,15 +125,29 @@ class RegularServiceTest {
         RegularPayment created = regularService.create(payment);
         assertEquals(payment, created);
         verify(repository).save(payment);
+        verify(cache).evict(payment);
     }
 
     @Test
     @DisplayName("Should get payment by ID")
     void getPaymentByIdTest() {
+        when(repository.findViewById(paymentId)).thenReturn(Optional.of(view));
+        Optional<OutputRegularPaymentResponseDTO> result = regularService.getPaymentById(paymentId);
+        assertEquals(Optional.of(view), result);
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Update based on a stale version is a conflict")
+    void updateStaleVersionConflicts() {
+        payment.setVersion(5L);
         when(repository.findById(paymentId)).thenReturn(Optional.of(payment));
-        Optional<RegularPayment> result = regularService.getPaymentById(paymentId);
-        assertTrue(result.isPresent());
-        assertEquals(payment, result.get());
+        RegularPayment updated = new RegularPayment();
+        updated.setVersion(4L);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> regularService.update(paymentId, updated));
+        verify(repository, never()).save(any());
+        verifyNoInteractions(cache);
     }
 
     @Test
@@ -102,40 +160,164 @@ class RegularServiceTest {
 
 
     @Test
-    @DisplayName("Should delete payment")
+    @DisplayName("Should soft-delete payment and leave the purge to the background")
     void deletePaymentTest() {
-        doNothing().when(repository).deleteById(paymentId);
+        when(repository.findById(paymentId)).thenReturn(Optional.of(payment));
         regularService.delete(paymentId);
-        verify(repository).deleteById(paymentId);
+        assertNotNull(payment.getDeletedAt());
+        verify(repository, never()).delete(any());
+        verify(cache).evict(payment);
     }
 
     @Test
     @DisplayName("Should return payments by IPN")
     void getPaymentsByIpnTest() {
-        List<RegularPayment> list = List.of(payment);
-        when(repository.findByIPN(payment.getIPN())).thenReturn(list);
+        List<OutputRegularPaymentResponseDTO> list = List.of(view);
+        when(repository.findViewsByIpn(payment.getIPN())).thenReturn(list);
 
-        List<RegularPayment> result = regularService.getPaymentsByIpn(payment.getIPN());
+        List<OutputRegularPaymentResponseDTO> result = regularService.getPaymentsByIpn(payment.getIPN());
         assertEquals(list, result);
     }
 
     @Test
     @DisplayName("Should return payments by EDRPOU")
     void getPaymentsByErdpouTest() {
-        List<RegularPayment> list = List.of(payment);
-        when(repository.findByEDRPOU(payment.getEDRPOU())).thenReturn(list);
+        List<OutputRegularPaymentResponseDTO> list = List.of(view);
+        when(repository.findViewsByEdrpou(payment.getEDRPOU())).thenReturn(list);
+
+        List<OutputRegularPaymentResponseDTO> result = regularService.getPaymentsByErdpou(payment.getEDRPOU());
+        assertEquals(list, result);
+    }
+
+    @Test
+    @DisplayName("Should return the first page of payments")
+    void getFirstPaymentsPageTest() {
+        List<OutputRegularPaymentResponseDTO> list = List.of(view);
+        when(repository.findFirstViews(Limit.of(10))).thenReturn(list);
 
-        List<RegularPayment> result = regularService.getPaymentsByErdpou(payment.getEDRPOU());
+        List<OutputRegularPaymentResponseDTO> result = regularService.getPaymentsPage(null, 10);
         assertEquals(list, result);
+        verify(repository, never()).findViewsAfter(any(), any());
     }
 
     @Test
-    @DisplayName("Should return all payments")
-    void getAllPaymentsTest() {
-        List<RegularPayment> list = List.of(payment);
-        when(repository.findAll()).thenReturn(list);
+    @DisplayName("Should return the page of payments after the cursor")
+    void getNextPaymentsPageTest() {
+        UUID after = UUID.randomUUID();
+        List<OutputRegularPaymentResponseDTO> list = List.of(view);
+        when(repository.findViewsAfter(after, Limit.of(10))).thenReturn(list);
 
-        List<RegularPayment> result = regularService.getAllPayments();
+        List<OutputRegularPaymentResponseDTO> result = regularService.getPaymentsPage(after, 10);
         assertEquals(list, result);
     }
+
+    @Test
+    @DisplayName("Should feed every payment to the action and close the stream")
+    void forEachPaymentTest() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(repository.streamViews()).thenReturn(Stream.of(view, view).onClose(() -> closed.set(true)));
+        List<OutputRegularPaymentResponseDTO> seen = new ArrayList<>();
+
+        regularService.forEachPayment(seen::add);
+
+        assertEquals(List.of(view, view), seen);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Should stream payments whose next due date has passed and close the cursor")
+    void forEachDuePaymentTest() {
+        LocalDateTime now = LocalDateTime.now();
+        AtomicBoolean closed = new AtomicBoolean();
+        when(repository.streamViewsDueBefore(now)).thenReturn(Stream.of(view).onClose(() -> closed.set(true)));
+        List<OutputRegularPaymentResponseDTO> seen = new ArrayList<>();
+
+        regularService.forEachDuePayment(now, seen::add);
+
+        assertEquals(List.of(view), seen);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("A short page of changes reaches the horizon, which becomes the high-water mark")
+    void getChangesUpToHorizon() {
+        var change = new OutputRegularPaymentChangeResponseDTO(paymentId, 40, false, view);
+        when(changeRepository.horizon()).thenReturn(50L);
+        when(changeRepository.findChanges(30, null, 50, 2)).thenReturn(List.of(change));
+
+        OutputRegularPaymentChangesResponseDTO result = regularService.getChanges(30, null, 2);
+
+        assertEquals(new OutputRegularPaymentChangesResponseDTO(List.of(change), 50, null), result);
+    }
+
+    @Test
+    @DisplayName("A full page of changes ends at its last change and continues after it")
+    void getChangesFullPage() {
+        UUID deletedId = UUID.randomUUID();
+        var changes = List.of(new OutputRegularPaymentChangeResponseDTO(paymentId, 40, false, view),
+                new OutputRegularPaymentChangeResponseDTO(deletedId, 42, true, null));
+        when(changeRepository.horizon()).thenReturn(50L);
+        when(changeRepository.findChanges(40, paymentId, 50, 2)).thenReturn(changes);
+
+        OutputRegularPaymentChangesResponseDTO result = regularService.getChanges(40, paymentId, 2);
+
+        assertEquals(new OutputRegularPaymentChangesResponseDTO(changes, 42, deletedId), result);
+    }
+
+    @Test
+    @DisplayName("The high-water mark never goes back behind since")
+    void getChangesKeepsSince() {
+        when(changeRepository.horizon()).thenReturn(50L);
+        when(changeRepository.findChanges(60, null, 50, 10)).thenReturn(List.of());
+
+        assertEquals(60, regularService.getChanges(60, null, 10).highWaterMark());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 60, false",     // a full copy never needs pruned tombstones
+            "59, 60, true",
+            "60, 60, true",     // tombstones at the position itself may be gone
+            "61, 60, false"
+    })
+    @DisplayName("A position at or below the pruned floor is expired, a full copy never is")
+    void getChangesBehindFloor(long since, long floor, boolean expired) {
+        when(changeRepository.floor()).thenReturn(floor);
+        when(changeRepository.horizon()).thenReturn(100L);
+
+        if (expired) {
+            assertThrows(ChangesExpiredException.class, () -> regularService.getChanges(since, null, 10));
+            verify(changeRepository, never()).findChanges(anyLong(), any(), anyLong(), anyInt());
+        } else {
+            assertEquals(100, regularService.getChanges(since, null, 10).highWaterMark());
+        }
+    }
+
+    @Test
+    @DisplayName("Create should make a new payment due immediately")
+    void createSetsNextDueAt() {
+        when(repository.save(payment)).thenReturn(payment);
+
+        RegularPayment created = regularService.create(payment);
+
+        assertNotNull(created.getNextDueAt());
+        assertFalse(created.getNextDueAt().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    @DisplayName("Update should move next due date when the debit period changes")
+    void updateReschedulesFromLastPayment() {
+        LocalDateTime lastPaidAt = LocalDateTime.now().minusHours(5);
+        payment.setLastPaidAt(lastPaidAt);
+        when(repository.findById(paymentId)).thenReturn(Optional.of(payment));
+        when(repository.save(payment)).thenReturn(payment);
+
+        RegularPayment updated = new RegularPayment();
+        updated.setDebitPeriod(RecurrenceRule.parse("2h"));
+
+        RegularPayment result = regularService.update(paymentId, updated);
+
+        assertEquals(RecurrenceRule.parse("2h").next(lastPaidAt), result.getNextDueAt());
+        assertTrue(result.getNextDueAt().isAfter(lastPaidAt));
+    }
 }
\ No newline at end of file
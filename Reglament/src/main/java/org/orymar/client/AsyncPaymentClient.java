@@ -0,0 +1,314 @@
+package org.orymar.client;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.OutputEntriesBatchItemResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.exception.domin.ChangesExpiredException;
+import org.orymar.exception.domin.PaymentServiceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking client for PaymentService on top of the shared keep-alive {@link HttpClient}.
+ *
+ * <p>At most {@code payment-service.max-in-flight} requests are in flight at once; the rest wait
+ * for a slot on a virtual thread. A request holds its slot until its response body has been read,
+ * so the limit also caps the open connections. {@code payment-service.read-timeout} bounds the whole
+ * exchange, reading the body included. Every call is timed as
+ * {@value #REQUESTS_METRIC} and the slot usage is published as {@value #IN_FLIGHT_METRIC},
+ * {@value #PENDING_METRIC} and {@value #MAX_IN_FLIGHT_METRIC}.
+ *
+ * <p>With {@code payment-service.cbor-enabled} (the default) request bodies are sent as CBOR and
+ * CBOR is preferred for responses, with JSON still accepted; each response is decoded according
+ * to its {@code Content-Type}, so a PaymentService that only speaks JSON keeps working.
+ *
+ * <p>All failures, including non-2xx responses, complete the future with a
+ * {@link PaymentServiceException}.
+ */
+@Service
+public class AsyncPaymentClient {
+
+    static final String REQUESTS_METRIC = "payment.client.requests";
+    static final String IN_FLIGHT_METRIC = "payment.client.in.flight";
+    static final String PENDING_METRIC = "payment.client.pending";
+    static final String MAX_IN_FLIGHT_METRIC = "payment.client.max.in.flight";
+
+    private static final String REGULAR_BASE_URL = "/regular-payments";
+    private static final String ENTRIES_BASE_URL = "/entrie-payments";
+    private static final String DUE_PATH = "/due?at=";
+    private static final String CHANGES_PATH = "/changes?since=";
+    private static final String BATCH_PATH = "/batch";
+    private static final String ACCEPT_CBOR = MediaType.APPLICATION_CBOR_VALUE + ", "
+            + MediaType.APPLICATION_JSON_VALUE + ";q=0.9";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborMapper;
+    private final boolean cborEnabled;
+    private final MeterRegistry meterRegistry;
+    private final String host;
+    private final Duration readTimeout;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1,
+            Thread.ofPlatform().name("payment-client-deadlines").daemon().factory());
+
+    public AsyncPaymentClient(HttpClient httpClient, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              @Value("${payment-service.url}") String host,
+                              @Value("${payment-service.read-timeout}") long readTimeoutMillis,
+                              @Value("${payment-service.max-in-flight}") int maxInFlight,
+                              @Value("${payment-service.cbor-enabled}") boolean cborEnabled) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("payment-service.max-in-flight must be positive: " + maxInFlight);
+        }
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.cborMapper = objectMapper.copyWith(new CBORFactory())
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.cborEnabled = cborEnabled;
+        this.meterRegistry = meterRegistry;
+        this.host = host;
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight, true);
+        deadlines.setRemoveOnCancelPolicy(true);
+
+        Gauge.builder(IN_FLIGHT_METRIC, this, AsyncPaymentClient::inFlight).register(meterRegistry);
+        Gauge.builder(PENDING_METRIC, permits, Semaphore::getQueueLength).register(meterRegistry);
+        Gauge.builder(MAX_IN_FLIGHT_METRIC, () -> maxInFlight).register(meterRegistry);
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /** Stops taking requests; those in flight still finish or time out. */
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+        deadlines.shutdown();
+    }
+
+    /** Parses the array element by element as it arrives instead of buffering the whole body first. */
+    public CompletableFuture<List<OutputRegularPaymentResponseDTO>> getDuePayments(LocalDateTime at) {
+        HttpRequest request = request(REGULAR_BASE_URL + DUE_PATH
+                + URLEncoder.encode(at.toString(), StandardCharsets.UTF_8)).GET().build();
+        return exchange("getDuePayments", "Failed to fetch due payments at: " + at, request,
+                HttpResponse.BodyHandlers.ofInputStream(), response -> {
+                    try (MappingIterator<OutputRegularPaymentResponseDTO> payments = mapperFor(response)
+                            .readerFor(OutputRegularPaymentResponseDTO.class)
+                            .readValues(response.body())) {
+                        return payments.readAll();
+                    }
+                });
+    }
+
+    /**
+     * Reads one page of the change feed; {@code after} is only set to continue a page cut by the limit.
+     * Fails with {@link ChangesExpiredException} once {@code since} is older than the kept tombstones.
+     */
+    public CompletableFuture<OutputRegularPaymentChangesResponseDTO> getChanges(long since, UUID after, int limit) {
+        HttpRequest request = request(REGULAR_BASE_URL + CHANGES_PATH + since + "&limit=" + limit
+                + (after == null ? "" : "&after=" + after)).GET().build();
+        return exchange("getChanges", "Failed to fetch regular payment changes since: " + since, request,
+                HttpResponse.BodyHandlers.ofByteArray(),
+                response -> mapperFor(response)
+                        .readValue(response.body(), OutputRegularPaymentChangesResponseDTO.class));
+    }
+
+    /** Completes with {@code false} when PaymentService already had an entry for the billing period. */
+    public CompletableFuture<Boolean> createEntryPayment(CreateEntriesPaymentRequestDTO dto) {
+        return post("createEntryPayment",
+                "Failed to create entry payment for regularPaymentId: " + dto.regularPaymentId(),
+                ENTRIES_BASE_URL, dto,
+                response -> response.statusCode() == 201);
+    }
+
+    public CompletableFuture<List<OutputEntriesBatchItemResponseDTO>> createEntryPayments(
+            List<CreateEntriesPaymentRequestDTO> dtos) {
+        return post("createEntryPayments", "Failed to create a batch of " + dtos.size() + " entry payments",
+                ENTRIES_BASE_URL + BATCH_PATH, dtos,
+                response -> Arrays.asList(mapperFor(response)
+                        .readValue(response.body(), OutputEntriesBatchItemResponseDTO[].class)));
+    }
+
+    private <R> CompletableFuture<R> post(String operation, String failure, String path, Object body,
+                                          ResponseHandler<byte[], R> handler) {
+        byte[] encoded;
+        try {
+            encoded = (cborEnabled ? cborMapper : objectMapper).writeValueAsBytes(body);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new PaymentServiceException(failure, e));
+        }
+        HttpRequest request = request(path)
+                .header(HttpHeaders.CONTENT_TYPE,
+                        cborEnabled ? MediaType.APPLICATION_CBOR_VALUE : MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(encoded))
+                .build();
+        return exchange(operation, failure, request, HttpResponse.BodyHandlers.ofByteArray(), handler);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return request(path, cborEnabled ? ACCEPT_CBOR : MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private HttpRequest.Builder request(String path, String accept) {
+        return HttpRequest.newBuilder(URI.create(host + path))
+                .timeout(readTimeout)
+                .header(HttpHeaders.ACCEPT, accept);
+    }
+
+    /** Picks the decoder from the response {@code Content-Type}; anything but CBOR is read as JSON. */
+    private ObjectMapper mapperFor(HttpResponse<?> response) {
+        return mapperFor(response.headers().firstValue(HttpHeaders.CONTENT_TYPE));
+    }
+
+    private ObjectMapper mapperFor(Optional<String> contentType) {
+        return contentType
+                .filter(type -> type.startsWith(MediaType.APPLICATION_CBOR_VALUE))
+                .isPresent() ? cborMapper : objectMapper;
+    }
+
+    /**
+     * Sends {@code request} once a slot is free and runs {@code handler} on the response before
+     * giving the slot back. The response handler runs on a virtual thread and may block.
+     */
+    private <T, R> CompletableFuture<R> exchange(String operation, String failure, HttpRequest request,
+                                                 HttpResponse.BodyHandler<T> bodyHandler,
+                                                 ResponseHandler<T, R> handler) {
+        CompletableFuture<Timer.Sample> slot;
+        try {
+            slot = CompletableFuture.supplyAsync(this::acquire, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new PaymentServiceException(failure, e));
+        }
+        return slot
+                .thenCompose(sample -> send(request, bodyHandler, handler, failure)
+                        .whenComplete((result, error) -> {
+                            permits.release();
+                            sample.stop(meterRegistry.timer(REQUESTS_METRIC,
+                                    "operation", operation, "outcome", error == null ? "SUCCESS" : "ERROR"));
+                        }))
+                .handle((result, error) -> {
+                    if (error == null) {
+                        return result;
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    throw new CompletionException(cause instanceof PaymentServiceException
+                            ? cause
+                            : new PaymentServiceException(failure, cause));
+                });
+    }
+
+    /**
+     * Never throws, so the caller always gets a future to give the slot back on. The request timeout
+     * only covers the response headers; past {@link #readTimeout} the exchange is cancelled, or its
+     * body stream closed once the handler is reading it, which also frees the blocked handler.
+     */
+    private <T, R> CompletableFuture<R> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+                                             ResponseHandler<T, R> handler, String failure) {
+        CompletableFuture<HttpResponse<T>> sent;
+        try {
+            sent = httpClient.sendAsync(request, bodyHandler);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<R> handled = sent.thenApplyAsync(response -> handle(response, handler, failure), executor);
+        ScheduledFuture<?> deadline;
+        try {
+            deadline = deadlines.schedule(() -> expire(sent, handled), readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            sent.cancel(true);
+            return CompletableFuture.failedFuture(e);
+        }
+        return handled.whenComplete((result, error) -> deadline.cancel(false));
+    }
+
+    private void expire(CompletableFuture<? extends HttpResponse<?>> sent, CompletableFuture<?> handled) {
+        if (!handled.completeExceptionally(new HttpTimeoutException(
+                "No complete response within " + readTimeout.toMillis() + " ms"))) {
+            return;
+        }
+        if (!sent.cancel(true)) {
+            sent.thenAccept(response -> {
+                if (response.body() instanceof InputStream body) {
+                    try {
+                        body.close();
+                    } catch (IOException ignored) {
+                        // the exchange is abandoned either way
+                    }
+                }
+            });
+        }
+    }
+
+    private <T, R> R handle(HttpResponse<T> response, ResponseHandler<T, R> handler, String failure) {
+        try {
+            if (response.statusCode() / 100 != 2) {
+                if (response.body() instanceof InputStream body) {
+                    body.close();
+                }
+                if (response.statusCode() == HttpStatus.GONE.value()) {
+                    throw new ChangesExpiredException(failure + ": HTTP " + response.statusCode());
+                }
+                throw new PaymentServiceException(failure + ": HTTP " + response.statusCode(), null);
+            }
+            return handler.handle(response);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private Timer.Sample acquire() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentServiceException("Interrupted while waiting for a PaymentService slot", e);
+        }
+        return Timer.start(meterRegistry);
+    }
+
+    @FunctionalInterface
+    private interface ResponseHandler<T, R> {
+        R handle(HttpResponse<T> response) throws IOException;
+    }
+}
@@ -2,67 +2,57 @@ package org.orymar.client;
 
 import lombok.RequiredArgsConstructor;
 import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
-import org.orymar.domain.dto.OutputEntriesPaymentResponseDTO;
+import org.orymar.domain.dto.OutputEntriesBatchItemResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
 import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
 import org.orymar.exception.domin.PaymentServiceException;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
-
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Blocking view of {@link AsyncPaymentClient} for the schedulers, which already run their calls on
+ * virtual threads. Failures surface as {@link PaymentServiceException}.
+ */
 @Service
 @RequiredArgsConstructor
 public class PaymentClientHttp {
 
-    private final RestTemplate restTemplate;
+    private final AsyncPaymentClient asyncClient;
 
-    @Value("${payment-service.url}")
-    private String host;
+    public List<OutputRegularPaymentResponseDTO> getDuePayments(LocalDateTime at) {
+        return await(asyncClient.getDuePayments(at));
+    }
 
-    private static final String REGULAR_BASE_URL = "/regular-payments";
-    private static final String ENTRIES_BASE_URL = "/entrie-payments";
-    private static final String WRITE_OFF_PATH = "/check?id={paymentId}";
+    /** Returns one page of the payments changed since {@code since}; see {@link AsyncPaymentClient#getChanges}. */
+    public OutputRegularPaymentChangesResponseDTO getChanges(long since, UUID after, int limit) {
+        return await(asyncClient.getChanges(since, after, limit));
+    }
 
-    public List<OutputRegularPaymentResponseDTO> getAllPayments() {
-        try {
-            ResponseEntity<OutputRegularPaymentResponseDTO[]> response =
-                    restTemplate.getForEntity(host + REGULAR_BASE_URL, OutputRegularPaymentResponseDTO[].class);
-            return Arrays.asList(response.getBody());
-        } catch (RestClientException e) {
-            throw new PaymentServiceException("Failed to fetch regular payments", e);
-        }
+    /** Returns {@code false} when PaymentService already had an entry for the billing period. */
+    public boolean createEntryPayment(CreateEntriesPaymentRequestDTO dto) {
+        return await(asyncClient.createEntryPayment(dto));
     }
 
-    public boolean isWriteOffNeeded(UUID paymentId) {
-        try {
-            String url = host + ENTRIES_BASE_URL + WRITE_OFF_PATH;
-            ResponseEntity<Boolean> response = restTemplate.getForEntity(url, Boolean.class, paymentId);
-            return Boolean.TRUE.equals(response.getBody());
-        } catch (RestClientException e) {
-            throw new PaymentServiceException("Failed to check write-off for paymentId: " + paymentId, e);
-        }
+    public List<OutputEntriesBatchItemResponseDTO> createEntryPayments(List<CreateEntriesPaymentRequestDTO> dtos) {
+        return await(asyncClient.createEntryPayments(dtos));
     }
 
-    public OutputEntriesPaymentResponseDTO createEntryPayment(CreateEntriesPaymentRequestDTO dto) {
+    private static <T> T await(CompletableFuture<T> future) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<CreateEntriesPaymentRequestDTO> request = new HttpEntity<>(dto, headers);
-
-            ResponseEntity<OutputEntriesPaymentResponseDTO> response =
-                    restTemplate.postForEntity(host + ENTRIES_BASE_URL, request, OutputEntriesPaymentResponseDTO.class);
-
-            return response.getBody();
-        } catch (RestClientException e) {
-            throw new PaymentServiceException("Failed to create entry payment for regularPaymentId: " + dto.regularPaymentId(), e);
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PaymentServiceException cause) {
+                throw cause;
+            }
+            throw new PaymentServiceException("PaymentService call failed", e.getCause());
+        } catch (CancellationException e) {
+            throw new PaymentServiceException("PaymentService call was cancelled", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,32 @@
 package org.orymar.config;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class HttpClientConfig {
+    /** Runs the HTTP client's response handling; closed with the context so no thread outlives it. */
+    @Bean(destroyMethod = "close")
+    public ExecutorService paymentServiceHttpExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /** Keeps HTTP/1.1 connections to PaymentService alive and reuses them across calls. */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient paymentServiceHttpClient(
+            @Value("${payment-service.connect-timeout}") long connectTimeoutMillis,
+            @Qualifier("paymentServiceHttpExecutor") ExecutorService executor) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(executor)
+                .build();
     }
 }
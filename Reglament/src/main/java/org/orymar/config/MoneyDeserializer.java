@@ -0,0 +1,27 @@
+package org.orymar.config;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import org.orymar.domain.Money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads {@link Money} from a JSON number or numeric string. Amounts with fractions of a kopiyka
+ * are rejected rather than rounded.
+ */
+public class MoneyDeserializer extends JsonDeserializer<Money> {
+
+    @Override
+    public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        String text = p.getText().trim();
+        try {
+            BigDecimal amount = p.currentToken().isNumeric() ? p.getDecimalValue() : new BigDecimal(text);
+            return Money.of(amount);
+        } catch (IllegalArgumentException e) {
+            return (Money) ctxt.handleWeirdStringValue(Money.class, text, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.orymar.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.orymar.domain.Money;
+
+import java.io.IOException;
+
+/** Writes {@link Money} as a JSON number with two decimal places, e.g. {@code 123.40}. */
+public class MoneySerializer extends JsonSerializer<Money> {
+
+    @Override
+    public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeNumber(value.toBigDecimal());
+    }
+}
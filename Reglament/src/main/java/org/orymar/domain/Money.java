@@ -0,0 +1,51 @@
+package org.orymar.domain;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.orymar.config.MoneyDeserializer;
+import org.orymar.config.MoneySerializer;
+
+import java.math.BigDecimal;
+
+/**
+ * Amount in hryvnias held as a {@code long} of kopiykas, the same type PaymentService uses. It
+ * travels in JSON as a decimal number, so comparing schedules never touches {@link BigDecimal}.
+ */
+@JsonSerialize(using = MoneySerializer.class)
+@JsonDeserialize(using = MoneyDeserializer.class)
+public record Money(long minor) implements Comparable<Money> {
+
+    public static final int SCALE = 2;
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    /** Rejects amounts with non-zero digits past the kopiyka or beyond the {@code long} range. */
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofMinor(amount.movePointRight(SCALE).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount " + amount + " is not a whole number of kopiykas", e);
+        }
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount));
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,203 @@
+package org.orymar.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import org.orymar.domain.enums.TimeUnitSuffix;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * When a regular payment falls due. Every rule splits time into numbered periods counted from
+ * 1970-01-01 and falls due at the start of each: a fixed interval at its multiples ({@code 1d} at
+ * midnight, {@code 2h} on even hours), a calendar rule at the start of its day. {@link #next} is
+ * the start of the period after the one containing {@code after}, so it is anchored on the same
+ * origin as {@link #periodIndexOf}, and a late payment does not shift the schedule. Both are
+ * closed-form, so their cost does not depend on how far {@code after} lies from the origin.
+ *
+ * <p>The text form is either a legacy interval ({@code 30m}, {@code 2h}, {@code 3d}) or a subset
+ * of an RFC 5545 RRULE: {@code FREQ=WEEKLY;INTERVAL=2;BYDAY=FR}, {@code FREQ=MONTHLY;BYMONTHDAY=5}
+ * and {@code FREQ=MONTHLY;BYMONTHDAY=-1} for the last day of the month. A month without the
+ * requested day falls due on its last day.
+ */
+public sealed interface RecurrenceRule {
+
+    /** Parses the text form; rules are immutable, so repeated texts come from a bounded cache. */
+    @JsonCreator
+    static RecurrenceRule parse(String text) {
+        return RecurrenceRuleParser.parse(text);
+    }
+
+    /** The first occurrence strictly after {@code after}. */
+    default LocalDateTime next(LocalDateTime after) {
+        return startOf(periodIndexOf(after) + 1);
+    }
+
+    /**
+     * Index of the period containing {@code at}. Two occurrences of the rule never share an index,
+     * so the index identifies one write-off per period.
+     */
+    long periodIndexOf(LocalDateTime at);
+
+    /** The occurrence that starts period {@code index}. */
+    LocalDateTime startOf(long index);
+
+    /** The canonical text form, which {@link #parse} turns back into an equal rule. */
+    @JsonValue
+    String text();
+
+    record Interval(Duration period) implements RecurrenceRule {
+        private static final TimeUnitSuffix[] LARGEST_FIRST = {
+                TimeUnitSuffix.DAYS, TimeUnitSuffix.HOURS, TimeUnitSuffix.MINUTES};
+
+        public Interval {
+            if (period.isNegative() || period.isZero() || period.getNano() != 0) {
+                throw new IllegalArgumentException("Interval must be a positive number of seconds: " + period);
+            }
+        }
+
+        @Override
+        public long periodIndexOf(LocalDateTime at) {
+            return Math.floorDiv(at.toEpochSecond(ZoneOffset.UTC), period.getSeconds());
+        }
+
+        @Override
+        public LocalDateTime startOf(long index) {
+            return LocalDateTime.ofEpochSecond(index * period.getSeconds(), 0, ZoneOffset.UTC);
+        }
+
+        @Override
+        public String text() {
+            long seconds = period.getSeconds();
+            for (TimeUnitSuffix suffix : LARGEST_FIRST) {
+                long unitSeconds = suffix.unit().getDuration().getSeconds();
+                if (seconds % unitSeconds == 0) {
+                    return seconds / unitSeconds + String.valueOf(suffix.suffix());
+                }
+            }
+            return seconds + String.valueOf(TimeUnitSuffix.SECONDS.suffix());
+        }
+
+        @Override
+        public String toString() {
+            return text();
+        }
+    }
+
+    record Weekly(int weeks, DayOfWeek day) implements RecurrenceRule {
+        private static final DayOfWeek EPOCH_DAY_OF_WEEK = DayOfWeek.THURSDAY;
+
+        public Weekly {
+            requirePositive(weeks);
+        }
+
+        @Override
+        public long periodIndexOf(LocalDateTime at) {
+            long week = Math.floorDiv(at.toLocalDate().toEpochDay() - firstOccurrence(), 7);
+            return Math.floorDiv(week, weeks);
+        }
+
+        @Override
+        public LocalDateTime startOf(long index) {
+            return LocalDate.ofEpochDay(firstOccurrence() + index * weeks * 7).atStartOfDay();
+        }
+
+        /** Epoch day of the first {@link #day} on or after 1970-01-01. */
+        private long firstOccurrence() {
+            return Math.floorMod(day.getValue() - EPOCH_DAY_OF_WEEK.getValue(), 7);
+        }
+
+        @Override
+        public String text() {
+            return "FREQ=WEEKLY" + RecurrenceRuleParser.interval(weeks)
+                    + ";BYDAY=" + day.name().substring(0, 2);
+        }
+
+        @Override
+        public String toString() {
+            return text();
+        }
+    }
+
+    record MonthlyOnDay(int months, int day) implements RecurrenceRule {
+        public MonthlyOnDay {
+            requirePositive(months);
+            if (day < 1 || day > 31) {
+                throw new IllegalArgumentException("Day of month must be between 1 and 31: " + day);
+            }
+        }
+
+        @Override
+        public long periodIndexOf(LocalDateTime at) {
+            return monthlyPeriodIndex(at.toLocalDate(), months, day);
+        }
+
+        @Override
+        public LocalDateTime startOf(long index) {
+            return monthlyPeriodStart(index, months, day);
+        }
+
+        @Override
+        public String text() {
+            return "FREQ=MONTHLY" + RecurrenceRuleParser.interval(months) + ";BYMONTHDAY=" + day;
+        }
+
+        @Override
+        public String toString() {
+            return text();
+        }
+    }
+
+    record EndOfMonth(int months) implements RecurrenceRule {
+        public EndOfMonth {
+            requirePositive(months);
+        }
+
+        @Override
+        public long periodIndexOf(LocalDateTime at) {
+            return monthlyPeriodIndex(at.toLocalDate(), months, 31);
+        }
+
+        @Override
+        public LocalDateTime startOf(long index) {
+            return monthlyPeriodStart(index, months, 31);
+        }
+
+        @Override
+        public String text() {
+            return "FREQ=MONTHLY" + RecurrenceRuleParser.interval(months) + ";BYMONTHDAY=-1";
+        }
+
+        @Override
+        public String toString() {
+            return text();
+        }
+    }
+
+    private static long monthlyPeriodIndex(LocalDate at, int months, int day) {
+        YearMonth month = YearMonth.from(at);
+        long monthIndex = (month.getYear() - 1970L) * 12 + month.getMonthValue() - 1;
+        if (at.isBefore(dayIn(month, day))) {
+            monthIndex--;
+        }
+        return Math.floorDiv(monthIndex, months);
+    }
+
+    private static LocalDateTime monthlyPeriodStart(long index, int months, int day) {
+        return dayIn(YearMonth.of(1970, 1).plusMonths(index * months), day).atStartOfDay();
+    }
+
+    private static LocalDate dayIn(YearMonth month, int day) {
+        return month.atDay(Math.min(day, month.lengthOfMonth()));
+    }
+
+    private static void requirePositive(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Recurrence interval must be positive: " + count);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.orymar.domain;
+
+import java.time.Duration;
+
+public record WriteOffSummary(int succeeded, int failed, int skipped, Duration elapsed) {
+    public int total() {
+        return succeeded + failed + skipped;
+    }
+}
@@ -0,0 +1,11 @@
+package org.orymar.domain.dto;
+
+import java.util.UUID;
+
+/** One entry of the change feed; {@code payment} is {@code null} when the payment was deleted. */
+public record OutputRegularPaymentChangeResponseDTO(
+        UUID id,
+        long changeSeq,
+        boolean deleted,
+        OutputRegularPaymentResponseDTO payment
+) {}
@@ -1,7 +1,9 @@
 package org.orymar.domain.dto;
 
-import java.math.BigDecimal;
-import java.time.Duration;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 public record OutputRegularPaymentResponseDTO(
@@ -12,5 +14,6 @@ public record OutputRegularPaymentResponseDTO(
     String MFO,
     String EDRPOU,
     String beneficiaryName,
-    Duration debitPeriod,
-    BigDecimal paymentAmount) {}
+    RecurrenceRule debitPeriod,
+    Money paymentAmount,
+    LocalDateTime nextDueAt) {}
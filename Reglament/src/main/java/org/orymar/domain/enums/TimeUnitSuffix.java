@@ -0,0 +1,35 @@
+package org.orymar.domain.enums;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+public enum TimeUnitSuffix {
+    SECONDS('s', ChronoUnit.SECONDS),
+    MINUTES('m', ChronoUnit.MINUTES),
+    HOURS('h', ChronoUnit.HOURS),
+    DAYS('d', ChronoUnit.DAYS);
+
+    private final char suffix;
+    private final ChronoUnit unit;
+
+    TimeUnitSuffix(char suffix, ChronoUnit unit) {
+        this.suffix = suffix;
+        this.unit = unit;
+    }
+
+    public char suffix() {
+        return suffix;
+    }
+
+    public ChronoUnit unit() {
+        return unit;
+    }
+
+    public static TimeUnitSuffix fromSuffix(String value) {
+        char lastChar = value.charAt(value.length() - 1);
+        return Arrays.stream(values())
+                .filter(u -> u.suffix == lastChar)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown time format: " + value));
+    }
+}
@@ -0,0 +1,7 @@
+package org.orymar.domain.enums;
+
+public enum WriteOffResult {
+    SUCCEEDED,
+    FAILED,
+    SKIPPED
+}
@@ -0,0 +1,8 @@
+package org.orymar.exception.domin;
+
+/** PaymentService no longer keeps the changes since the requested position; start over from {@code 0}. */
+public class ChangesExpiredException extends PaymentServiceException {
+    public ChangesExpiredException(String message) {
+        super(message, null);
+    }
+}
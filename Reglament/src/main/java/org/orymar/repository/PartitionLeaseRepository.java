@@ -0,0 +1,81 @@
+package org.orymar.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Instance membership and partition leases in the shared database. All expiry checks use the
+ * database clock, so instances never compare their own clocks with each other.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PartitionLeaseRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void createPartitions(int partitions) {
+        jdbcTemplate.update("""
+                INSERT INTO reglament_partition_lease (partition_no)
+                SELECT generate_series(0, :partitions - 1)
+                ON CONFLICT (partition_no) DO NOTHING""",
+                new MapSqlParameterSource("partitions", partitions));
+    }
+
+    public void heartbeat(String instanceId) {
+        jdbcTemplate.update("""
+                INSERT INTO reglament_instance (instance_id, heartbeat_at) VALUES (:instanceId, now())
+                ON CONFLICT (instance_id) DO UPDATE SET heartbeat_at = now()""",
+                new MapSqlParameterSource("instanceId", instanceId));
+    }
+
+    public List<String> findLiveInstances(Duration ttl) {
+        return jdbcTemplate.queryForList("""
+                SELECT instance_id FROM reglament_instance
+                WHERE heartbeat_at > now() - :ttlMillis * interval '1 millisecond'
+                ORDER BY instance_id""",
+                new MapSqlParameterSource("ttlMillis", ttl.toMillis()), String.class);
+    }
+
+    /** Renews the given partitions held by {@code instanceId} and takes over free or expired ones. */
+    public Set<Integer> acquire(String instanceId, Collection<Integer> partitions, Duration ttl) {
+        if (partitions.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList("""
+                UPDATE reglament_partition_lease
+                SET owner = :instanceId, expires_at = now() + :ttlMillis * interval '1 millisecond'
+                WHERE partition_no IN (:partitions)
+                  AND (owner = :instanceId OR owner IS NULL OR expires_at < now())
+                RETURNING partition_no""",
+                new MapSqlParameterSource("instanceId", instanceId)
+                        .addValue("ttlMillis", ttl.toMillis())
+                        .addValue("partitions", partitions),
+                Integer.class));
+    }
+
+    public void release(String instanceId, Collection<Integer> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update("""
+                UPDATE reglament_partition_lease SET owner = NULL, expires_at = '-infinity'
+                WHERE owner = :instanceId AND partition_no IN (:partitions)""",
+                new MapSqlParameterSource("instanceId", instanceId).addValue("partitions", partitions));
+    }
+
+    public void leave(String instanceId) {
+        MapSqlParameterSource params = new MapSqlParameterSource("instanceId", instanceId);
+        jdbcTemplate.update("""
+                UPDATE reglament_partition_lease SET owner = NULL, expires_at = '-infinity'
+                WHERE owner = :instanceId""", params);
+        jdbcTemplate.update("DELETE FROM reglament_instance WHERE instance_id = :instanceId", params);
+    }
+}
@@ -0,0 +1,184 @@
+package org.orymar.scheduling;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: O(1) schedule and cancel, amortised O(1) expiry.
+ *
+ * <p>Level {@code 0} has one slot per tick; every next level has slots that are {@code wheelSize}
+ * times wider. A timeout sits in the lowest level whose span covers its distance from the current
+ * tick and is cascaded one level down each time the wheel reaches its slot, so it is moved at most
+ * {@code levels} times before it fires. Deadlines beyond the last level are parked in it and
+ * re-placed until they come into range.
+ *
+ * <p>Not thread-safe: callers serialise access.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final long horizon;
+    private final Timeout<T>[][] slots;
+    private Timeout<T> ready;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || Integer.bitCount(wheelSize) != 1 || levels < 1) {
+            throw new IllegalArgumentException(
+                    "Tick must be positive and wheel size a power of two, got tick=" + tickMillis
+                            + ", wheelSize=" + wheelSize + ", levels=" + levels);
+        }
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        if ((long) bits * levels > 62) {
+            throw new IllegalArgumentException("Wheel span does not fit into a long: " + levels + " levels");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.horizon = 1L << (bits * levels);
+        this.slots = new Timeout[levels][wheelSize];
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules {@code payload} to expire on the first tick strictly after {@code deadlineMillis}.
+     * A deadline that is already in the past expires on the next {@link #advanceTo} call.
+     */
+    public Timeout<T> schedule(T payload, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(payload, Math.floorDiv(deadlineMillis, tickMillis) + 1);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    public boolean cancel(Timeout<T> timeout) {
+        if (!timeout.isScheduled()) {
+            return false;
+        }
+        unlink(timeout);
+        size--;
+        return true;
+    }
+
+    /** Moves the wheel forward to {@code nowMillis}, handing every expired payload to {@code expired}. */
+    public void advanceTo(long nowMillis, Consumer<T> expired) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return;
+        }
+        drain(expired);
+        while (currentTick < targetTick && size > 0) {
+            currentTick++;
+            for (int level = slots.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (bits * level)) & mask));
+                }
+            }
+            cascade(0, (int) (currentTick & mask));
+            drain(expired);
+        }
+        currentTick = Math.max(currentTick, targetTick);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    private void cascade(int level, int slot) {
+        Timeout<T> timeout = slots[level][slot];
+        slots[level][slot] = null;
+        while (timeout != null) {
+            Timeout<T> next = timeout.next;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.level = -1;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    private void drain(Consumer<T> expired) {
+        while (ready != null) {
+            Timeout<T> timeout = ready;
+            unlink(timeout);
+            size--;
+            expired.accept(timeout.payload);
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        if (delta <= 0) {
+            link(timeout, Timeout.READY, 0);
+            return;
+        }
+        long tick = currentTick + Math.min(delta, horizon - 1);
+        int level = 0;
+        while (level < slots.length - 1 && Math.min(delta, horizon - 1) >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        link(timeout, level, (int) ((tick >>> (bits * level)) & mask));
+    }
+
+    private void link(Timeout<T> timeout, int level, int slot) {
+        timeout.level = level;
+        timeout.slot = slot;
+        Timeout<T> head = level == Timeout.READY ? ready : slots[level][slot];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        if (level == Timeout.READY) {
+            ready = timeout;
+        } else {
+            slots[level][slot] = timeout;
+        }
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else if (timeout.level == Timeout.READY) {
+            ready = timeout.next;
+        } else {
+            slots[timeout.level][timeout.slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.level = -1;
+    }
+
+    public static final class Timeout<T> {
+        private static final int READY = Integer.MAX_VALUE;
+
+        private final T payload;
+        private final long deadlineTick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private int level = -1;
+        private int slot;
+
+        private Timeout(T payload, long deadlineTick) {
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public boolean isScheduled() {
+            return level != -1;
+        }
+    }
+}
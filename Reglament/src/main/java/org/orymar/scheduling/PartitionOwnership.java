@@ -0,0 +1,19 @@
+package org.orymar.scheduling;
+
+import java.util.UUID;
+
+/** Tells a scheduler whether this instance is the one that writes off a given regular payment. */
+@FunctionalInterface
+public interface PartitionOwnership {
+
+    boolean owns(UUID paymentId);
+
+    /**
+     * Maps a payment onto one of {@code partitions} equal ranges of a 32-bit hash of its id. The
+     * id is mixed first, so ids whose leading bits are a timestamp still spread evenly.
+     */
+    static int partitionOf(UUID paymentId, int partitions) {
+        long hash = (paymentId.getMostSignificantBits() ^ paymentId.getLeastSignificantBits()) * 0x9E3779B97F4A7C15L;
+        return (int) (((hash >>> 32) * partitions) >>> 32);
+    }
+}
@@ -0,0 +1,126 @@
+package org.orymar.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.orymar.repository.PartitionLeaseRepository;
+import org.orymar.scheduling.PartitionOwnership;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Splits the payments between all running Reglament instances through leases in the shared database.
+ *
+ * <p>Every {@code scheduled.partitioning.heartbeat} an instance reports itself alive, takes the
+ * sorted list of live instances and claims every partition {@code p} with
+ * {@code p % liveCount == ownIndex}. A claim only succeeds when the lease is free, expired or
+ * already its own, so two instances never hold the same partition even while their views of the
+ * membership disagree. Partitions an instance no longer wants are dropped locally at once and
+ * released in the database one heartbeat later, giving write-offs already in flight time to finish.
+ * A dead instance stops renewing and its leases are taken over once they expire.
+ *
+ * <p>If renewing fails, ownership lapses locally one heartbeat before the leases could expire.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "scheduled.partitioning.enabled", havingValue = "true")
+public class LeasedPartitionOwnership implements PartitionOwnership {
+
+    private final PartitionLeaseRepository leaseRepository;
+    private final String instanceId;
+    private final int partitions;
+    private final Duration heartbeat;
+    private final Duration leaseTtl;
+    private final LongSupplier nanoTime;
+
+    private volatile Set<Integer> owned = Set.of();
+    private volatile long validUntilNanos;
+    private Set<Integer> draining = Set.of();
+    private boolean partitionsCreated;
+
+    public LeasedPartitionOwnership(PartitionLeaseRepository leaseRepository,
+                                    @Value("${scheduled.partitioning.instance-id}") String instanceId,
+                                    @Value("${scheduled.partitioning.partitions}") int partitions,
+                                    @Value("${scheduled.partitioning.heartbeat}") long heartbeatMillis,
+                                    @Value("${scheduled.partitioning.lease-ttl}") long leaseTtlMillis) {
+        this(leaseRepository, instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId,
+                partitions, Duration.ofMillis(heartbeatMillis), Duration.ofMillis(leaseTtlMillis), System::nanoTime);
+    }
+
+    LeasedPartitionOwnership(PartitionLeaseRepository leaseRepository, String instanceId, int partitions,
+                             Duration heartbeat, Duration leaseTtl, LongSupplier nanoTime) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partition count must be positive, got " + partitions);
+        }
+        if (leaseTtl.compareTo(heartbeat.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException(
+                    "Lease TTL must be at least two heartbeats, got ttl=" + leaseTtl + ", heartbeat=" + heartbeat);
+        }
+        this.leaseRepository = leaseRepository;
+        this.instanceId = instanceId;
+        this.partitions = partitions;
+        this.heartbeat = heartbeat;
+        this.leaseTtl = leaseTtl;
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public boolean owns(UUID paymentId) {
+        return nanoTime.getAsLong() - validUntilNanos < 0
+                && owned.contains(PartitionOwnership.partitionOf(paymentId, partitions));
+    }
+
+    @Scheduled(fixedDelayString = "${scheduled.partitioning.heartbeat}")
+    public synchronized void rebalance() {
+        long startedAt = nanoTime.getAsLong();
+        if (!partitionsCreated) {
+            leaseRepository.createPartitions(partitions);
+            partitionsCreated = true;
+        }
+        leaseRepository.heartbeat(instanceId);
+        List<String> live = leaseRepository.findLiveInstances(leaseTtl);
+        int index = live.indexOf(instanceId);
+
+        Set<Integer> wanted = new HashSet<>();
+        if (index >= 0) {
+            for (int partition = index; partition < partitions; partition += live.size()) {
+                wanted.add(partition);
+            }
+        }
+
+        Set<Integer> toRelease = new HashSet<>(draining);
+        toRelease.removeAll(wanted);
+        leaseRepository.release(instanceId, toRelease);
+
+        Set<Integer> acquired = leaseRepository.acquire(instanceId, wanted, leaseTtl);
+        Set<Integer> dropped = new HashSet<>(owned);
+        dropped.removeAll(acquired);
+        draining = dropped;
+
+        owned = Set.copyOf(acquired);
+        validUntilNanos = startedAt + leaseTtl.minus(heartbeat).toNanos();
+
+        if (!dropped.isEmpty() || acquired.size() != wanted.size()) {
+            log.info("Instance {} of {} live owns {}/{} partitions, waiting for {}, releasing {}.",
+                    instanceId, live.size(), acquired.size(), partitions, wanted.size() - acquired.size(), dropped.size());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void leave() {
+        owned = Set.of();
+        leaseRepository.leave(instanceId);
+    }
+
+    public Set<Integer> ownedPartitions() {
+        return owned;
+    }
+}
@@ -3,8 +3,11 @@ package org.orymar.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.orymar.client.PaymentClientHttp;
+import org.orymar.domain.WriteOffSummary;
 import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
-import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.domain.enums.WriteOffResult;
+import org.orymar.scheduling.PartitionOwnership;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -14,28 +17,58 @@ import java.util.List;
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(name = "scheduled.mode", havingValue = "sweep", matchIfMissing = true)
 public class PaymentScheduler {
     private final PaymentClientHttp paymentClient;
+    private final WriteOffExecutor writeOffExecutor;
+    private final PartitionOwnership partitionOwnership;
     private final char ACTIVE_STATUS = 'A';
 
     @Scheduled(fixedRateString = "${scheduled.fixedRate}")
-    public void processPayments() {
+    public WriteOffSummary processPayments() {
         log.info("Starting scheduled process for regular payments.");
 
-        List<OutputRegularPaymentResponseDTO> payments = paymentClient.getAllPayments();
+        LocalDateTime now = LocalDateTime.now();
+        List<CreateEntriesPaymentRequestDTO> writeOffs = paymentClient.getDuePayments(now).stream()
+                .filter(payment -> partitionOwnership.owns(payment.id()))
+                .map(payment -> new CreateEntriesPaymentRequestDTO(
+                        payment.id(), now, payment.paymentAmount(), ACTIVE_STATUS, payment.nextDueAt()))
+                .toList();
 
-        for (OutputRegularPaymentResponseDTO payment : payments) {
-            boolean shouldWriteOff = paymentClient.isWriteOffNeeded(payment.id());
+        WriteOffSummary summary = writeOffExecutor.isBatching()
+                ? writeOffExecutor.executeBatched(
+                        writeOffs, CreateEntriesPaymentRequestDTO::regularPaymentId, this::writeOffBatch)
+                : writeOffExecutor.execute(
+                        writeOffs, CreateEntriesPaymentRequestDTO::regularPaymentId, this::writeOff);
 
-            if (shouldWriteOff) {
-                CreateEntriesPaymentRequestDTO dto =
-                        new CreateEntriesPaymentRequestDTO(
-                                payment.id(), LocalDateTime.now(), payment.paymentAmount(), ACTIVE_STATUS);
-                paymentClient.createEntryPayment(dto);
-                log.info("Entry created successfully for payment ID: {}", payment.id());
-            }
+        log.info("Scheduled processing of regular payments completed: {} succeeded, {} failed, {} skipped in {} ms.",
+                summary.succeeded(), summary.failed(), summary.skipped(), summary.elapsed().toMillis());
+        return summary;
+    }
+
+    private WriteOffResult writeOff(CreateEntriesPaymentRequestDTO dto) {
+        if (!paymentClient.createEntryPayment(dto)) {
+            log.info("Payment ID: {} is already written off for this period", dto.regularPaymentId());
+            return WriteOffResult.SKIPPED;
         }
+        log.info("Entry created successfully for payment ID: {}", dto.regularPaymentId());
+        return WriteOffResult.SUCCEEDED;
+    }
 
-        log.info("Scheduled processing of regular payments completed.");
+    private List<WriteOffResult> writeOffBatch(List<CreateEntriesPaymentRequestDTO> dtos) {
+        return paymentClient.createEntryPayments(dtos).stream()
+                .map(item -> {
+                    if (item.error() != null) {
+                        log.warn("Write-off rejected for payment ID: {}: {}", item.regularPaymentId(), item.error());
+                        return WriteOffResult.FAILED;
+                    }
+                    if (!item.created()) {
+                        log.info("Payment ID: {} is already written off for this period", item.regularPaymentId());
+                        return WriteOffResult.SKIPPED;
+                    }
+                    log.info("Entry created successfully for payment ID: {}", item.regularPaymentId());
+                    return WriteOffResult.SUCCEEDED;
+                })
+                .toList();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package org.orymar.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.orymar.client.PaymentClientHttp;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.dto.OutputRegularPaymentChangeResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
+import org.orymar.exception.domin.ChangesExpiredException;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Local copy of all regular payments, kept current from PaymentService's change feed. The first
+ * refresh copies the whole book, later ones transfer only what changed since the previous one.
+ * Only what scheduling needs is kept, for every partition, so a partition taken over needs no
+ * fetch of its own. When PaymentService has pruned the deletes since the last refresh, the replica
+ * starts over with a full copy. Not thread-safe: meant to be refreshed and read by one caller.
+ */
+@Slf4j
+class RegularPaymentReplica {
+    static final int PAGE_SIZE = 1000;
+
+    private final PaymentClientHttp paymentClient;
+    private final Map<UUID, ReplicatedPayment> payments = new HashMap<>();
+    private long since;
+    private UUID after;
+
+    RegularPaymentReplica(PaymentClientHttp paymentClient) {
+        this.paymentClient = paymentClient;
+    }
+
+    /** Pulls changes page by page up to the high-water mark; a failure keeps the pages already applied. */
+    void refresh() {
+        do {
+            OutputRegularPaymentChangesResponseDTO page = fetch();
+            page.changes().forEach(this::apply);
+            since = page.highWaterMark();
+            after = page.after();
+        } while (after != null);
+    }
+
+    private OutputRegularPaymentChangesResponseDTO fetch() {
+        try {
+            return paymentClient.getChanges(since, after, PAGE_SIZE);
+        } catch (ChangesExpiredException e) {
+            if (since == 0) {
+                throw e;
+            }
+            // deletes may have been missed, so nothing kept so far can be trusted
+            log.warn("Changes since {} are no longer kept by PaymentService, copying all payments again.", since);
+            payments.clear();
+            since = 0;
+            after = null;
+            return paymentClient.getChanges(since, after, PAGE_SIZE);
+        }
+    }
+
+    void forEach(Consumer<ReplicatedPayment> action) {
+        payments.values().forEach(action);
+    }
+
+    int size() {
+        return payments.size();
+    }
+
+    private void apply(OutputRegularPaymentChangeResponseDTO change) {
+        if (change.deleted()) {
+            payments.remove(change.id());
+        } else {
+            var payment = change.payment();
+            payments.put(change.id(), new ReplicatedPayment(
+                    change.id(), payment.paymentAmount(), payment.debitPeriod(), payment.nextDueAt()));
+        }
+    }
+
+    record ReplicatedPayment(UUID id, Money paymentAmount, RecurrenceRule debitPeriod, LocalDateTime nextDueAt) {
+    }
+}
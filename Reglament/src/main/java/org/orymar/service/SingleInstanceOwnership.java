@@ -0,0 +1,17 @@
+package org.orymar.service;
+
+import org.orymar.scheduling.PartitionOwnership;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "scheduled.partitioning.enabled", havingValue = "false", matchIfMissing = true)
+public class SingleInstanceOwnership implements PartitionOwnership {
+
+    @Override
+    public boolean owns(UUID paymentId) {
+        return true;
+    }
+}
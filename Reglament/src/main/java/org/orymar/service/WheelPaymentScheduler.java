@@ -0,0 +1,223 @@
+package org.orymar.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.orymar.client.PaymentClientHttp;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.WriteOffSummary;
+import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.OutputEntriesBatchItemResponseDTO;
+import org.orymar.domain.enums.WriteOffResult;
+import org.orymar.scheduling.HierarchicalTimingWheel;
+import org.orymar.scheduling.HierarchicalTimingWheel.Timeout;
+import org.orymar.scheduling.PartitionOwnership;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Fires write-offs at each payment's due instant instead of sweeping the whole book.
+ *
+ * <p>Every {@code scheduled.fixedRate} a local replica of the payments is brought up to date from
+ * PaymentService's change feed and the wheel is reconciled with it; between reloads the wheel is
+ * advanced every {@code scheduled.wheel.tick} and a fired payment is rescheduled locally one debit
+ * period later.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "scheduled.mode", havingValue = "wheel")
+public class WheelPaymentScheduler {
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final PaymentClientHttp paymentClient;
+    private final WriteOffExecutor writeOffExecutor;
+    private final PartitionOwnership partitionOwnership;
+    private final Clock clock;
+    private final HierarchicalTimingWheel<ScheduledPayment> wheel;
+    private final RegularPaymentReplica replica;
+    private final Map<UUID, Timeout<ScheduledPayment>> timeouts = new HashMap<>();
+    private final Set<UUID> inFlight = new HashSet<>();
+    private final char ACTIVE_STATUS = 'A';
+
+    @Autowired
+    public WheelPaymentScheduler(PaymentClientHttp paymentClient, WriteOffExecutor writeOffExecutor,
+                                 PartitionOwnership partitionOwnership,
+                                 @Value("${scheduled.wheel.tick}") long tickMillis) {
+        this(paymentClient, writeOffExecutor, partitionOwnership, Clock.systemDefaultZone(), tickMillis);
+    }
+
+    WheelPaymentScheduler(PaymentClientHttp paymentClient, WriteOffExecutor writeOffExecutor,
+                          PartitionOwnership partitionOwnership, Clock clock, long tickMillis) {
+        this.paymentClient = paymentClient;
+        this.writeOffExecutor = writeOffExecutor;
+        this.partitionOwnership = partitionOwnership;
+        this.clock = clock;
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, WHEEL_SIZE, WHEEL_LEVELS, clock.millis());
+        this.replica = new RegularPaymentReplica(paymentClient);
+    }
+
+    @Scheduled(fixedRateString = "${scheduled.fixedRate}")
+    public void reload() {
+        long startedAt = clock.millis();
+        Set<UUID> present = new HashSet<>();
+
+        // Only the changes since the last reload cross the network. The wheel is locked per payment
+        // rather than for the whole walk over the replica, so ticks keep firing in the meantime.
+        replica.refresh();
+        replica.forEach(payment -> {
+            if (!partitionOwnership.owns(payment.id())) {
+                return;
+            }
+            present.add(payment.id());
+            synchronized (wheel) {
+                Timeout<ScheduledPayment> existing = timeouts.get(payment.id());
+                if (inFlight.contains(payment.id())
+                        || existing != null && existing.payload().scheduledAt() >= startedAt) {
+                    return; // fired while the list was in flight, the local schedule is newer
+                }
+                ScheduledPayment scheduled = new ScheduledPayment(payment.id(), payment.paymentAmount(),
+                        payment.debitPeriod(), toMillis(payment.nextDueAt(), startedAt), startedAt);
+                if (existing == null || !existing.payload().sameScheduleAs(scheduled)) {
+                    schedule(scheduled);
+                }
+            }
+        });
+
+        synchronized (wheel) {
+            timeouts.entrySet().removeIf(entry -> !present.contains(entry.getKey())
+                    && entry.getValue().payload().scheduledAt() < startedAt
+                    && wheel.cancel(entry.getValue()));
+        }
+
+        log.info("Timing wheel reloaded, {} payments scheduled.", scheduledCount());
+    }
+
+    @Scheduled(fixedDelayString = "${scheduled.wheel.tick}")
+    public WriteOffSummary tick() {
+        List<ScheduledPayment> expired = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advanceTo(clock.millis(), expired::add);
+            expired.forEach(payment -> timeouts.remove(payment.id()));
+            // a partition handed over since the last reload: its new owner writes the payment off
+            expired.removeIf(payment -> !partitionOwnership.owns(payment.id()));
+            expired.forEach(payment -> inFlight.add(payment.id()));
+        }
+
+        WriteOffSummary summary = writeOffExecutor.isBatching()
+                ? writeOffExecutor.executeBatched(expired, ScheduledPayment::id, this::writeOffBatch)
+                : writeOffExecutor.execute(expired, ScheduledPayment::id, this::writeOff);
+        if (summary.total() > 0) {
+            log.info("Timing wheel tick: {} succeeded, {} failed, {} skipped in {} ms.",
+                    summary.succeeded(), summary.failed(), summary.skipped(), summary.elapsed().toMillis());
+        }
+        return summary;
+    }
+
+    public int scheduledCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    private WriteOffResult writeOff(ScheduledPayment payment) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        boolean created;
+        try {
+            created = paymentClient.createEntryPayment(toEntry(payment, now));
+        } catch (RuntimeException e) {
+            log.warn("Write-off failed for payment ID: {}", payment.id(), e);
+            return unscheduled(List.of(payment), WriteOffResult.FAILED);
+        }
+        return created ? writtenOff(payment, now) : alreadyWrittenOff(payment);
+    }
+
+    private List<WriteOffResult> writeOffBatch(List<ScheduledPayment> payments) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<OutputEntriesBatchItemResponseDTO> items;
+        try {
+            items = paymentClient.createEntryPayments(payments.stream().map(payment -> toEntry(payment, now)).toList());
+        } catch (RuntimeException e) {
+            unscheduled(payments, WriteOffResult.FAILED);
+            throw e;
+        }
+
+        List<WriteOffResult> results = new ArrayList<>(payments.size());
+        for (int i = 0; i < payments.size(); i++) {
+            ScheduledPayment payment = payments.get(i);
+            OutputEntriesBatchItemResponseDTO item = i < items.size() ? items.get(i) : null;
+            String error = item == null ? "missing from the response" : item.error();
+            if (error != null) {
+                log.warn("Write-off rejected for payment ID: {}: {}", payment.id(), error);
+                results.add(unscheduled(List.of(payment), WriteOffResult.FAILED));
+            } else {
+                results.add(item.created() ? writtenOff(payment, now) : alreadyWrittenOff(payment));
+            }
+        }
+        return results;
+    }
+
+    private CreateEntriesPaymentRequestDTO toEntry(ScheduledPayment payment, LocalDateTime now) {
+        LocalDateTime dueAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(payment.dueAt()), clock.getZone());
+        return new CreateEntriesPaymentRequestDTO(payment.id(), now, payment.paymentAmount(), ACTIVE_STATUS, dueAt);
+    }
+
+    private WriteOffResult writtenOff(ScheduledPayment payment, LocalDateTime now) {
+        log.info("Entry created successfully for payment ID: {}", payment.id());
+        long nextDueAt = toMillis(payment.debitPeriod().next(now), clock.millis());
+        synchronized (wheel) {
+            inFlight.remove(payment.id());
+            schedule(payment.rescheduled(nextDueAt, clock.millis()));
+        }
+        return WriteOffResult.SUCCEEDED;
+    }
+
+    private WriteOffResult alreadyWrittenOff(ScheduledPayment payment) {
+        log.info("Payment ID: {} is already written off for this period", payment.id());
+        return unscheduled(List.of(payment), WriteOffResult.SKIPPED);
+    }
+
+    private WriteOffResult unscheduled(List<ScheduledPayment> payments, WriteOffResult result) {
+        // left unscheduled: the next reload brings them back with the server's due date
+        synchronized (wheel) {
+            payments.forEach(payment -> inFlight.remove(payment.id()));
+        }
+        return result;
+    }
+
+    private void schedule(ScheduledPayment payment) {
+        Timeout<ScheduledPayment> previous = timeouts.put(payment.id(), wheel.schedule(payment, payment.dueAt()));
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+    }
+
+    private long toMillis(LocalDateTime dateTime, long fallback) {
+        return dateTime == null ? fallback : dateTime.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    record ScheduledPayment(UUID id, Money paymentAmount, RecurrenceRule debitPeriod, long dueAt, long scheduledAt) {
+        ScheduledPayment rescheduled(long nextDueAt, long now) {
+            return new ScheduledPayment(id, paymentAmount, debitPeriod, nextDueAt, now);
+        }
+
+        boolean sameScheduleAs(ScheduledPayment other) {
+            return dueAt == other.dueAt
+                    && paymentAmount.equals(other.paymentAmount)
+                    && debitPeriod.equals(other.debitPeriod);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.orymar.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.orymar.domain.WriteOffSummary;
+import org.orymar.domain.enums.WriteOffResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs one scheduler run worth of write-offs and reports how they ended.
+ *
+ * <p>Items sharing a key (a regular payment) always run one after another in encounter order, and
+ * once one of them fails the rest are skipped. In parallel mode every key gets its own virtual
+ * thread and at most {@code scheduled.parallel.max-concurrency} write-offs are in flight at once.
+ *
+ * <p>With {@code scheduled.batch.size} above one, {@link #executeBatched} packs whole keys into
+ * chunks of about that many items and hands every chunk to a single call; chunks then take the
+ * place of keys in the rules above. The size may not exceed {@value #MAX_BATCH_SIZE}, the most
+ * entries PaymentService accepts in one batch.
+ */
+@Slf4j
+@Component
+public class WriteOffExecutor {
+    static final int MAX_BATCH_SIZE = 1000;
+
+    private final boolean parallel;
+    private final int maxConcurrency;
+    private final int batchSize;
+
+    public WriteOffExecutor(@Value("${scheduled.parallel.enabled}") boolean parallel,
+                            @Value("${scheduled.parallel.max-concurrency}") int maxConcurrency,
+                            @Value("${scheduled.batch.size}") int batchSize) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive, got " + maxConcurrency);
+        }
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException(
+                    "Batch size must be between 1 and " + MAX_BATCH_SIZE + ", got " + batchSize);
+        }
+        this.parallel = parallel;
+        this.maxConcurrency = maxConcurrency;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isBatching() {
+        return batchSize > 1;
+    }
+
+    public <T> WriteOffSummary execute(List<T> items, Function<T, ?> key, Function<T, WriteOffResult> writeOff) {
+        return run(groupByKey(items, key).values(),
+                (group, permits) -> runGroup(group, writeOff, permits));
+    }
+
+    /**
+     * Like {@link #execute}, but {@code writeOffBatch} gets a whole chunk and must return one result
+     * per item in the same order. A chunk that throws counts as failed as a whole.
+     */
+    public <T> WriteOffSummary executeBatched(List<T> items, Function<T, ?> key,
+                                              Function<List<T>, List<WriteOffResult>> writeOffBatch) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>();
+        for (List<T> group : groupByKey(items, key).values()) {
+            if (!chunk.isEmpty() && chunk.size() + group.size() > batchSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+            chunk.addAll(group);
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return run(chunks, (batch, permits) -> runBatch(batch, writeOffBatch, permits));
+    }
+
+    private <T> Map<Object, List<T>> groupByKey(List<T> items, Function<T, ?> key) {
+        Map<Object, List<T>> byKey = new LinkedHashMap<>();
+        for (T item : items) {
+            byKey.computeIfAbsent(key.apply(item), k -> new ArrayList<>()).add(item);
+        }
+        return byKey;
+    }
+
+    private <U> WriteOffSummary run(Collection<U> units, BiConsumer<U, RunContext> runner) {
+        long startedAt = System.nanoTime();
+        AtomicIntegerArray counts = new AtomicIntegerArray(WriteOffResult.values().length);
+        if (parallel && units.size() > 1) {
+            RunContext context = new RunContext(new Semaphore(maxConcurrency), counts);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                units.forEach(unit -> executor.execute(() -> runner.accept(unit, context)));
+            }
+        } else {
+            RunContext context = new RunContext(null, counts);
+            units.forEach(unit -> runner.accept(unit, context));
+        }
+
+        return new WriteOffSummary(
+                counts.get(WriteOffResult.SUCCEEDED.ordinal()),
+                counts.get(WriteOffResult.FAILED.ordinal()),
+                counts.get(WriteOffResult.SKIPPED.ordinal()),
+                Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private <T> void runGroup(List<T> group, Function<T, WriteOffResult> writeOff, RunContext context) {
+        boolean skipRest = false;
+        for (T item : group) {
+            WriteOffResult result = skipRest ? WriteOffResult.SKIPPED : runOne(item, writeOff, context);
+            skipRest = result == WriteOffResult.FAILED;
+            context.count(result, 1);
+        }
+    }
+
+    private <T> WriteOffResult runOne(T item, Function<T, WriteOffResult> writeOff, RunContext context) {
+        if (!context.acquire()) {
+            return WriteOffResult.SKIPPED;
+        }
+        try {
+            return writeOff.apply(item);
+        } catch (RuntimeException e) {
+            log.warn("Write-off failed for {}", item, e);
+            return WriteOffResult.FAILED;
+        } finally {
+            context.release();
+        }
+    }
+
+    private <T> void runBatch(List<T> batch, Function<List<T>, List<WriteOffResult>> writeOffBatch,
+                              RunContext context) {
+        if (!context.acquire()) {
+            context.count(WriteOffResult.SKIPPED, batch.size());
+            return;
+        }
+        try {
+            List<WriteOffResult> results = writeOffBatch.apply(batch);
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException(
+                        "Expected " + batch.size() + " results, got " + results.size());
+            }
+            results.forEach(result -> context.count(result, 1));
+        } catch (RuntimeException e) {
+            log.warn("Batch write-off of {} items failed", batch.size(), e);
+            context.count(WriteOffResult.FAILED, batch.size());
+        } finally {
+            context.release();
+        }
+    }
+
+    private record RunContext(Semaphore permits, AtomicIntegerArray counts) {
+        boolean acquire() {
+            if (permits == null) {
+                return true;
+            }
+            try {
+                permits.acquire();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void release() {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+
+        void count(WriteOffResult result, int n) {
+            counts.addAndGet(result.ordinal(), n);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.orymar;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Helpers for the tests tagged {@value #TAG}. They are skipped by the default build and run with
+ * {@code mvn test -Pbenchmark}; sizes are read from system properties, e.g.
+ * {@code -Dbenchmark.payments=10000000 -DargLine=-Xmx3g}.
+ */
+public final class Benchmarks {
+    public static final String TAG = "benchmark";
+
+    private Benchmarks() {
+    }
+
+    public static int size(String name, int defaultValue) {
+        return Integer.getInteger("benchmark." + name, defaultValue);
+    }
+
+    /** Heap still reachable after a few full collections. */
+    public static long retainedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /** Bytes allocated so far by the calling thread. */
+    public static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+
+    public static void report(String format, Object... args) {
+        System.out.printf("[benchmark] " + format + "%n", args);
+    }
+}
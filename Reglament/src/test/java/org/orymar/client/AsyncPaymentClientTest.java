@@ -0,0 +1,340 @@
+package org.orymar.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.OutputEntriesBatchItemResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangeResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.exception.domin.ChangesExpiredException;
+import org.orymar.exception.domin.PaymentServiceException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AsyncPaymentClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID id1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    private final CountDownLatch stalled = new CountDownLatch(1);
+
+    private HttpServer server;
+    private HttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stalled.countDown();
+        server.stop(0);
+        httpClient.close();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "201, true",  // new entry
+            "200, false"  // period already booked
+    })
+    @DisplayName("createEntryPayment reports whether the entry was created")
+    void createEntryPaymentReportsCreated(int status, boolean created) {
+        respond("/entrie-payments", exchange -> reply(exchange, status, "{}"));
+
+        boolean result = client(4).createEntryPayment(entry()).join();
+
+        assertEquals(created, result);
+        assertEquals(1, meterRegistry.get(AsyncPaymentClient.REQUESTS_METRIC)
+                .tags("operation", "createEntryPayment", "outcome", "SUCCESS").timer().count());
+    }
+
+    @Test
+    @DisplayName("Error responses fail the future with PaymentServiceException")
+    void errorStatusFails() {
+        respond("/entrie-payments", exchange -> reply(exchange, 500, "{}"));
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> client(4).createEntryPayment(entry()).join());
+
+        assertInstanceOf(PaymentServiceException.class, e.getCause());
+        assertEquals("Failed to create entry payment for regularPaymentId: " + id1 + ": HTTP 500",
+                e.getCause().getMessage());
+        assertEquals(1, meterRegistry.get(AsyncPaymentClient.REQUESTS_METRIC)
+                .tags("outcome", "ERROR").timer().count());
+    }
+
+    @Test
+    @DisplayName("410 Gone from the change feed fails with ChangesExpiredException")
+    void goneChangesExpire() {
+        respond("/regular-payments/changes", exchange -> reply(exchange, 410, "{}"));
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> client(4).getChanges(10, null, 100).join());
+
+        assertInstanceOf(ChangesExpiredException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("getDuePayments reads every element of the JSON array")
+    void getDuePaymentsReadsArray() {
+        UUID id2 = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        respond("/regular-payments/due", exchange ->
+                reply(exchange, 200, "[" + json(payment(id1)) + "," + json(payment(id2)) + "]"));
+
+        List<OutputRegularPaymentResponseDTO> due = client(4).getDuePayments(LocalDateTime.of(2025, 1, 1, 0, 0)).join();
+
+        assertEquals(List.of(id1, id2), due.stream().map(OutputRegularPaymentResponseDTO::id).toList());
+    }
+
+    @Test
+    @DisplayName("getChanges asks for the position and limit and reads the page with its tombstones")
+    void getChangesReadsPage() {
+        UUID id2 = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        respond("/regular-payments/changes", exchange -> {
+            assertEquals("since=41&limit=2&after=" + id1, exchange.getRequestURI().getQuery());
+            reply(exchange, 200, "{\"changes\":["
+                    + "{\"id\":\"" + id1 + "\",\"changeSeq\":41,\"deleted\":false,"
+                    + "\"payment\":" + json(payment(id1)) + "},"
+                    + "{\"id\":\"" + id2 + "\",\"changeSeq\":43,\"deleted\":true,\"payment\":null}],"
+                    + "\"highWaterMark\":43,\"after\":\"" + id2 + "\"}");
+        });
+
+        OutputRegularPaymentChangesResponseDTO page = client(4).getChanges(41, id1, 2).join();
+
+        assertEquals(new OutputRegularPaymentChangesResponseDTO(List.of(
+                new OutputRegularPaymentChangeResponseDTO(id1, 41, false, payment(id1)),
+                new OutputRegularPaymentChangeResponseDTO(id2, 43, true, null)), 43, id2), page);
+    }
+
+    @Test
+    @DisplayName("With CBOR enabled the batch goes out as CBOR and a CBOR reply is decoded")
+    void cborRequestAndResponse() {
+        ObjectMapper cbor = new CBORMapper().findAndRegisterModules();
+        respond("/entrie-payments/batch", exchange -> {
+            assertEquals("application/cbor", exchange.getRequestHeaders().getFirst("Content-Type"));
+            assertTrue(exchange.getRequestHeaders().getFirst("Accept").startsWith("application/cbor"));
+            try (var in = exchange.getRequestBody()) {
+                CreateEntriesPaymentRequestDTO[] sent = cbor.readValue(in, CreateEntriesPaymentRequestDTO[].class);
+                assertEquals(List.of(entry()), List.of(sent));
+                reply(exchange, 200, "application/cbor", cbor.writeValueAsBytes(
+                        List.of(new OutputEntriesBatchItemResponseDTO(0, id1, null, true, null))));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        List<OutputEntriesBatchItemResponseDTO> result = client(4, true).createEntryPayments(List.of(entry())).join();
+
+        assertEquals(List.of(new OutputEntriesBatchItemResponseDTO(0, id1, null, true, null)), result);
+    }
+
+    @Test
+    @DisplayName("With CBOR enabled a JSON reply is still decoded as JSON")
+    void cborFallsBackToJson() {
+        respond("/regular-payments/due", exchange -> {
+            assertTrue(exchange.getRequestHeaders().getFirst("Accept").startsWith("application/cbor"));
+            reply(exchange, 200, "[" + json(payment(id1)) + "]");
+        });
+
+        List<OutputRegularPaymentResponseDTO> due = client(4, true)
+                .getDuePayments(LocalDateTime.of(2025, 1, 1, 0, 0)).join();
+
+        assertEquals(List.of(id1), due.stream().map(OutputRegularPaymentResponseDTO::id).toList());
+    }
+
+    @Test
+    @DisplayName("No more than max-in-flight requests reach PaymentService at once")
+    void respectsMaxInFlight() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        respond("/entrie-payments", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            await(release);
+            concurrent.decrementAndGet();
+            reply(exchange, 201, "");
+        });
+        AsyncPaymentClient client = client(2);
+
+        List<CompletableFuture<Boolean>> calls = IntStream.range(0, 6)
+                .mapToObj(i -> client.createEntryPayment(entry()))
+                .toList();
+        waitUntil(() -> client.inFlight() == 2 && concurrent.get() == 2);
+        assertEquals(4.0, meterRegistry.get(AsyncPaymentClient.PENDING_METRIC).gauge().value());
+        release.countDown();
+
+        calls.forEach(call -> assertTrue(call.join()));
+        assertEquals(2, maxConcurrent.get());
+        assertEquals(0, client.inFlight());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "/regular-payments/due, true",      // body streamed to the handler
+            "/entrie-payments, false"           // body read in full before the handler
+    })
+    @DisplayName("A body that stops arriving times out the exchange and gives the slot back")
+    void stalledBodyTimesOut(String path, boolean streamed) {
+        respond(path, exchange -> {
+            try (exchange) {
+                exchange.sendResponseHeaders(200, 0);
+                exchange.getResponseBody().write(streamed ? "[".getBytes() : "t".getBytes());
+                exchange.getResponseBody().flush();
+                stalled.await(5, TimeUnit.SECONDS);
+            } catch (IOException | InterruptedException ignored) {
+                // the client gave up
+            }
+        });
+        AsyncPaymentClient client = client(4, false, 300);
+
+        CompletableFuture<?> call = streamed
+                ? client.getDuePayments(LocalDateTime.of(2025, 1, 1, 0, 0))
+                : client.createEntryPayment(entry());
+        CompletionException e = assertThrows(CompletionException.class, call::join);
+
+        assertInstanceOf(PaymentServiceException.class, e.getCause());
+        assertInstanceOf(HttpTimeoutException.class, e.getCause().getCause());
+        assertEquals(0, client.inFlight());
+    }
+
+    @Test
+    @DisplayName("A send that throws at once fails the future and gives the slot back")
+    void synchronousSendFailureReleasesSlot() {
+        HttpClient failing = mock(HttpClient.class);
+        when(failing.sendAsync(any(), any())).thenThrow(new IllegalArgumentException("unsupported request"));
+        AsyncPaymentClient client = new AsyncPaymentClient(failing, objectMapper, meterRegistry,
+                "http://localhost:1", 5_000, 1, false);
+
+        for (int i = 0; i < 2; i++) {
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> client.createEntryPayment(entry()).orTimeout(5, TimeUnit.SECONDS).join());
+            assertInstanceOf(IllegalArgumentException.class, e.getCause().getCause());
+        }
+        assertEquals(0, client.inFlight());
+    }
+
+    @Test
+    @DisplayName("A closed client fails new calls instead of queueing them")
+    void closedClientRejectsCalls() {
+        AsyncPaymentClient client = client(4);
+
+        client.close();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> client.createEntryPayment(entry()).join());
+        assertInstanceOf(PaymentServiceException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("Non-positive max-in-flight is rejected")
+    void rejectsInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> client(0));
+    }
+
+    private AsyncPaymentClient client(int maxInFlight) {
+        return client(maxInFlight, false);
+    }
+
+    private AsyncPaymentClient client(int maxInFlight, boolean cborEnabled) {
+        return client(maxInFlight, cborEnabled, 5_000);
+    }
+
+    private AsyncPaymentClient client(int maxInFlight, boolean cborEnabled, long readTimeoutMillis) {
+        return new AsyncPaymentClient(httpClient, objectMapper, meterRegistry,
+                "http://localhost:" + server.getAddress().getPort(), readTimeoutMillis, maxInFlight, cborEnabled);
+    }
+
+    private void respond(String path, Consumer<HttpExchange> handler) {
+        server.createContext(path, handler::accept);
+    }
+
+    private static void reply(HttpExchange exchange, int status, String body) {
+        reply(exchange, status, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void reply(HttpExchange exchange, int status, String contentType, byte[] bytes) {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CreateEntriesPaymentRequestDTO entry() {
+        return new CreateEntriesPaymentRequestDTO(
+                id1, LocalDateTime.of(2025, 1, 1, 0, 0), Money.of("10"), 'A', null);
+    }
+
+    private OutputRegularPaymentResponseDTO payment(UUID id) {
+        return new OutputRegularPaymentResponseDTO(id, "Rymar Oleksandr", "1234567890",
+                "UA123456789012345678901234567", "123456", "12345678", "Rymar Oleks",
+                RecurrenceRule.parse("1d"), Money.of("123.45"), LocalDateTime.of(2025, 1, 1, 0, 0));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
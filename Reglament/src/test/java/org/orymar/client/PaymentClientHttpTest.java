@@ -0,0 +1,66 @@
+package org.orymar.client;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.orymar.exception.domin.PaymentServiceException;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class PaymentClientHttpTest {
+
+    @Mock
+    private AsyncPaymentClient asyncClient;
+
+    @InjectMocks
+    private PaymentClientHttp client;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    @DisplayName("A PaymentServiceException from the async client is rethrown as is")
+    void rethrowsPaymentServiceException() {
+        PaymentServiceException failure = new PaymentServiceException("boom", new IOException());
+        when(asyncClient.getDuePayments(any())).thenReturn(CompletableFuture.failedFuture(failure));
+
+        assertSame(failure, assertThrows(PaymentServiceException.class,
+                () -> client.getDuePayments(LocalDateTime.of(2025, 1, 1, 0, 0))));
+    }
+
+    @Test
+    @DisplayName("Any other failure is wrapped in PaymentServiceException")
+    void wrapsOtherFailures() {
+        when(asyncClient.getDuePayments(any())).thenReturn(CompletableFuture.failedFuture(new IOException()));
+
+        PaymentServiceException e = assertThrows(PaymentServiceException.class,
+                () -> client.getDuePayments(LocalDateTime.of(2025, 1, 1, 0, 0)));
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+
+    @Test
+    @DisplayName("A cancelled call is wrapped in PaymentServiceException")
+    void wrapsCancellation() {
+        CompletableFuture<Boolean> cancelled = new CompletableFuture<>();
+        cancelled.cancel(false);
+        when(asyncClient.createEntryPayment(any())).thenReturn(cancelled);
+
+        PaymentServiceException e = assertThrows(PaymentServiceException.class,
+                () -> client.createEntryPayment(null));
+        assertInstanceOf(CancellationException.class, e.getCause());
+    }
+}
@@ -0,0 +1,31 @@
+package org.orymar.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientConfigTest {
+
+    @Test
+    @DisplayName("The HTTP client runs on the executor bean, which is shut down with the context")
+    void executorClosedWithContext() {
+        AtomicReference<ExecutorService> executor = new AtomicReference<>();
+
+        new ApplicationContextRunner()
+                .withUserConfiguration(HttpClientConfig.class)
+                .withPropertyValues("payment-service.connect-timeout=1000")
+                .run(context -> {
+                    executor.set(context.getBean("paymentServiceHttpExecutor", ExecutorService.class));
+                    assertThat(context.getBean(HttpClient.class).executor()).contains(executor.get());
+                    assertThat(executor.get().isShutdown()).isFalse();
+                });
+
+        assertThat(executor.get().isShutdown()).isTrue();
+    }
+}
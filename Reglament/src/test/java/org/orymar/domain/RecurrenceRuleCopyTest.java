@@ -0,0 +1,43 @@
+package org.orymar.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Reglament schedules with a copy of PaymentService's recurrence rules, so both must agree on every
+ * due date and billing period. The copy may only leave out the OpenAPI annotations.
+ */
+class RecurrenceRuleCopyTest {
+
+    private static final Path PAYMENT_SERVICE = Path.of("../PaymentService/src/main/java");
+    private static final Path REGLAMENT = Path.of("src/main/java");
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "org/orymar/domain/RecurrenceRule.java",
+            "org/orymar/domain/RecurrenceRuleParser.java",
+            "org/orymar/domain/enums/TimeUnitSuffix.java"
+    })
+    @DisplayName("The recurrence rules match PaymentService's line for line")
+    void matchesPaymentService(String file) throws IOException {
+        Path original = PAYMENT_SERVICE.resolve(file);
+        assumeTrue(Files.exists(original), "PaymentService sources are not next to Reglament");
+
+        assertEquals(withoutSchema(original), withoutSchema(REGLAMENT.resolve(file)), file);
+    }
+
+    private static List<String> withoutSchema(Path file) throws IOException {
+        return Files.readAllLines(file).stream()
+                .filter(line -> !line.contains("io.swagger.v3.oas.annotations") && !line.startsWith("@Schema"))
+                .toList();
+    }
+}
@@ -0,0 +1,116 @@
+package org.orymar.scheduling;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    @DisplayName("Timeout fires on the first tick strictly after its deadline")
+    void firesAfterDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 2, 0);
+        wheel.schedule("a", 35);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(39, fired::add);
+        assertTrue(fired.isEmpty());
+
+        wheel.advanceTo(40, fired::add);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Deadline in the past fires on the next advance")
+    void pastDeadlineFiresImmediately() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 2, 1_000);
+        wheel.schedule("late", 10);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(1_000, fired::add);
+
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    @DisplayName("Cancelled timeout never fires")
+    void cancelledTimeoutDoesNotFire() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 2, 0);
+        HierarchicalTimingWheel.Timeout<String> timeout = wheel.schedule("a", 500);
+        wheel.schedule("b", 500);
+
+        assertTrue(wheel.cancel(timeout));
+        assertFalse(wheel.cancel(timeout));
+        assertFalse(timeout.isScheduled());
+        assertEquals(1, wheel.size());
+
+        List<String> fired = new ArrayList<>();
+        wheel.advanceTo(1_000, fired::add);
+        assertEquals(List.of("b"), fired);
+    }
+
+    @Test
+    @DisplayName("Random deadlines across all levels and beyond the horizon fire exactly once, on time")
+    void randomDeadlinesFireOnTime() {
+        long tick = 10;
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(tick, 4, 3, 0);
+        Random random = new Random(42);
+        Map<Long, Long> firedAt = new HashMap<>();
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = random.nextLong(5_000);
+            deadlines.add(deadline);
+            wheel.schedule((long) i, deadline);
+        }
+
+        long now = 0;
+        while (wheel.size() > 0) {
+            now += random.nextLong(1, 3) * tick;
+            long at = now;
+            wheel.advanceTo(at, id -> assertNull(firedAt.put(id, at), "fired twice: " + id));
+        }
+
+        for (int i = 0; i < deadlines.size(); i++) {
+            long deadline = deadlines.get(i);
+            long fired = firedAt.get((long) i);
+            assertTrue(fired > deadline, "fired early: " + i);
+            assertTrue(fired <= deadline + 3 * tick, "fired late: " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Advancing an empty wheel jumps straight to the target tick")
+    void emptyWheelJumps() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10, 8, 2, 0);
+        wheel.advanceTo(Long.MAX_VALUE / 2, s -> fail());
+        wheel.schedule("a", Long.MAX_VALUE / 2 + 5);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advanceTo(Long.MAX_VALUE / 2 + 10, fired::add);
+
+        assertEquals(List.of("a"), fired);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 8, 2",
+            "10, 6, 2",
+            "10, 1, 2",
+            "10, 8, 0",
+            "10, 256, 8"
+    })
+    @DisplayName("Invalid wheel geometry is rejected")
+    void invalidGeometry(long tick, int size, int levels) {
+        assertThrows(IllegalArgumentException.class, () -> new HierarchicalTimingWheel<>(tick, size, levels, 0));
+    }
+}
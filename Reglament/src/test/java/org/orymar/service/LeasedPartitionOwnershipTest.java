@@ -0,0 +1,139 @@
+package org.orymar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.orymar.repository.PartitionLeaseRepository;
+import org.orymar.scheduling.PartitionOwnership;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LeasedPartitionOwnershipTest {
+
+    private static final int PARTITIONS = 4;
+    private static final Duration HEARTBEAT = Duration.ofSeconds(5);
+    private static final Duration TTL = Duration.ofSeconds(15);
+
+    @Mock
+    private PartitionLeaseRepository leaseRepository;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private LeasedPartitionOwnership ownership;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ownership = new LeasedPartitionOwnership(leaseRepository, "b", PARTITIONS, HEARTBEAT, TTL, nanoTime::get);
+        when(leaseRepository.acquire(eq("b"), anyCollection(), eq(TTL)))
+                .thenAnswer(invocation -> Set.copyOf(invocation.<Collection<Integer>>getArgument(1)));
+    }
+
+    @Test
+    @DisplayName("Instance claims every partition at its index in the sorted list of live instances")
+    void claimsItsShare() {
+        when(leaseRepository.findLiveInstances(TTL)).thenReturn(List.of("a", "b"));
+
+        ownership.rebalance();
+
+        verify(leaseRepository).createPartitions(PARTITIONS);
+        verify(leaseRepository).heartbeat("b");
+        verify(leaseRepository).acquire("b", Set.of(1, 3), TTL);
+        assertEquals(Set.of(1, 3), ownership.ownedPartitions());
+        assertTrue(ownership.owns(paymentIn(1)));
+        assertFalse(ownership.owns(paymentIn(0)));
+    }
+
+    @Test
+    @DisplayName("Partitions held by another instance are not owned until their lease is free")
+    void waitsForForeignLeases() {
+        when(leaseRepository.findLiveInstances(TTL)).thenReturn(List.of("b"));
+        when(leaseRepository.acquire("b", Set.of(0, 1, 2, 3), TTL)).thenReturn(Set.of(0, 1));
+
+        ownership.rebalance();
+
+        assertTrue(ownership.owns(paymentIn(1)));
+        assertFalse(ownership.owns(paymentIn(2)));
+    }
+
+    @Test
+    @DisplayName("Partitions given up on a join are dropped at once and released one heartbeat later")
+    void releasesGivenUpPartitionsLater() {
+        when(leaseRepository.findLiveInstances(TTL)).thenReturn(List.of("b"));
+        ownership.rebalance();
+        assertTrue(ownership.owns(paymentIn(0)));
+
+        when(leaseRepository.findLiveInstances(TTL)).thenReturn(List.of("a", "b"));
+        ownership.rebalance();
+        assertFalse(ownership.owns(paymentIn(0)));
+        verify(leaseRepository, never()).release(eq("b"), eq(Set.of(0, 2)));
+
+        ownership.rebalance();
+        verify(leaseRepository).release("b", Set.of(0, 2));
+        verify(leaseRepository, times(1)).createPartitions(PARTITIONS);
+    }
+
+    @Test
+    @DisplayName("Ownership lapses one heartbeat before the leases expire when renewing stops")
+    void ownershipLapsesWithoutRenewal() {
+        when(leaseRepository.findLiveInstances(TTL)).thenReturn(List.of("b"));
+        ownership.rebalance();
+
+        nanoTime.addAndGet(TTL.minus(HEARTBEAT).toNanos() - 1);
+        assertTrue(ownership.owns(paymentIn(0)));
+        nanoTime.addAndGet(1);
+        assertFalse(ownership.owns(paymentIn(0)));
+    }
+
+    @Test
+    @DisplayName("Leaving releases every lease")
+    void leaveReleasesLeases() {
+        when(leaseRepository.findLiveInstances(TTL)).thenReturn(List.of("b"));
+        ownership.rebalance();
+
+        ownership.leave();
+
+        verify(leaseRepository).leave("b");
+        assertFalse(ownership.owns(paymentIn(0)));
+    }
+
+    @Test
+    @DisplayName("Lease TTL shorter than two heartbeats is rejected")
+    void rejectsShortTtl() {
+        assertThrows(IllegalArgumentException.class, () -> new LeasedPartitionOwnership(
+                leaseRepository, "b", PARTITIONS, HEARTBEAT, Duration.ofSeconds(9), nanoTime::get));
+        verify(leaseRepository, never()).acquire(any(), anyCollection(), any());
+    }
+
+    @Test
+    @DisplayName("Payment ids spread evenly over the partitions")
+    void partitionsAreBalanced() {
+        int[] counts = new int[PARTITIONS];
+        for (int i = 0; i < 40_000; i++) {
+            counts[PartitionOwnership.partitionOf(UUID.randomUUID(), PARTITIONS)]++;
+        }
+        for (int count : counts) {
+            assertEquals(10_000, count, 500);
+        }
+    }
+
+    private static UUID paymentIn(int partition) {
+        UUID id;
+        do {
+            id = UUID.randomUUID();
+        } while (PartitionOwnership.partitionOf(id, PARTITIONS) != partition);
+        return id;
+    }
+}
@@ -2,21 +2,26 @@ package org.orymar.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.orymar.client.PaymentClientHttp;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.WriteOffSummary;
 import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.OutputEntriesBatchItemResponseDTO;
 import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.exception.domin.PaymentServiceException;
 
-import java.math.BigDecimal;
-import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
-import static org.mockito.ArgumentMatchers.any;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 class PaymentSchedulerTest {
@@ -24,7 +29,6 @@ class PaymentSchedulerTest {
     @Mock
     private PaymentClientHttp paymentClient;
 
-    @InjectMocks
     private PaymentScheduler scheduler;
 
     private final UUID id1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
@@ -33,36 +37,113 @@ class PaymentSchedulerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        scheduler = new PaymentScheduler(paymentClient, new WriteOffExecutor(false, 1, 1), id -> true);
+        when(paymentClient.createEntryPayment(any())).thenReturn(true);
     }
 
     @ParameterizedTest
     @CsvSource({
-            "0,false", // no payments
-            "1,true",  // one payment, should write off
-            "1,false", // one payment, no write off
-            "2,true"   // two payments, should write off
+            "0", // nothing due
+            "1", // one payment due
+            "2"  // two payments due
     })
-    @DisplayName("processPayments should correctly handle various scenarios")
-    void testProcessPayments(int paymentCount, boolean shouldWriteOff) {
-        List<OutputRegularPaymentResponseDTO> payments = switch (paymentCount) {
+    @DisplayName("processPayments should write off every due payment")
+    void testProcessPayments(int dueCount) {
+        List<OutputRegularPaymentResponseDTO> payments = switch (dueCount) {
             case 0 -> List.of();
             case 1 -> List.of(createPayment(id1));
             case 2 -> List.of(createPayment(id1), createPayment(id2));
-            default -> throw new IllegalArgumentException("Unexpected count: " + paymentCount);
+            default -> throw new IllegalArgumentException("Unexpected count: " + dueCount);
         };
-        when(paymentClient.getAllPayments()).thenReturn(payments);
-        when(paymentClient.isWriteOffNeeded(any(UUID.class))).thenReturn(shouldWriteOff);
+        when(paymentClient.getDuePayments(any(LocalDateTime.class))).thenReturn(payments);
+
+        WriteOffSummary summary = scheduler.processPayments();
+
+        assertEquals(dueCount, summary.succeeded());
+        verify(paymentClient).getDuePayments(any(LocalDateTime.class));
+        verify(paymentClient, times(dueCount))
+                .createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
+    }
+
+    @Test
+    @DisplayName("processPayments should stamp entries with the instant used for the due query")
+    void testProcessPaymentsUsesQueryInstant() {
+        ArgumentCaptor<LocalDateTime> at = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<CreateEntriesPaymentRequestDTO> entry =
+                ArgumentCaptor.forClass(CreateEntriesPaymentRequestDTO.class);
+        when(paymentClient.getDuePayments(at.capture())).thenReturn(List.of(createPayment(id1)));
 
         scheduler.processPayments();
 
-        verify(paymentClient).getAllPayments();
-        verify(paymentClient, times(paymentCount)).isWriteOffNeeded(any(UUID.class));
-        if (shouldWriteOff && paymentCount > 0) {
-            verify(paymentClient, times(paymentCount))
-                    .createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
-        } else {
-            verify(paymentClient, never()).createEntryPayment(any());
-        }
+        verify(paymentClient).createEntryPayment(entry.capture());
+        assertEquals(at.getValue(), entry.getValue().dateOfPayment());
+        assertEquals(id1, entry.getValue().regularPaymentId());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 0, 0), entry.getValue().dueAt());
+    }
+
+    @Test
+    @DisplayName("processPayments should count a period that is already written off as skipped")
+    void testProcessPaymentsSkipsBookedPeriod() {
+        when(paymentClient.getDuePayments(any(LocalDateTime.class)))
+                .thenReturn(List.of(createPayment(id1), createPayment(id2)));
+        when(paymentClient.createEntryPayment(any())).thenReturn(false, true);
+
+        WriteOffSummary summary = scheduler.processPayments();
+
+        assertEquals(1, summary.succeeded());
+        assertEquals(1, summary.skipped());
+        assertEquals(0, summary.failed());
+    }
+
+    @Test
+    @DisplayName("processPayments should count a failed write-off and carry on with the rest")
+    void testProcessPaymentsContinuesAfterFailure() {
+        when(paymentClient.getDuePayments(any(LocalDateTime.class)))
+                .thenReturn(List.of(createPayment(id1), createPayment(id2)));
+        when(paymentClient.createEntryPayment(any()))
+                .thenThrow(new PaymentServiceException("down", null))
+                .thenReturn(true);
+
+        WriteOffSummary summary = scheduler.processPayments();
+
+        assertEquals(1, summary.succeeded());
+        assertEquals(1, summary.failed());
+        verify(paymentClient, times(2)).createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
+    }
+
+    @Test
+    @DisplayName("processPayments should send due payments in batches and count rejected items as failed")
+    void testProcessPaymentsInBatches() {
+        UUID id3 = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        scheduler = new PaymentScheduler(paymentClient, new WriteOffExecutor(false, 1, 2), id -> true);
+        when(paymentClient.getDuePayments(any(LocalDateTime.class)))
+                .thenReturn(List.of(createPayment(id1), createPayment(id2), createPayment(id3)));
+        when(paymentClient.createEntryPayments(anyList()))
+                .thenReturn(List.of(
+                        new OutputEntriesBatchItemResponseDTO(0, id1, null, true, null),
+                        new OutputEntriesBatchItemResponseDTO(1, id2, null, false, "RegularPayment not found")))
+                .thenReturn(List.of(new OutputEntriesBatchItemResponseDTO(0, id3, null, true, null)));
+
+        WriteOffSummary summary = scheduler.processPayments();
+
+        assertEquals(2, summary.succeeded());
+        assertEquals(1, summary.failed());
+        verify(paymentClient, times(2)).createEntryPayments(anyList());
+        verify(paymentClient, never()).createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
+    }
+
+    @Test
+    @DisplayName("processPayments should write off only payments of partitions owned by this instance")
+    void testProcessPaymentsSkipsForeignPartitions() {
+        scheduler = new PaymentScheduler(paymentClient, new WriteOffExecutor(false, 1, 1), id1::equals);
+        when(paymentClient.getDuePayments(any(LocalDateTime.class)))
+                .thenReturn(List.of(createPayment(id1), createPayment(id2)));
+
+        WriteOffSummary summary = scheduler.processPayments();
+
+        assertEquals(1, summary.total());
+        verify(paymentClient).createEntryPayment(argThat(dto -> dto.regularPaymentId().equals(id1)));
+        verify(paymentClient, times(1)).createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
     }
 
     private OutputRegularPaymentResponseDTO createPayment(UUID id) {
@@ -74,8 +155,9 @@ class PaymentSchedulerTest {
                 "123456",
                 "12345678",
                 "Rymar Oleks",
-                Duration.ofDays(1),
-                BigDecimal.valueOf(123.45)
+                RecurrenceRule.parse("1d"),
+                Money.of("123.45"),
+                LocalDateTime.of(2025, 1, 1, 0, 0)
         );
     }
 }
\ No newline at end of file
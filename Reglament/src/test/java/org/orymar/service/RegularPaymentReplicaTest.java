@@ -0,0 +1,134 @@
+package org.orymar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.orymar.client.PaymentClientHttp;
+import org.orymar.domain.dto.OutputRegularPaymentChangeResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
+import org.orymar.exception.domin.ChangesExpiredException;
+import org.orymar.exception.domin.PaymentServiceException;
+import org.orymar.service.RegularPaymentReplica.ReplicatedPayment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RegularPaymentReplicaTest {
+
+    private static final int PAGE = RegularPaymentReplica.PAGE_SIZE;
+    private static final LocalDateTime DUE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private PaymentClientHttp paymentClient;
+
+    private RegularPaymentReplica replica;
+
+    private final UUID id1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private final UUID id2 = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        replica = new RegularPaymentReplica(paymentClient);
+    }
+
+    @Test
+    @DisplayName("Refresh follows a cut page and then asks only for what changed since the high-water mark")
+    void refreshPagesThroughChanges() {
+        when(paymentClient.getChanges(0, null, PAGE)).thenReturn(page(10, id1, updated(id1, 10)));
+        when(paymentClient.getChanges(10, id1, PAGE)).thenReturn(page(20, null, updated(id2, 12)));
+        when(paymentClient.getChanges(20, null, PAGE)).thenReturn(page(25, null, deleted(id1, 21)));
+
+        replica.refresh();
+        assertEquals(List.of(id1, id2), ids());
+
+        replica.refresh();
+        assertEquals(List.of(id2), ids());
+        verify(paymentClient, times(3)).getChanges(anyLong(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("A later change of a payment replaces the replicated one")
+    void refreshReplacesPayment() {
+        var moved = new OutputRegularPaymentChangeResponseDTO(id1, 11, false,
+                WheelPaymentSchedulerTest.createPayment(id1, DUE.plusDays(1)));
+        when(paymentClient.getChanges(0, null, PAGE)).thenReturn(page(12, null, updated(id1, 10), moved));
+
+        replica.refresh();
+
+        List<ReplicatedPayment> payments = new ArrayList<>();
+        replica.forEach(payments::add);
+        assertEquals(1, payments.size());
+        assertEquals(DUE.plusDays(1), payments.get(0).nextDueAt());
+    }
+
+    @Test
+    @DisplayName("A refresh that fails keeps the pages applied so far and resumes after them")
+    void failedRefreshResumes() {
+        when(paymentClient.getChanges(0, null, PAGE)).thenReturn(page(10, id1, updated(id1, 10)));
+        when(paymentClient.getChanges(10, id1, PAGE))
+                .thenThrow(new PaymentServiceException("connection reset", null))
+                .thenReturn(page(20, null, updated(id2, 12)));
+
+        assertThrows(PaymentServiceException.class, () -> replica.refresh());
+        assertEquals(List.of(id1), ids());
+
+        replica.refresh();
+        assertEquals(2, replica.size());
+        verify(paymentClient, times(1)).getChanges(0, null, PAGE);
+    }
+
+    @Test
+    @DisplayName("An expired position drops the replica and copies all payments again")
+    void expiredPositionResyncs() {
+        when(paymentClient.getChanges(0, null, PAGE))
+                .thenReturn(page(10, null, updated(id1, 10)))
+                .thenReturn(page(40, null, updated(id2, 35)));
+        when(paymentClient.getChanges(10, null, PAGE)).thenThrow(new ChangesExpiredException("HTTP 410"));
+        replica.refresh();
+
+        replica.refresh();
+
+        assertEquals(List.of(id2), ids());
+        when(paymentClient.getChanges(40, null, PAGE)).thenReturn(page(45, null));
+        replica.refresh();
+        verify(paymentClient).getChanges(40, null, PAGE);
+    }
+
+    @Test
+    @DisplayName("An expired full copy is not retried in a loop")
+    void expiredFullCopyFails() {
+        when(paymentClient.getChanges(0, null, PAGE)).thenThrow(new ChangesExpiredException("HTTP 410"));
+
+        assertThrows(ChangesExpiredException.class, () -> replica.refresh());
+        verify(paymentClient, times(1)).getChanges(anyLong(), any(), anyInt());
+    }
+
+    private List<UUID> ids() {
+        List<UUID> ids = new ArrayList<>();
+        replica.forEach(payment -> ids.add(payment.id()));
+        ids.sort(null);
+        return ids;
+    }
+
+    private static OutputRegularPaymentChangesResponseDTO page(long highWaterMark, UUID after,
+                                                               OutputRegularPaymentChangeResponseDTO... changes) {
+        return new OutputRegularPaymentChangesResponseDTO(List.of(changes), highWaterMark, after);
+    }
+
+    private static OutputRegularPaymentChangeResponseDTO updated(UUID id, long changeSeq) {
+        return new OutputRegularPaymentChangeResponseDTO(id, changeSeq, false,
+                WheelPaymentSchedulerTest.createPayment(id, DUE));
+    }
+
+    private static OutputRegularPaymentChangeResponseDTO deleted(UUID id, long changeSeq) {
+        return new OutputRegularPaymentChangeResponseDTO(id, changeSeq, true, null);
+    }
+}
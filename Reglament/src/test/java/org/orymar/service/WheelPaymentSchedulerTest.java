@@ -0,0 +1,239 @@
+package org.orymar.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.orymar.client.PaymentClientHttp;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.domain.WriteOffSummary;
+import org.orymar.domain.dto.CreateEntriesPaymentRequestDTO;
+import org.orymar.domain.dto.OutputEntriesBatchItemResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangeResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentChangesResponseDTO;
+import org.orymar.domain.dto.OutputRegularPaymentResponseDTO;
+import org.orymar.exception.domin.PaymentServiceException;
+import org.orymar.scheduling.PartitionOwnership;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WheelPaymentSchedulerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Mock
+    private PaymentClientHttp paymentClient;
+
+    private MovableClock clock;
+    private WheelPaymentScheduler scheduler;
+
+    private final UUID id1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private long highWaterMark;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        clock = new MovableClock(START.toInstant(ZoneOffset.UTC));
+        scheduler = new WheelPaymentScheduler(
+                paymentClient, new WriteOffExecutor(false, 1, 1), id -> true, clock, 1_000);
+        when(paymentClient.createEntryPayment(any())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("Payment fires once its due instant passes and is rescheduled one period later")
+    void firesAtDueInstant() {
+        givenChanges(updated(id1, START.plusMinutes(1)));
+        scheduler.reload();
+
+        clock.advance(Duration.ofSeconds(59));
+        scheduler.tick();
+        verify(paymentClient, never()).createEntryPayment(any());
+
+        clock.advance(Duration.ofSeconds(2));
+        scheduler.tick();
+        verify(paymentClient, times(1)).createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
+        assertEquals(1, scheduler.scheduledCount());
+
+        clock.advance(Duration.ofSeconds(30));
+        scheduler.tick();
+        verify(paymentClient, times(1)).createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
+
+        clock.advance(Duration.ofMinutes(1));
+        scheduler.tick();
+        verify(paymentClient, times(2)).createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
+    }
+
+    @Test
+    @DisplayName("Reload drops payments deleted since the previous one")
+    void reloadCancelsRemovedPayments() {
+        givenChanges(updated(id1, START.plusMinutes(1)));
+        scheduler.reload();
+        assertEquals(1, scheduler.scheduledCount());
+
+        clock.advance(Duration.ofSeconds(1));
+        givenChanges(new OutputRegularPaymentChangeResponseDTO(id1, 2, true, null));
+        scheduler.reload();
+        assertEquals(0, scheduler.scheduledCount());
+
+        clock.advance(Duration.ofMinutes(5));
+        scheduler.tick();
+        verify(paymentClient, never()).createEntryPayment(any());
+    }
+
+    @Test
+    @DisplayName("Reload that fails mid-stream keeps the current schedule")
+    void interruptedReloadKeepsSchedule() {
+        givenChanges(updated(id1, START.plusMinutes(1)));
+        scheduler.reload();
+
+        clock.advance(Duration.ofSeconds(1));
+        when(paymentClient.getChanges(anyLong(), any(), anyInt()))
+                .thenThrow(new PaymentServiceException("connection reset", null));
+        assertThrows(PaymentServiceException.class, () -> scheduler.reload());
+
+        assertEquals(1, scheduler.scheduledCount());
+    }
+
+    @Test
+    @DisplayName("Failed write-off is picked up again by the next reload, with nothing changed on the server")
+    void failedWriteOffIsReloaded() {
+        givenChanges(updated(id1, START));
+        when(paymentClient.createEntryPayment(any()))
+                .thenThrow(new PaymentServiceException("down", null))
+                .thenReturn(true);
+        scheduler.reload();
+
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.tick();
+        assertEquals(0, scheduler.scheduledCount());
+
+        scheduler.reload();
+        clock.advance(Duration.ofSeconds(1));
+        scheduler.tick();
+        verify(paymentClient, times(2)).createEntryPayment(any(CreateEntriesPaymentRequestDTO.class));
+        assertEquals(1, scheduler.scheduledCount());
+    }
+
+    @Test
+    @DisplayName("Period written off elsewhere is skipped and left for the next reload")
+    void bookedPeriodIsSkipped() {
+        givenChanges(updated(id1, START));
+        when(paymentClient.createEntryPayment(any())).thenReturn(false);
+        scheduler.reload();
+
+        clock.advance(Duration.ofSeconds(1));
+        WriteOffSummary summary = scheduler.tick();
+
+        assertEquals(1, summary.skipped());
+        assertEquals(0, scheduler.scheduledCount());
+        verify(paymentClient).createEntryPayment(argThat(dto -> START.equals(dto.dueAt())));
+    }
+
+    @Test
+    @DisplayName("Batched tick writes off due payments in one call and reschedules only the accepted ones")
+    void batchedTickReschedulesAcceptedPayments() {
+        UUID id2 = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        scheduler = new WheelPaymentScheduler(
+                paymentClient, new WriteOffExecutor(false, 1, 10), id -> true, clock, 1_000);
+        givenChanges(updated(id1, START), updated(id2, START));
+        when(paymentClient.createEntryPayments(anyList())).thenReturn(List.of(
+                new OutputEntriesBatchItemResponseDTO(0, id1, null, true, null),
+                new OutputEntriesBatchItemResponseDTO(1, id2, null, false, "RegularPayment not found")));
+        scheduler.reload();
+
+        clock.advance(Duration.ofSeconds(1));
+        WriteOffSummary summary = scheduler.tick();
+
+        assertEquals(1, summary.succeeded());
+        assertEquals(1, summary.failed());
+        assertEquals(1, scheduler.scheduledCount());
+        verify(paymentClient, times(1)).createEntryPayments(anyList());
+        verify(paymentClient, never()).createEntryPayment(any());
+    }
+
+    @Test
+    @DisplayName("Wheel mode wires the scheduler through its public constructor")
+    void wheelModeStartsUnderSpring() {
+        new ApplicationContextRunner()
+                .withBean(PaymentClientHttp.class, () -> paymentClient)
+                .withBean(PartitionOwnership.class, () -> id -> true)
+                .withUserConfiguration(WriteOffExecutor.class, WheelPaymentScheduler.class)
+                .withPropertyValues("scheduled.mode=wheel", "scheduled.wheel.tick=1000",
+                        "scheduled.parallel.enabled=false", "scheduled.parallel.max-concurrency=1",
+                        "scheduled.batch.size=1")
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).hasSingleBean(WheelPaymentScheduler.class);
+                });
+    }
+
+    /** The next reload sees {@code changes}, every later one nothing new. */
+    private void givenChanges(OutputRegularPaymentChangeResponseDTO... changes) {
+        highWaterMark += changes.length;
+        when(paymentClient.getChanges(anyLong(), any(), anyInt())).thenReturn(
+                new OutputRegularPaymentChangesResponseDTO(List.of(changes), highWaterMark, null),
+                new OutputRegularPaymentChangesResponseDTO(List.of(), highWaterMark, null));
+    }
+
+    private OutputRegularPaymentChangeResponseDTO updated(UUID id, LocalDateTime nextDueAt) {
+        return new OutputRegularPaymentChangeResponseDTO(id, highWaterMark + 1, false, createPayment(id, nextDueAt));
+    }
+
+    static OutputRegularPaymentResponseDTO createPayment(UUID id, LocalDateTime nextDueAt) {
+        return new OutputRegularPaymentResponseDTO(
+                id,
+                "Rymar Oleksandr",
+                "1234567890",
+                "UA123456789012345678901234567",
+                "123456",
+                "12345678",
+                "Rymar Oleks",
+                RecurrenceRule.parse("1m"),
+                Money.of("123.45"),
+                nextDueAt
+        );
+    }
+
+    private static final class MovableClock extends Clock {
+        private Instant instant;
+
+        private MovableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.orymar.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.orymar.Benchmarks;
+import org.orymar.domain.Money;
+import org.orymar.domain.RecurrenceRule;
+import org.orymar.scheduling.HierarchicalTimingWheel;
+import org.orymar.scheduling.HierarchicalTimingWheel.Timeout;
+import org.orymar.service.WheelPaymentScheduler.ScheduledPayment;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The wheel as {@link WheelPaymentScheduler} builds it (1 s tick, 4 levels of 256 slots) with its
+ * id index, loaded with {@code benchmark.payments} payments due over 30 days and then run through
+ * those 30 days.
+ */
+@Tag(Benchmarks.TAG)
+class WheelSchedulingBenchmark {
+    private static final long TICK_MILLIS = 1_000;
+    private static final long SPAN_MILLIS = Duration.ofDays(30).toMillis();
+    private static final long START = 1_735_689_600_000L;
+
+    @Test
+    @DisplayName("Wheel - insert rate, retained heap per payment and expiry rate over 30 days")
+    void scheduleAndDrain() {
+        int count = Benchmarks.size("payments", 1_000_000);
+        for (int round = 0; round < 3; round++) {
+            run(Math.min(count, 100_000), false);
+        }
+        run(count, true);
+    }
+
+    private void run(int count, boolean report) {
+        long heapBefore = Benchmarks.retainedHeap();
+        ScheduledPayment[] payments = payments(count);
+        HierarchicalTimingWheel<ScheduledPayment> wheel = new HierarchicalTimingWheel<>(TICK_MILLIS, 256, 4, START);
+        Map<UUID, Timeout<ScheduledPayment>> timeouts = new HashMap<>();
+
+        long startedAt = System.nanoTime();
+        for (ScheduledPayment payment : payments) {
+            timeouts.put(payment.id(), wheel.schedule(payment, payment.dueAt()));
+        }
+        long scheduleNanos = System.nanoTime() - startedAt;
+        payments = null;
+        long retained = Benchmarks.retainedHeap() - heapBefore;
+
+        int[] fired = new int[1];
+        startedAt = System.nanoTime();
+        wheel.advanceTo(START + SPAN_MILLIS + TICK_MILLIS, payment -> {
+            timeouts.remove(payment.id());
+            fired[0]++;
+        });
+        long drainNanos = System.nanoTime() - startedAt;
+
+        assertEquals(count, fired[0]);
+        assertEquals(0, wheel.size());
+        if (report) {
+            Benchmarks.report("wheel, %,d payments: %,.0f inserts/s, %,d MB retained (%d B/payment)",
+                    count, count * 1e9 / scheduleNanos, retained >> 20, retained / count);
+            Benchmarks.report("wheel, %,d payments: 30 days drained in %.2f s (%,.0f expiries/s)",
+                    count, drainNanos / 1e9, count * 1e9 / drainNanos);
+        }
+    }
+
+    private static ScheduledPayment[] payments(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        RecurrenceRule period = RecurrenceRule.parse("30d");
+        ScheduledPayment[] payments = new ScheduledPayment[count];
+        for (int i = 0; i < count; i++) {
+            long dueAt = START + random.nextLong(SPAN_MILLIS);
+            payments[i] = new ScheduledPayment(UUID.randomUUID(), Money.ofMinor(random.nextLong(1, 1_000_000)),
+                    period, dueAt, START);
+        }
+        return payments;
+    }
+}
@@ -0,0 +1,131 @@
+package org.orymar.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.orymar.domain.WriteOffSummary;
+import org.orymar.domain.enums.WriteOffResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteOffExecutorTest {
+
+    record Item(int key, int seq) {}
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    @DisplayName("Summary counts succeeded, failed and skipped write-offs")
+    void summaryCountsResults(boolean parallel) {
+        WriteOffExecutor executor = new WriteOffExecutor(parallel, 4, 1);
+        List<Item> items = List.of(new Item(1, 0), new Item(2, 0), new Item(2, 1), new Item(3, 0));
+
+        WriteOffSummary summary = executor.execute(items, Item::key, item -> {
+            if (item.key() == 2 && item.seq() == 0) {
+                throw new IllegalStateException("boom");
+            }
+            return item.key() == 3 ? WriteOffResult.SKIPPED : WriteOffResult.SUCCEEDED;
+        });
+
+        assertEquals(1, summary.succeeded());
+        assertEquals(1, summary.failed());
+        assertEquals(2, summary.skipped());
+        assertEquals(4, summary.total());
+    }
+
+    @Test
+    @DisplayName("Parallel mode never exceeds the concurrency limit")
+    void respectsConcurrencyLimit() {
+        WriteOffExecutor executor = new WriteOffExecutor(true, 3, 1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 50).boxed().toList();
+
+        WriteOffSummary summary = executor.execute(items, i -> i, i -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(5);
+            inFlight.decrementAndGet();
+            return WriteOffResult.SUCCEEDED;
+        });
+
+        assertEquals(50, summary.succeeded());
+        assertTrue(maxInFlight.get() <= 3, "max in flight: " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "ran sequentially");
+    }
+
+    @Test
+    @DisplayName("Write-offs of the same payment keep their order in parallel mode")
+    void keepsOrderPerKey() {
+        WriteOffExecutor executor = new WriteOffExecutor(true, 8, 1);
+        Map<Integer, List<Integer>> seen = new ConcurrentHashMap<>();
+        List<Item> items = new ArrayList<>();
+        for (int seq = 0; seq < 20; seq++) {
+            for (int key = 0; key < 10; key++) {
+                items.add(new Item(key, seq));
+            }
+        }
+
+        executor.execute(items, Item::key, item -> {
+            seen.computeIfAbsent(item.key(), k -> Collections.synchronizedList(new ArrayList<>())).add(item.seq());
+            sleep(1);
+            return WriteOffResult.SUCCEEDED;
+        });
+
+        List<Integer> expected = IntStream.range(0, 20).boxed().toList();
+        seen.values().forEach(order -> assertEquals(expected, order));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    @DisplayName("Batched mode keeps every key in one chunk and fails a chunk that throws as a whole")
+    void batchesWholeKeys(boolean parallel) {
+        WriteOffExecutor executor = new WriteOffExecutor(parallel, 4, 3);
+        List<Item> items = List.of(new Item(1, 0), new Item(2, 0), new Item(2, 1),
+                new Item(3, 0), new Item(4, 0), new Item(4, 1), new Item(4, 2), new Item(5, 0));
+        List<List<Item>> chunks = Collections.synchronizedList(new ArrayList<>());
+
+        WriteOffSummary summary = executor.executeBatched(items, Item::key, chunk -> {
+            chunks.add(chunk);
+            if (chunk.contains(new Item(5, 0))) {
+                throw new IllegalStateException("boom");
+            }
+            return chunk.stream().map(item -> WriteOffResult.SUCCEEDED).toList();
+        });
+
+        assertEquals(4, chunks.size());
+        chunks.forEach(chunk -> assertTrue(chunk.size() <= 3, "chunk: " + chunk));
+        assertEquals(5, chunks.stream().flatMap(chunk -> chunk.stream().map(Item::key).distinct()).count());
+        assertEquals(7, summary.succeeded());
+        assertEquals(1, summary.failed());
+    }
+
+    @Test
+    @DisplayName("Non-positive concurrency limit is rejected")
+    void rejectsInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new WriteOffExecutor(true, 0, 1));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1001})
+    @DisplayName("A batch size PaymentService would refuse is rejected at start-up")
+    void rejectsInvalidBatchSize(int batchSize) {
+        assertThrows(IllegalArgumentException.class, () -> new WriteOffExecutor(false, 1, batchSize));
+        assertDoesNotThrow(() -> new WriteOffExecutor(false, 1, WriteOffExecutor.MAX_BATCH_SIZE));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
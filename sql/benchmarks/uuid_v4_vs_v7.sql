@@ -0,0 +1,53 @@
+-- Insert throughput and primary-key index size of random (v4) versus time-ordered (v7) ids.
+-- Run against a scratch database: psql -v rows=10000000 -f uuid_v4_vs_v7.sql
+-- Rows go in statements of 1000, like EntriesRepositoryImpl.insertAllIfAbsent, one commit each.
+
+\set batch 1000
+
+CREATE EXTENSION IF NOT EXISTS pgstattuple;
+
+-- Like UuidV7Generator: epoch milliseconds, then 12 bits that increase within the millisecond
+-- (here the sub-millisecond clock fraction rather than a counter), then random bits.
+CREATE OR REPLACE FUNCTION bench_uuid_v7() RETURNS uuid AS $$
+    SELECT encode(overlay(uuid_send(gen_random_uuid())
+            PLACING int8send((floor(extract(epoch FROM now) * 1000)::bigint << 16)
+                | x'7000'::bigint
+                | (floor(extract(microseconds FROM now))::bigint % 1000 * 4096 / 1000))
+            FROM 1 FOR 8), 'hex')::uuid
+    FROM clock_timestamp() AS now
+$$ LANGUAGE sql VOLATILE;
+
+CREATE OR REPLACE PROCEDURE bench_insert(target regclass, v7 boolean, total bigint, batch int) AS $$
+DECLARE
+    started timestamptz := clock_timestamp();
+BEGIN
+    FOR i IN 1..total / batch LOOP
+        EXECUTE format('INSERT INTO %s (id, regular_payment_id, amount)
+                SELECT CASE WHEN $1 THEN bench_uuid_v7() ELSE gen_random_uuid() END, gen_random_uuid(), 100
+                FROM generate_series(1, $2)', target) USING v7, batch;
+        COMMIT;
+    END LOOP;
+    INSERT INTO bench_result VALUES (target::text, total, extract(epoch FROM clock_timestamp() - started));
+END
+$$ LANGUAGE plpgsql;
+
+DROP TABLE IF EXISTS bench_v4, bench_v7, bench_result;
+CREATE TABLE bench_result (relname TEXT, total BIGINT, seconds NUMERIC);
+CREATE TABLE bench_v4 (id UUID PRIMARY KEY, regular_payment_id UUID NOT NULL, amount NUMERIC(15,2) NOT NULL);
+CREATE TABLE bench_v7 (LIKE bench_v4 INCLUDING ALL);
+
+CALL bench_insert('bench_v4', false, :rows, :batch);
+CALL bench_insert('bench_v7', true, :rows, :batch);
+
+SELECT relname,
+       round(seconds, 1) AS seconds,
+       round(total / seconds) AS rows_per_second,
+       pg_size_pretty(pg_relation_size(relname::regclass)) AS heap,
+       pg_size_pretty(pg_relation_size((relname || '_pkey')::regclass)) AS pkey,
+       (SELECT avg_leaf_density FROM pgstatindex(relname || '_pkey')) AS leaf_density
+FROM bench_result
+ORDER BY relname;
+
+DROP TABLE bench_v4, bench_v7, bench_result;
+DROP PROCEDURE bench_insert;
+DROP FUNCTION bench_uuid_v7;
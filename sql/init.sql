@@ -6,17 +6,195 @@ CREATE TABLE regular_payment (
     mfo VARCHAR(6) NOT NULL,
     edrpou VARCHAR(20) NOT NULL,
     beneficiary_name VARCHAR(255) NOT NULL,
-    debit_period VARCHAR(50) NOT NULL,
-    payment_amount NUMERIC(15,2) NOT NULL
+    recurrence_rule VARCHAR(64) NOT NULL,
+    -- seconds of a fixed-interval rule such as '3d', NULL for calendar rules
+    debit_period BIGINT GENERATED ALWAYS AS (
+        CASE WHEN recurrence_rule ~ '^[0-9]+[smhd]$'
+            THEN left(recurrence_rule, -1)::bigint * CASE right(recurrence_rule, 1)
+                WHEN 's' THEN 1 WHEN 'm' THEN 60 WHEN 'h' THEN 3600 ELSE 86400 END
+        END) STORED,
+    payment_amount NUMERIC(15,2) NOT NULL,
+    last_paid_at TIMESTAMP,
+    next_due_at TIMESTAMP NOT NULL DEFAULT now(),
+    version BIGINT NOT NULL DEFAULT 0,
+    deleted_at TIMESTAMP,
+    -- transaction id of the last write, stamped by regular_payment_stamp_change
+    change_seq BIGINT NOT NULL DEFAULT 0
 );
 CREATE TABLE entries_payment (
-    id UUID PRIMARY KEY,
+    id UUID NOT NULL,
     regular_payment_id UUID NOT NULL,
     date_of_payment TIMESTAMP NOT NULL DEFAULT now(),
     amount NUMERIC(15,2),
-    status CHAR(1) CHECK (status IN ('A','S'))
+    status CHAR(1) CHECK (status IN ('A','S')),
+    due_at TIMESTAMP,
+    billing_period BIGINT,
+    version BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (id, date_of_payment)
+) PARTITION BY RANGE (date_of_payment);
+
+-- monthly partitions are created ahead of time by PaymentService; rows outside them land here
+CREATE TABLE entries_payment_default PARTITION OF entries_payment DEFAULT;
+
+CREATE INDEX idx_entries_payment_history ON entries_payment (regular_payment_id, date_of_payment, id);
+
+-- Rows paid in a month without its partition land in the default partition, and while they are
+-- there the month's partition cannot be created over them. The partition is therefore built
+-- detached, takes over those rows and is attached afterwards, all in the caller's transaction.
+CREATE FUNCTION create_entries_payment_partition(month DATE) RETURNS VOID AS $$
+DECLARE
+    start_at DATE := date_trunc('month', month);
+    end_at DATE := start_at + interval '1 month';
+    partition_name TEXT := 'entries_payment_' || to_char(start_at, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE entries_payment INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                   partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM entries_payment_default '
+                   'WHERE date_of_payment >= %L AND date_of_payment < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', start_at, end_at, partition_name);
+    -- deleting from the default partition released the billing periods of the moved active entries
+    EXECUTE format('INSERT INTO entries_payment_active_period (regular_payment_id, billing_period, entry_id) '
+                   'SELECT regular_payment_id, billing_period, id FROM %I '
+                   'WHERE status = ''A'' AND billing_period IS NOT NULL', partition_name);
+    EXECUTE format('ALTER TABLE entries_payment ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_at, end_at);
+END;
+$$ LANGUAGE plpgsql;
+
+-- A unique index on a partitioned table must contain the partition key, so the one active entry
+-- per regular payment and billing period is enforced through this table, kept by a trigger.
+CREATE TABLE entries_payment_active_period (
+    regular_payment_id UUID NOT NULL,
+    billing_period BIGINT NOT NULL,
+    entry_id UUID NOT NULL,
+    PRIMARY KEY (regular_payment_id, billing_period)
 );
 
-CREATE INDEX idx_entries_payment_regular_payment_id ON entries_payment (regular_payment_id);
+CREATE FUNCTION entries_payment_guard_active_period() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND (OLD.regular_payment_id, OLD.billing_period, OLD.status)
+            IS NOT DISTINCT FROM (NEW.regular_payment_id, NEW.billing_period, NEW.status) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP <> 'INSERT' AND OLD.status = 'A' AND OLD.billing_period IS NOT NULL THEN
+        DELETE FROM entries_payment_active_period
+        WHERE regular_payment_id = OLD.regular_payment_id AND billing_period = OLD.billing_period
+          AND entry_id = OLD.id;
+    END IF;
+    IF TG_OP <> 'DELETE' AND NEW.status = 'A' AND NEW.billing_period IS NOT NULL THEN
+        -- the period may already have been claimed for this entry before it was inserted
+        INSERT INTO entries_payment_active_period (regular_payment_id, billing_period, entry_id)
+        VALUES (NEW.regular_payment_id, NEW.billing_period, NEW.id)
+        ON CONFLICT (regular_payment_id, billing_period) DO NOTHING;
+        IF NOT FOUND AND NOT EXISTS (SELECT 1 FROM entries_payment_active_period
+                                     WHERE regular_payment_id = NEW.regular_payment_id
+                                       AND billing_period = NEW.billing_period AND entry_id = NEW.id) THEN
+            RAISE unique_violation USING MESSAGE = format(
+                    'Billing period %s of regular payment %s already has an active entry',
+                    NEW.billing_period, NEW.regular_payment_id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER entries_payment_guard_active_period
+    AFTER INSERT OR UPDATE OR DELETE ON entries_payment
+    FOR EACH ROW EXECUTE FUNCTION entries_payment_guard_active_period();
+
 CREATE INDEX idx_regular_payment_ipn ON regular_payment (ipn);
-CREATE INDEX idx_regular_payment_iban ON regular_payment (iban);
\ No newline at end of file
+CREATE INDEX idx_regular_payment_iban ON regular_payment (iban);
+CREATE INDEX idx_regular_payment_next_due_at ON regular_payment (next_due_at);
+CREATE INDEX idx_regular_payment_deleted_at ON regular_payment (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- Change counter behind the ETags of the regular payment list. Every transaction that writes
+-- regular_payment bumps one of the stripes once, at commit, so concurrent writers seldom wait on the
+-- same row and never hold it while waiting for anything else. The version is the sum of the stripes.
+CREATE TABLE regular_payment_version (
+    stripe SMALLINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO regular_payment_version (stripe) SELECT generate_series(0, 63);
+
+CREATE FUNCTION regular_payment_bump_version() RETURNS TRIGGER AS $$
+BEGIN
+    IF current_setting('regular_payment.version_bumped', true) IS DISTINCT FROM 'on' THEN
+        PERFORM set_config('regular_payment.version_bumped', 'on', true);
+        UPDATE regular_payment_version SET version = version + 1
+        WHERE stripe = pg_current_xact_id()::text::bigint % 64;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE CONSTRAINT TRIGGER regular_payment_bump_version
+    AFTER INSERT OR UPDATE OR DELETE ON regular_payment
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION regular_payment_bump_version();
+
+-- Change feed of regular_payment. Every write stamps the row with the id of the writing transaction
+-- and a hard delete leaves a tombstone, so a reader can ask for everything written since a given
+-- point. Transactions are read only once their id is below the snapshot xmin: they have all ended by
+-- then, so nothing can still commit behind the point a reader has reached.
+CREATE TABLE regular_payment_tombstone (
+    id UUID PRIMARY KEY,
+    change_seq BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT localtimestamp
+);
+
+-- Tombstones are pruned after a retention period; the highest position pruned so far is kept here,
+-- and a reader resuming at or below it may have missed a delete and has to start over from 0.
+CREATE TABLE regular_payment_change_floor (
+    change_seq BIGINT NOT NULL
+);
+
+INSERT INTO regular_payment_change_floor VALUES (0);
+
+CREATE FUNCTION regular_payment_stamp_change() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO regular_payment_tombstone (id, change_seq)
+        VALUES (OLD.id, pg_current_xact_id()::text::bigint)
+        ON CONFLICT (id) DO UPDATE SET change_seq = EXCLUDED.change_seq, deleted_at = EXCLUDED.deleted_at;
+        RETURN NULL;
+    END IF;
+    NEW.change_seq := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER regular_payment_stamp_change
+    BEFORE INSERT OR UPDATE ON regular_payment
+    FOR EACH ROW EXECUTE FUNCTION regular_payment_stamp_change();
+
+CREATE TRIGGER regular_payment_tombstone
+    AFTER DELETE ON regular_payment
+    FOR EACH ROW EXECUTE FUNCTION regular_payment_stamp_change();
+
+CREATE INDEX idx_regular_payment_change_seq ON regular_payment (change_seq, id);
+CREATE INDEX idx_regular_payment_tombstone_change_seq ON regular_payment_tombstone (change_seq, id);
+CREATE INDEX idx_regular_payment_tombstone_deleted_at ON regular_payment_tombstone (deleted_at);
+
+CREATE TABLE payment_ledger_summary (
+    regular_payment_id UUID PRIMARY KEY,
+    active_count BIGINT NOT NULL DEFAULT 0,
+    active_amount NUMERIC(17,2) NOT NULL DEFAULT 0,
+    storno_count BIGINT NOT NULL DEFAULT 0,
+    storno_amount NUMERIC(17,2) NOT NULL DEFAULT 0,
+    last_payment_at TIMESTAMP,
+    entries_version BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE reglament_instance (
+    instance_id VARCHAR(64) PRIMARY KEY,
+    heartbeat_at TIMESTAMPTZ NOT NULL
+);
+CREATE TABLE reglament_partition_lease (
+    partition_no INT PRIMARY KEY,
+    owner VARCHAR(64),
+    expires_at TIMESTAMPTZ NOT NULL DEFAULT '-infinity'
+);
@@ -0,0 +1,23 @@
+-- Adds the persisted schedule of each regular payment and backfills it from the entry history.
+-- debit_period still holds the Hibernate Duration encoding (nanoseconds as text).
+
+ALTER TABLE regular_payment
+    ADD COLUMN last_paid_at TIMESTAMP,
+    ADD COLUMN next_due_at TIMESTAMP;
+
+UPDATE regular_payment r
+SET last_paid_at = e.last_paid_at
+FROM (SELECT regular_payment_id, max(date_of_payment) AS last_paid_at
+      FROM entries_payment
+      WHERE status = 'A'
+      GROUP BY regular_payment_id) e
+WHERE e.regular_payment_id = r.id;
+
+UPDATE regular_payment
+SET next_due_at = COALESCE(last_paid_at + make_interval(secs => debit_period::numeric / 1000000000), now());
+
+ALTER TABLE regular_payment
+    ALTER COLUMN next_due_at SET DEFAULT now(),
+    ALTER COLUMN next_due_at SET NOT NULL;
+
+CREATE INDEX idx_regular_payment_next_due_at ON regular_payment (next_due_at);
@@ -0,0 +1,13 @@
+-- Membership and partition leases of Reglament instances running with scheduled.partitioning.enabled.
+-- Lease rows are created by the instances themselves for the configured partition count.
+
+CREATE TABLE reglament_instance (
+    instance_id VARCHAR(64) PRIMARY KEY,
+    heartbeat_at TIMESTAMPTZ NOT NULL
+);
+
+CREATE TABLE reglament_partition_lease (
+    partition_no INT PRIMARY KEY,
+    owner VARCHAR(64),
+    expires_at TIMESTAMPTZ NOT NULL DEFAULT '-infinity'
+);
@@ -0,0 +1,26 @@
+-- One active entry per regular payment and billing period, enforced by a partial unique index.
+-- The billing period is the index of the debit period containing the settled due date (or the
+-- payment date), counted from the epoch; debit_period holds nanoseconds as text.
+
+ALTER TABLE entries_payment
+    ADD COLUMN due_at TIMESTAMP,
+    ADD COLUMN billing_period BIGINT;
+
+UPDATE entries_payment e
+SET billing_period = floor(extract(epoch FROM e.date_of_payment)
+                           / greatest(1, floor(r.debit_period::numeric / 1000000000)))
+FROM regular_payment r
+WHERE r.id = e.regular_payment_id;
+
+-- duplicates booked before the constraint existed keep no key, so they stay but do not block it
+UPDATE entries_payment e
+SET billing_period = NULL
+FROM (SELECT id,
+             row_number() OVER (PARTITION BY regular_payment_id, billing_period
+                                ORDER BY date_of_payment, id) AS n
+      FROM entries_payment
+      WHERE status = 'A' AND billing_period IS NOT NULL) d
+WHERE d.id = e.id AND d.n > 1;
+
+CREATE UNIQUE INDEX uq_entries_payment_billing_period
+    ON entries_payment (regular_payment_id, billing_period) WHERE status = 'A';
@@ -0,0 +1,21 @@
+-- Per-payment totals of the entry history, kept up to date by PaymentService on every entry change.
+
+CREATE TABLE payment_ledger_summary (
+    regular_payment_id UUID PRIMARY KEY,
+    active_count BIGINT NOT NULL DEFAULT 0,
+    active_amount NUMERIC(17,2) NOT NULL DEFAULT 0,
+    storno_count BIGINT NOT NULL DEFAULT 0,
+    storno_amount NUMERIC(17,2) NOT NULL DEFAULT 0,
+    last_payment_at TIMESTAMP
+);
+
+INSERT INTO payment_ledger_summary
+    (regular_payment_id, active_count, active_amount, storno_count, storno_amount, last_payment_at)
+SELECT regular_payment_id,
+       count(*) FILTER (WHERE status = 'A'),
+       COALESCE(sum(amount) FILTER (WHERE status = 'A'), 0),
+       count(*) FILTER (WHERE status = 'S'),
+       COALESCE(sum(amount) FILTER (WHERE status = 'S'), 0),
+       max(date_of_payment) FILTER (WHERE status = 'A')
+FROM entries_payment
+GROUP BY regular_payment_id;
@@ -0,0 +1,5 @@
+-- Keyset pagination of an entry history walks (regular_payment_id, date_of_payment, id) in order.
+-- The new index covers every lookup of the single-column one, which is dropped.
+
+CREATE INDEX idx_entries_payment_history ON entries_payment (regular_payment_id, date_of_payment, id);
+DROP INDEX idx_entries_payment_regular_payment_id;
@@ -0,0 +1,97 @@
+-- Turns entries_payment into a table range-partitioned by month of date_of_payment. PaymentService
+-- creates the partitions for the coming months itself; this script creates the ones for the
+-- existing rows and copies them over in one transaction, so writes must be stopped while it runs.
+-- The one active entry per billing period moves from the partial unique index to
+-- entries_payment_active_period, because a unique index on a partitioned table must contain
+-- the partition key.
+
+BEGIN;
+
+ALTER TABLE entries_payment RENAME TO entries_payment_unpartitioned;
+ALTER TABLE entries_payment_unpartitioned RENAME CONSTRAINT entries_payment_pkey TO entries_payment_unpartitioned_pkey;
+ALTER INDEX idx_entries_payment_history RENAME TO idx_entries_payment_unpartitioned_history;
+DROP INDEX uq_entries_payment_billing_period;
+
+CREATE TABLE entries_payment (
+    id UUID NOT NULL,
+    regular_payment_id UUID NOT NULL,
+    date_of_payment TIMESTAMP NOT NULL DEFAULT now(),
+    amount NUMERIC(15,2),
+    status CHAR(1) CHECK (status IN ('A','S')),
+    due_at TIMESTAMP,
+    billing_period BIGINT,
+    PRIMARY KEY (id, date_of_payment)
+) PARTITION BY RANGE (date_of_payment);
+
+CREATE TABLE entries_payment_default PARTITION OF entries_payment DEFAULT;
+
+CREATE INDEX idx_entries_payment_history ON entries_payment (regular_payment_id, date_of_payment, id);
+
+CREATE FUNCTION create_entries_payment_partition(month DATE) RETURNS VOID AS $$
+DECLARE
+    start_at DATE := date_trunc('month', month);
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF entries_payment FOR VALUES FROM (%L) TO (%L)',
+                   'entries_payment_' || to_char(start_at, 'YYYY_MM'), start_at, start_at + interval '1 month');
+END;
+$$ LANGUAGE plpgsql;
+
+-- A unique index on a partitioned table must contain the partition key, so the one active entry
+-- per regular payment and billing period is enforced through this table, kept by a trigger.
+CREATE TABLE entries_payment_active_period (
+    regular_payment_id UUID NOT NULL,
+    billing_period BIGINT NOT NULL,
+    entry_id UUID NOT NULL,
+    PRIMARY KEY (regular_payment_id, billing_period)
+);
+
+CREATE FUNCTION entries_payment_guard_active_period() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND (OLD.regular_payment_id, OLD.billing_period, OLD.status)
+            IS NOT DISTINCT FROM (NEW.regular_payment_id, NEW.billing_period, NEW.status) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP <> 'INSERT' AND OLD.status = 'A' AND OLD.billing_period IS NOT NULL THEN
+        DELETE FROM entries_payment_active_period
+        WHERE regular_payment_id = OLD.regular_payment_id AND billing_period = OLD.billing_period
+          AND entry_id = OLD.id;
+    END IF;
+    IF TG_OP <> 'DELETE' AND NEW.status = 'A' AND NEW.billing_period IS NOT NULL THEN
+        -- the period may already have been claimed for this entry before it was inserted
+        INSERT INTO entries_payment_active_period (regular_payment_id, billing_period, entry_id)
+        VALUES (NEW.regular_payment_id, NEW.billing_period, NEW.id)
+        ON CONFLICT (regular_payment_id, billing_period) DO NOTHING;
+        IF NOT FOUND AND NOT EXISTS (SELECT 1 FROM entries_payment_active_period
+                                     WHERE regular_payment_id = NEW.regular_payment_id
+                                       AND billing_period = NEW.billing_period AND entry_id = NEW.id) THEN
+            RAISE unique_violation USING MESSAGE = format(
+                    'Billing period %s of regular payment %s already has an active entry',
+                    NEW.billing_period, NEW.regular_payment_id);
+        END IF;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_entries_payment_partition(month::date)
+FROM generate_series(
+        date_trunc('month', least(now(), (SELECT min(date_of_payment) FROM entries_payment_unpartitioned))),
+        date_trunc('month', greatest(now(), (SELECT max(date_of_payment) FROM entries_payment_unpartitioned))),
+        interval '1 month') AS month;
+
+INSERT INTO entries_payment (id, regular_payment_id, date_of_payment, amount, status, due_at, billing_period)
+SELECT id, regular_payment_id, date_of_payment, amount, status, due_at, billing_period
+FROM entries_payment_unpartitioned;
+
+INSERT INTO entries_payment_active_period (regular_payment_id, billing_period, entry_id)
+SELECT regular_payment_id, billing_period, id
+FROM entries_payment_unpartitioned
+WHERE status = 'A' AND billing_period IS NOT NULL;
+
+CREATE TRIGGER entries_payment_guard_active_period
+    AFTER INSERT OR UPDATE OR DELETE ON entries_payment
+    FOR EACH ROW EXECUTE FUNCTION entries_payment_guard_active_period();
+
+DROP TABLE entries_payment_unpartitioned;
+
+COMMIT;
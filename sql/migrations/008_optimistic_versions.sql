@@ -0,0 +1,5 @@
+-- Row versions for optimistic locking: every update bumps the version and a write based on a stale
+-- version is rejected. On the partitioned entries_payment the column is added to all partitions.
+
+ALTER TABLE regular_payment ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE entries_payment ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
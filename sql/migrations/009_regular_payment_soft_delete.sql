@@ -0,0 +1,5 @@
+-- Deleted regular payments are only marked here and purged with their entries in the background.
+
+ALTER TABLE regular_payment ADD COLUMN deleted_at TIMESTAMP;
+
+CREATE INDEX idx_regular_payment_deleted_at ON regular_payment (deleted_at) WHERE deleted_at IS NOT NULL;
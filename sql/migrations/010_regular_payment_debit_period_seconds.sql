@@ -0,0 +1,9 @@
+-- Stores debit_period as whole seconds instead of the Hibernate Duration encoding (nanoseconds as
+-- text), so schedules can be computed in SQL: last_paid_at + make_interval(secs => debit_period).
+
+ALTER TABLE regular_payment
+    ALTER COLUMN debit_period TYPE BIGINT USING floor(debit_period::numeric / 1000000000)::bigint;
+
+UPDATE regular_payment
+SET next_due_at = last_paid_at + make_interval(secs => debit_period)
+WHERE last_paid_at IS NOT NULL;
@@ -0,0 +1,24 @@
+-- Schedules become recurrence rules kept as text ('3d', 'FREQ=MONTHLY;BYMONTHDAY=5', ...).
+-- debit_period is now derived from the rule: the seconds of a fixed interval, NULL otherwise.
+
+ALTER TABLE regular_payment ADD COLUMN recurrence_rule VARCHAR(64);
+
+UPDATE regular_payment r
+SET recurrence_rule = CASE
+        WHEN p.seconds % 86400 = 0 THEN (p.seconds / 86400) || 'd'
+        WHEN p.seconds % 3600 = 0 THEN (p.seconds / 3600) || 'h'
+        WHEN p.seconds % 60 = 0 THEN (p.seconds / 60) || 'm'
+        ELSE p.seconds || 's'
+    END
+FROM (SELECT id, greatest(debit_period, 1) AS seconds FROM regular_payment) p
+WHERE p.id = r.id;
+
+ALTER TABLE regular_payment
+    ALTER COLUMN recurrence_rule SET NOT NULL,
+    DROP COLUMN debit_period;
+
+ALTER TABLE regular_payment ADD COLUMN debit_period BIGINT GENERATED ALWAYS AS (
+    CASE WHEN recurrence_rule ~ '^[0-9]+[smhd]$'
+        THEN left(recurrence_rule, -1)::bigint * CASE right(recurrence_rule, 1)
+            WHEN 's' THEN 1 WHEN 'm' THEN 60 WHEN 'h' THEN 3600 ELSE 86400 END
+    END) STORED;
@@ -0,0 +1,29 @@
+-- Change versions behind the ETags of the regular payment and entry reads.
+
+ALTER TABLE payment_ledger_summary ADD COLUMN entries_version BIGINT NOT NULL DEFAULT 0;
+
+-- Change counter behind the ETags of the regular payment list. Every transaction that writes
+-- regular_payment bumps one of the stripes once, at commit, so concurrent writers seldom wait on the
+-- same row and never hold it while waiting for anything else. The version is the sum of the stripes.
+CREATE TABLE regular_payment_version (
+    stripe SMALLINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO regular_payment_version (stripe) SELECT generate_series(0, 63);
+
+CREATE FUNCTION regular_payment_bump_version() RETURNS TRIGGER AS $$
+BEGIN
+    IF current_setting('regular_payment.version_bumped', true) IS DISTINCT FROM 'on' THEN
+        PERFORM set_config('regular_payment.version_bumped', 'on', true);
+        UPDATE regular_payment_version SET version = version + 1
+        WHERE stripe = pg_current_xact_id()::text::bigint % 64;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE CONSTRAINT TRIGGER regular_payment_bump_version
+    AFTER INSERT OR UPDATE OR DELETE ON regular_payment
+    DEFERRABLE INITIALLY DEFERRED
+    FOR EACH ROW EXECUTE FUNCTION regular_payment_bump_version();
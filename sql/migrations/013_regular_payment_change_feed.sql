@@ -0,0 +1,37 @@
+-- Change feed of regular payments: a per-row change position and tombstones for hard deletes.
+-- Existing rows keep change_seq 0, so a reader starting from 0 still sees all of them.
+
+ALTER TABLE regular_payment ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+
+-- Change feed of regular_payment. Every write stamps the row with the id of the writing transaction
+-- and a hard delete leaves a tombstone, so a reader can ask for everything written since a given
+-- point. Transactions are read only once their id is below the snapshot xmin: they have all ended by
+-- then, so nothing can still commit behind the point a reader has reached.
+CREATE TABLE regular_payment_tombstone (
+    id UUID PRIMARY KEY,
+    change_seq BIGINT NOT NULL
+);
+
+CREATE FUNCTION regular_payment_stamp_change() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO regular_payment_tombstone (id, change_seq)
+        VALUES (OLD.id, pg_current_xact_id()::text::bigint)
+        ON CONFLICT (id) DO UPDATE SET change_seq = EXCLUDED.change_seq;
+        RETURN NULL;
+    END IF;
+    NEW.change_seq := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER regular_payment_stamp_change
+    BEFORE INSERT OR UPDATE ON regular_payment
+    FOR EACH ROW EXECUTE FUNCTION regular_payment_stamp_change();
+
+CREATE TRIGGER regular_payment_tombstone
+    AFTER DELETE ON regular_payment
+    FOR EACH ROW EXECUTE FUNCTION regular_payment_stamp_change();
+
+CREATE INDEX idx_regular_payment_change_seq ON regular_payment (change_seq, id);
+CREATE INDEX idx_regular_payment_tombstone_change_seq ON regular_payment_tombstone (change_seq, id);
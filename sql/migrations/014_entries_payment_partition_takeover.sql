@@ -0,0 +1,29 @@
+-- The month's partition used to be created over the default partition, which fails for good once
+-- rows of that month have landed there. It now takes those rows over; months stuck that way are
+-- repaired by the next run of the partition maintenance.
+
+-- Rows paid in a month without its partition land in the default partition, and while they are
+-- there the month's partition cannot be created over them. The partition is therefore built
+-- detached, takes over those rows and is attached afterwards, all in the caller's transaction.
+CREATE OR REPLACE FUNCTION create_entries_payment_partition(month DATE) RETURNS VOID AS $$
+DECLARE
+    start_at DATE := date_trunc('month', month);
+    end_at DATE := start_at + interval '1 month';
+    partition_name TEXT := 'entries_payment_' || to_char(start_at, 'YYYY_MM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE entries_payment INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+                   partition_name);
+    EXECUTE format('WITH moved AS (DELETE FROM entries_payment_default '
+                   'WHERE date_of_payment >= %L AND date_of_payment < %L RETURNING *) '
+                   'INSERT INTO %I SELECT * FROM moved', start_at, end_at, partition_name);
+    -- deleting from the default partition released the billing periods of the moved active entries
+    EXECUTE format('INSERT INTO entries_payment_active_period (regular_payment_id, billing_period, entry_id) '
+                   'SELECT regular_payment_id, billing_period, id FROM %I '
+                   'WHERE status = ''A'' AND billing_period IS NOT NULL', partition_name);
+    EXECUTE format('ALTER TABLE entries_payment ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_at, end_at);
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,27 @@
+-- Tombstones of purged regular payments are pruned after a retention period. Existing tombstones
+-- count as written now, so none is pruned before the retention has passed.
+
+ALTER TABLE regular_payment_tombstone ADD COLUMN deleted_at TIMESTAMP NOT NULL DEFAULT localtimestamp;
+
+-- Tombstones are pruned after a retention period; the highest position pruned so far is kept here,
+-- and a reader resuming at or below it may have missed a delete and has to start over from 0.
+CREATE TABLE regular_payment_change_floor (
+    change_seq BIGINT NOT NULL
+);
+
+INSERT INTO regular_payment_change_floor VALUES (0);
+
+CREATE OR REPLACE FUNCTION regular_payment_stamp_change() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO regular_payment_tombstone (id, change_seq)
+        VALUES (OLD.id, pg_current_xact_id()::text::bigint)
+        ON CONFLICT (id) DO UPDATE SET change_seq = EXCLUDED.change_seq, deleted_at = EXCLUDED.deleted_at;
+        RETURN NULL;
+    END IF;
+    NEW.change_seq := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE INDEX idx_regular_payment_tombstone_deleted_at ON regular_payment_tombstone (deleted_at);